@@ -3,13 +3,17 @@ package com.recognition;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @SpringBootApplication
 @EnableAsync
+@EnableCaching
+@EnableScheduling
 public class Main {
     public static void main(String[] args) {
         Dotenv dotenv = Dotenv.configure()
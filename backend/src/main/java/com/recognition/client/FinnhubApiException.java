@@ -0,0 +1,18 @@
+package com.recognition.client;
+
+/**
+ * Finnhub trả về mã HTTP khác 200.
+ */
+public class FinnhubApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public FinnhubApiException(String endpoint, int statusCode) {
+        super("Finnhub " + endpoint + " returned HTTP " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -1,158 +1,384 @@
 package com.recognition.client;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.client.FinnhubRateLimiter.Caller;
+import com.recognition.client.dto.FinnhubMetrics;
+import com.recognition.client.dto.FinnhubQuote;
+import com.recognition.client.dto.SymbolListing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
 
+/**
+ * Client Finnhub dùng java.net.http.HttpClient: một client dùng chung cho cả ứng dụng nên kết nối
+ * HTTP/2 (hoặc HTTP/1.1 keep-alive) được tái sử dụng, request chạy bất đồng bộ trên virtual thread.
+ * Các hàm đồng bộ giữ nguyên hành vi cũ (trả null/rỗng khi lỗi) và chỉ chờ kết quả của bản async.
+ * Response được đọc bằng streaming parser thẳng vào record (số đọc trực tiếp sang BigDecimal), không qua Map.
+ * Mọi request đều đi qua FinnhubRateLimiter.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class FinnhubClient {
 
-    private static final String FINNHUB_BASE_URL = "https://finnhub.io/api/v1";
     private static final String QUOTE_ENDPOINT = "/quote";
-    private static final String COMPANY_PROFILE_ENDPOINT = "/stock/profile2";
+    private static final String SYMBOL_ENDPOINT = "/stock/symbol";
+    private static final String METRIC_ENDPOINT = "/stock/metric";
+    private static final String REQUESTS_METER = "finnhub.client.requests";
 
-    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final FinnhubRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final SingleFlight<String, Object> singleFlight;
 
-    @Value("${finnhub.api.key}")
-    private String apiToken;
+    private final String apiToken;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final int maxConcurrency;
+    private final int maxRetriesOn429;
 
-    // Lấy giá hiện tại cổ phiếu từ Finnhub
-    public BigDecimal fetchPrice(String symbol) {
-        String url = UriComponentsBuilder.fromHttpUrl(FINNHUB_BASE_URL + QUOTE_ENDPOINT)
-                .queryParam("symbol", symbol)
-                .queryParam("token", apiToken)
-                .toUriString();
+    public FinnhubClient(ObjectMapper objectMapper,
+                         FinnhubRateLimiter rateLimiter,
+                         MeterRegistry meterRegistry,
+                         @Value("${finnhub.api.key}") String apiToken,
+                         @Value("${finnhub.api.base-url:https://finnhub.io/api/v1}") String baseUrl,
+                         @Value("${finnhub.client.connect-timeout:10s}") Duration connectTimeout,
+                         @Value("${finnhub.client.request-timeout:20s}") Duration requestTimeout,
+                         @Value("${finnhub.client.max-concurrency:20}") int maxConcurrency,
+                         @Value("${finnhub.rate-limit.max-retries:2}") int maxRetriesOn429,
+                         @Value("${finnhub.client.freshness:2s}") Duration freshness) {
+        this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.apiToken = apiToken;
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.maxConcurrency = maxConcurrency;
+        this.maxRetriesOn429 = maxRetriesOn429;
+        this.singleFlight = new SingleFlight<>(freshness.toNanos());
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
 
-        try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
+    @PreDestroy
+    void shutdown() {
+        httpClient.close();
+        executor.shutdown();
+    }
 
-            if (response.getBody() == null || response.getBody().get("c") == null) {
-                log.warn(" No price found for symbol: {}", symbol);
-                return null;
-            }
+    // Lấy báo giá (c, h, l, o, pc, v, t) của cổ phiếu trong một lần gọi /quote; null nếu không có giá hợp lệ
+    public FinnhubQuote fetchQuote(String symbol) {
+        return fetchQuoteAsync(symbol).join();
+    }
 
-            BigDecimal price = new BigDecimal(response.getBody().get("c").toString());
-            if (price.compareTo(BigDecimal.ZERO) <= 0) {
-                log.warn(" Invalid price value ({}) for symbol: {}", price, symbol);
-                return null;
-            }
+    public CompletableFuture<FinnhubQuote> fetchQuoteAsync(String symbol) {
+        return fetchQuoteAsync(symbol, Caller.INTERACTIVE);
+    }
 
-            return price;
-        } catch (Exception e) {
-            log.error(" Error fetching price for {}: {}", symbol, e.getMessage());
-            return null;
-        }
+    // Caller quyết định rate limiter từ chối sau max-wait (INTERACTIVE) hay chờ tới lượt (BACKGROUND)
+    public CompletableFuture<FinnhubQuote> fetchQuoteAsync(String symbol, Caller caller) {
+        return getJson(QUOTE_ENDPOINT, Map.of("symbol", symbol), FinnhubQuote::parse, caller)
+                .thenApply(quote -> {
+                    if (quote == null || quote.current() == null) {
+                        log.warn(" No price found for symbol: {}", symbol);
+                        return null;
+                    }
+
+                    if (!quote.hasPrice()) {
+                        log.warn(" Invalid price value ({}) for symbol: {}", quote.current(), symbol);
+                        return null;
+                    }
+                    return quote;
+                })
+                .exceptionally(e -> {
+                    log.error(" Error fetching price for {}: {}", symbol, rootMessage(e));
+                    return null;
+                });
     }
 
     // Lấy danh sách mã cổ phiếu theo sàn
-    public List<Map<String, Object>> fetchMarketSymbols(String exchange) {
-        String url = UriComponentsBuilder.fromHttpUrl(FINNHUB_BASE_URL + "/stock/symbol")
-                .queryParam("exchange", exchange)
-                .queryParam("token", apiToken)
-                .toUriString();
+    public SymbolListing fetchMarketSymbols(String exchange) {
+        return fetchMarketSymbolsAsync(exchange).join();
+    }
 
-        try {
-            ResponseEntity<List> response = restTemplate.getForEntity(url, List.class);
-            return response.getBody();
-        } catch (Exception e) {
-            log.error(" Error fetching market symbols for exchange {}: {}", exchange, e.getMessage());
-            return Collections.emptyList();
-        }
+    public CompletableFuture<SymbolListing> fetchMarketSymbolsAsync(String exchange) {
+        return getJson(SYMBOL_ENDPOINT, Map.of("exchange", exchange), SymbolListing::parse, Caller.INTERACTIVE)
+                .exceptionally(e -> {
+                    log.error(" Error fetching market symbols for exchange {}: {}", exchange, rootMessage(e));
+                    return SymbolListing.EMPTY;
+                });
     }
 
     // Lấy thông tin chỉ số tài chính (P/E, P/B, ROE, Dividend Yield...) của cổ phiếu.
-    public Map<String, Object> fetchStockMetrics(String symbol) {
-        String url = String.format(
-                "%s/stock/metric?symbol=%s&metric=all&token=%s",
-                FINNHUB_BASE_URL, symbol, apiToken
-        );
-        try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            return (Map<String, Object>) response.getBody().get("metric");
-        } catch (Exception e) {
-            log.warn(" Failed to fetch metrics for {}: {}", symbol, e.getMessage());
-            return Collections.emptyMap();
-        }
+    public FinnhubMetrics fetchStockMetrics(String symbol) {
+        return fetchStockMetricsAsync(symbol).join();
     }
 
-    // Lấy khối lượng giao dịch hiện tại của cổ phiếu
-    public BigDecimal fetchQuoteVolume(String symbol) {
-        String url = UriComponentsBuilder
-                .fromHttpUrl(FINNHUB_BASE_URL + QUOTE_ENDPOINT)
-                .queryParam("symbol", symbol)
-                .queryParam("token", apiToken)
-                .toUriString();
-
-        try {
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            if (response == null || response.get("v") == null) {
-                log.warn(" No volume found for symbol: {}", symbol);
-                return null;
-            }
+    public CompletableFuture<FinnhubMetrics> fetchStockMetricsAsync(String symbol) {
+        return fetchStockMetricsAsync(symbol, Caller.INTERACTIVE);
+    }
 
-            return new BigDecimal(response.get("v").toString());
-        } catch (Exception e) {
-            log.error(" Error fetching volume for {}: {}", symbol, e.getMessage());
-            return null;
-        }
+    public CompletableFuture<FinnhubMetrics> fetchStockMetricsAsync(String symbol, Caller caller) {
+        return getJson(METRIC_ENDPOINT, Map.of("symbol", symbol, "metric", "all"), FinnhubMetrics::parse, caller)
+                .exceptionally(e -> {
+                    log.warn(" Failed to fetch metrics for {}: {}", symbol, rootMessage(e));
+                    return FinnhubMetrics.EMPTY;
+                });
     }
 
-    // Lấy giá cho toàn bộ danh sách cổ phiếu theo mã cổ phiếu
-    public Map<String, BigDecimal> fetchAllPrices(List<String> symbols) {
-        Map<String, BigDecimal> result = new ConcurrentHashMap<>();
+    // Lấy báo giá cho toàn bộ danh sách cổ phiếu theo mã cổ phiếu
+    public Map<String, FinnhubQuote> fetchAllQuotes(List<String> symbols) {
+        return fetchAllQuotesAsync(symbols).join();
+    }
 
+    public CompletableFuture<Map<String, FinnhubQuote>> fetchAllQuotesAsync(List<String> symbols) {
+        Map<String, FinnhubQuote> result = new ConcurrentHashMap<>();
         if (symbols == null || symbols.isEmpty()) {
-            return result;
+            return CompletableFuture.completedFuture(result);
         }
 
-        int threadLimit = Math.min(5, symbols.size()); // Giới hạn 5 luồng để tránh bị Finnhub chặn
-        ExecutorService executor = Executors.newFixedThreadPool(threadLimit);
-
+        // Tốc độ do FinnhubRateLimiter quyết định; semaphore chỉ giới hạn số request đang chờ phản hồi
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
         long startTime = System.currentTimeMillis();
 
+        List<Future<?>> tasks = new ArrayList<>(symbols.size());
+        CompletableFuture<?>[] done = new CompletableFuture<?>[symbols.size()];
+        for (int i = 0; i < symbols.size(); i++) {
+            String symbol = symbols.get(i);
+            CompletableFuture<Void> symbolDone = new CompletableFuture<>();
+            done[i] = symbolDone;
+            tasks.add(executor.submit(() -> {
+                try {
+                    fetchQuoteInto(symbol, permits, result);
+                } finally {
+                    symbolDone.complete(null);
+                }
+            }));
+        }
+
+        CompletableFuture<Map<String, FinnhubQuote>> all = CompletableFuture.allOf(done)
+                .handle((ignored, e) -> {
+                    if (e != null) log.error(" Error in fetchAllQuotes: {}", rootMessage(e));
+                    log.info(" fetchAllQuotes completed for {} symbols in {} ms",
+                            symbols.size(), System.currentTimeMillis() - startTime);
+                    return result;
+                });
+        // Caller huỷ (job bị huỷ, pipeline dừng): symbol chưa tới lượt bị bỏ, symbol đang chờ permit/phản hồi bị interrupt
+        all.whenComplete((ignored, e) -> {
+            if (all.isCancelled()) tasks.forEach(task -> task.cancel(true));
+        });
+        return all;
+    }
+
+    // Một symbol của fetchAllQuotesAsync; dừng ngay nếu luồng đã bị interrupt (lời gọi bị huỷ)
+    private void fetchQuoteInto(String symbol, Semaphore permits, Map<String, FinnhubQuote> result) {
         try {
-            List<Future<?>> futures = new ArrayList<>();
-            for (String symbol : symbols) {
-                futures.add(executor.submit(() -> {
-                    try {
-                        BigDecimal price = fetchPrice(symbol);
-                        if (price != null) {
-                            result.put(symbol, price);
-                        }
-                        Thread.sleep(100);
-                    } catch (Exception ex) {
-                        log.warn(" Failed to fetch price for {}: {}", symbol, ex.getMessage());
-                    }
-                }));
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            if (Thread.currentThread().isInterrupted()) return;
+            // Fetch-all là việc nền (job, scheduler): chờ tới lượt thay vì bị từ chối khi quota đã hết
+            FinnhubQuote quote = fetchQuoteAsync(symbol, Caller.BACKGROUND).get();
+            if (quote != null) {
+                result.put(symbol, quote);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error(" Error fetching price for {}: {}", symbol, rootMessage(e));
+        } finally {
+            permits.release();
+        }
+    }
 
-            for (Future<?> f : futures) {
-                try {
-                    f.get(15, TimeUnit.SECONDS); // timeout riêng từng tác vụ
-                } catch (TimeoutException e) {
-                    log.warn(" Timeout fetching one of symbols");
+    /**
+     * Thống kê độ trễ theo endpoint (ms), đọc từ timer finnhub.client.requests (một timer cho mỗi endpoint/outcome).
+     * count/meanMs/maxMs gộp mọi outcome; p50/p90/p99 lấy từ timer SUCCESS (percentile không cộng gộp được).
+     */
+    public Map<String, Object> latencyStats() {
+        Map<String, List<Timer>> timersByEndpoint = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(REQUESTS_METER).timers()) {
+            timersByEndpoint.computeIfAbsent(timer.getId().getTag("endpoint"), key -> new ArrayList<>()).add(timer);
+        }
+
+        Map<String, Object> stats = new TreeMap<>();
+        timersByEndpoint.forEach((endpoint, timers) -> {
+            long count = 0;
+            long errors = 0;
+            double totalMs = 0;
+            double maxMs = 0;
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            for (Timer timer : timers) {
+                HistogramSnapshot snapshot = timer.takeSnapshot();
+                count += snapshot.count();
+                totalMs += snapshot.total(TimeUnit.MILLISECONDS);
+                maxMs = Math.max(maxMs, snapshot.max(TimeUnit.MILLISECONDS));
+                if (!"SUCCESS".equals(timer.getId().getTag("outcome"))) {
+                    errors += snapshot.count();
+                    continue;
+                }
+                for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                    percentiles.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
                 }
             }
 
-        } catch (Exception e) {
-            log.error(" Error in fetchAllPrices: {}", e.getMessage());
-        } finally {
-            executor.shutdown();
+            Map<String, Object> endpointStats = new LinkedHashMap<>();
+            endpointStats.put("count", count);
+            endpointStats.put("errors", errors);
+            endpointStats.put("meanMs", count == 0 ? 0.0 : totalMs / count);
+            endpointStats.put("maxMs", maxMs);
+            endpointStats.putAll(percentiles);
+            stats.put(endpoint, endpointStats);
+        });
+        return stats;
+    }
+
+    // Số lời gọi đã gộp (single-flight) và số lần dùng lại kết quả còn tươi
+    public Map<String, Object> singleFlightStats() {
+        return singleFlight.stats();
+    }
+
+    public SingleFlight<String, Object> singleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Tải thô danh sách mã của sàn. Nếu có etag/lastModified của lần tải trước thì gửi kèm If-None-Match /
+     * If-Modified-Since: server trả 304 (body rỗng) khi danh sách không đổi. Gọi từ discovery và lần làm mới
+     * cache định kỳ nên chờ tới lượt như request nền.
+     */
+    public CompletableFuture<HttpResponse<byte[]>> fetchMarketSymbolsConditionalAsync(String exchange, String etag, String lastModified) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl + SYMBOL_ENDPOINT)
+                .queryParam("exchange", exchange)
+                .queryParam("token", apiToken)
+                .build().encode().toUri();
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET();
+        if (etag != null) request.header("If-None-Match", etag);
+        if (lastModified != null) request.header("If-Modified-Since", lastModified);
+
+        return send(SYMBOL_ENDPOINT, request.build(), Caller.BACKGROUND, 0);
+    }
+
+    // Đọc body từ parser vừa tạo (chưa đọc token nào)
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Các request cùng endpoint và tham số đang chạy được gộp thành một lời gọi upstream; kết quả
+     * (record đã parse) được chia sẻ giữa các caller.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> getJson(String endpoint, Map<String, String> params, ResponseReader<T> reader,
+                                             Caller caller) {
+        String key = endpoint + "?" + new TreeMap<>(params);
+        return (CompletableFuture<T>) singleFlight.execute(key, () -> fetchJson(endpoint, params, reader, caller));
+    }
+
+    private CompletableFuture<Object> fetchJson(String endpoint, Map<String, String> params, ResponseReader<?> reader,
+                                                Caller caller) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl + endpoint);
+        params.forEach(builder::queryParam);
+        URI uri = builder.queryParam("token", apiToken).build().encode().toUri();
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return send(endpoint, request, caller, 0)
+                .<Object>thenApply(response -> {
+                    try (JsonParser parser = objectMapper.getFactory().createParser(response.body())) {
+                        return reader.read(parser);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    // Lấy token của rate limiter trên virtual thread rồi mới gửi; 429 được thử lại sau khi limiter tạm dừng
+    private CompletableFuture<HttpResponse<byte[]>> send(String endpoint, HttpRequest request, Caller caller, int attempt) {
+        return CompletableFuture.runAsync(() -> rateLimiter.acquire(endpoint, caller), executor)
+                .thenCompose(ignored -> {
+                    long start = System.nanoTime();
+                    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                            .whenComplete((response, e) -> record(endpoint, System.nanoTime() - start, response, e));
+                })
+                .thenCompose(response -> {
+                    if (response.statusCode() == 429) {
+                        rateLimiter.onTooManyRequests(FinnhubRateLimiter.parseRetryAfter(
+                                response.headers().firstValue("Retry-After").orElse(null), Instant.now()));
+                        if (attempt < maxRetriesOn429) {
+                            return send(endpoint, request, caller, attempt + 1);
+                        }
+                    }
+                    if (!isSuccess(response.statusCode())) {
+                        throw new FinnhubApiException(endpoint, response.statusCode());
+                    }
+                    rateLimiter.onSuccess();
+                    return CompletableFuture.completedFuture(response);
+                });
+    }
+
+    // Timer/counter Micrometer (finnhub.client.requests, finnhub.client.errors); /api/monitoring đọc lại timer này
+    private void record(String endpoint, long elapsedNanos, HttpResponse<?> response, Throwable error) {
+        String outcome = error != null ? "IO_ERROR" : outcome(response.statusCode());
+        meterRegistry.timer(REQUESTS_METER, "endpoint", endpoint, "outcome", outcome)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!outcome.equals("SUCCESS")) {
+            meterRegistry.counter("finnhub.client.errors", "endpoint", endpoint, "outcome", outcome).increment();
         }
+    }
 
-        long duration = System.currentTimeMillis() - startTime;
-        log.info(" fetchAllPrices completed for {} symbols in {} ms", symbols.size(), duration);
+    private static String outcome(int statusCode) {
+        if (isSuccess(statusCode)) return "SUCCESS";
+        if (statusCode == 429) return "RATE_LIMITED";
+        return statusCode >= 500 ? "SERVER_ERROR" : "CLIENT_ERROR";
+    }
+
+    // 304 chỉ xuất hiện với request có điều kiện (If-None-Match / If-Modified-Since)
+    private static boolean isSuccess(int statusCode) {
+        return statusCode == 200 || statusCode == 304;
+    }
 
-        return result;
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
     }
 }
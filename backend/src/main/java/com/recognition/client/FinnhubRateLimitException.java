@@ -0,0 +1,11 @@
+package com.recognition.client;
+
+/**
+ * Không lấy được token của rate limiter trong thời gian chờ tối đa.
+ */
+public class FinnhubRateLimitException extends RuntimeException {
+
+    public FinnhubRateLimitException(String endpoint) {
+        super("Finnhub rate limit wait exceeded for " + endpoint);
+    }
+}
@@ -0,0 +1,223 @@
+package com.recognition.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket dùng chung cho mọi lời gọi Finnhub: một bucket theo giây và một bucket theo phút,
+ * mỗi request phải lấy được 1 token ở cả hai. Khi Finnhub trả 429, mọi request tạm dừng
+ * theo Retry-After hoặc backoff luỹ thừa (reset lại sau request thành công đầu tiên).
+ * Request nền chờ tới lượt (limiter chỉ giãn nhịp), chỉ request interactive bị từ chối khi phải chờ quá max-wait.
+ */
+@Slf4j
+@Component
+public class FinnhubRateLimiter {
+
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public enum Caller {
+        // Người dùng đang chờ phản hồi (lấy giá một mã): chờ tối đa max-wait rồi báo lỗi
+        INTERACTIVE,
+        // Job nền, scheduler, discovery: chờ bao lâu cũng được, fetch-all vài trăm mã chỉ bị giãn nhịp theo quota
+        BACKGROUND
+    }
+
+    private final Bucket perSecond;
+    private final Bucket perMinute;
+    private final long maxWaitNanos;
+    private final long maxBackoffNanos;
+
+    // Trạng thái backoff sau 429, được bảo vệ bởi khoá của this
+    private long pausedUntilNanos;
+    private long backoffNanos;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder tooManyRequests = new LongAdder();
+
+    public FinnhubRateLimiter(@Value("${finnhub.rate-limit.per-second:30}") int requestsPerSecond,
+                              @Value("${finnhub.rate-limit.per-minute:60}") int requestsPerMinute,
+                              @Value("${finnhub.rate-limit.max-wait:5s}") Duration maxWait,
+                              @Value("${finnhub.rate-limit.max-backoff:60s}") Duration maxBackoff) {
+        long now = System.nanoTime();
+        this.perSecond = new Bucket(requestsPerSecond, TimeUnit.SECONDS.toNanos(1), now);
+        this.perMinute = new Bucket(requestsPerMinute, TimeUnit.MINUTES.toNanos(1), now);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public void acquire(String endpoint) {
+        acquire(endpoint, Caller.INTERACTIVE);
+    }
+
+    /**
+     * Chờ tới khi có token (chặn luồng hiện tại, nên gọi trên virtual thread).
+     * INTERACTIVE: ném FinnhubRateLimitException nếu phải chờ lâu hơn max-wait. BACKGROUND: chỉ dừng khi bị interrupt.
+     */
+    public void acquire(String endpoint, Caller caller) {
+        long maxWait = caller == Caller.BACKGROUND ? Long.MAX_VALUE : maxWaitNanos;
+        long start = System.nanoTime();
+        boolean slept = false;
+        while (true) {
+            long waitNanos = tryAcquire(System.nanoTime());
+            if (waitNanos == 0) {
+                acquired.increment();
+                if (slept) {
+                    waited.increment();
+                    waitedNanos.add(System.nanoTime() - start);
+                }
+                return;
+            }
+            if (waitNanos > maxWait - (System.nanoTime() - start)) {
+                rejected.increment();
+                throw new FinnhubRateLimitException(endpoint);
+            }
+            slept = true;
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                throw new FinnhubRateLimitException(endpoint);
+            }
+        }
+    }
+
+    // Finnhub trả 429: dừng toàn bộ request trong Retry-After giây hoặc theo backoff hiện tại
+    public synchronized void onTooManyRequests(Long retryAfterSeconds) {
+        tooManyRequests.increment();
+        backoffNanos = backoffNanos == 0 ? INITIAL_BACKOFF_NANOS : Math.min(backoffNanos * 2, maxBackoffNanos);
+        long pauseNanos = retryAfterSeconds != null && retryAfterSeconds > 0
+                ? Math.min(TimeUnit.SECONDS.toNanos(retryAfterSeconds), maxBackoffNanos)
+                : backoffNanos;
+        pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + pauseNanos);
+        log.warn("Finnhub rate limit hit (429), pausing requests for {} ms", TimeUnit.NANOSECONDS.toMillis(pauseNanos));
+    }
+
+    /**
+     * Retry-After dạng số giây ("120") hoặc HTTP-date ("Wed, 21 Oct 2015 07:28:00 GMT").
+     * Trả null khi thiếu hoặc không đọc được; onTooManyRequests khi đó dùng backoff luỹ thừa.
+     */
+    public static Long parseRetryAfter(String value, Instant now) {
+        if (value == null || value.isBlank()) return null;
+        String trimmed = value.trim();
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException ignored) {
+            // không phải số giây, thử HTTP-date
+        }
+        try {
+            Instant retryAt = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, Duration.between(now, retryAt).toSeconds());
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring unparseable Retry-After header: {}", value);
+            return null;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        backoffNanos = 0;
+    }
+
+    // Accessor cho meter Prometheus: đọc thẳng bộ đếm, không dựng map như stats()
+    public long acquiredCount() {
+        return acquired.sum();
+    }
+
+    public long waitedCount() {
+        return waited.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long tooManyRequestsCount() {
+        return tooManyRequests.sum();
+    }
+
+    public synchronized double availablePerSecond() {
+        perSecond.refill(System.nanoTime());
+        return Math.floor(perSecond.tokens);
+    }
+
+    public synchronized double availablePerMinute() {
+        perMinute.refill(System.nanoTime());
+        return Math.floor(perMinute.tokens);
+    }
+
+    public synchronized long pausedForMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntilNanos - System.nanoTime()));
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long now = System.nanoTime();
+        perSecond.refill(now);
+        perMinute.refill(now);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("perSecondLimit", perSecond.capacity);
+        stats.put("perMinuteLimit", perMinute.capacity);
+        stats.put("availablePerSecond", Math.floor(perSecond.tokens));
+        stats.put("availablePerMinute", Math.floor(perMinute.tokens));
+        stats.put("acquired", acquired.sum());
+        stats.put("waited", waited.sum());
+        stats.put("waitedMs", TimeUnit.NANOSECONDS.toMillis(waitedNanos.sum()));
+        stats.put("rejected", rejected.sum());
+        stats.put("tooManyRequests", tooManyRequests.sum());
+        stats.put("pausedForMs", Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntilNanos - now)));
+        return stats;
+    }
+
+    // Trả 0 nếu đã lấy được token, ngược lại là số nano giây cần chờ trước khi thử lại
+    private synchronized long tryAcquire(long now) {
+        if (pausedUntilNanos - now > 0) {
+            return pausedUntilNanos - now;
+        }
+        perSecond.refill(now);
+        perMinute.refill(now);
+        long waitNanos = Math.max(perSecond.nanosUntilToken(), perMinute.nanosUntilToken());
+        if (waitNanos > 0) {
+            return waitNanos;
+        }
+        perSecond.tokens -= 1;
+        perMinute.tokens -= 1;
+        return 0;
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(int capacity, long periodNanos, long now) {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = (double) this.capacity / periodNanos;
+            this.tokens = this.capacity;
+            this.lastRefillNanos = now;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+
+        private long nanosUntilToken() {
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.recognition.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.client.dto.FinnhubTrade;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kết nối websocket tới luồng trade của Finnhub (mặc định wss://ws.finnhub.io, cấu hình qua finnhub.stream.url
+ * để có thể trỏ sang server giả lập khi test). Danh sách symbol đã subscribe được giữ lại và gửi lại sau mỗi lần
+ * kết nối lại. Việc tự kết nối lại do phía sử dụng quyết định (xem StreamingPriceIngest).
+ */
+@Slf4j
+@Component
+public class FinnhubTradeStream {
+
+    /**
+     * Nhận trade và sự kiện mất kết nối. Được gọi trên luồng nhận của websocket nên cần xử lý nhanh.
+     */
+    public interface Listener {
+        void onTrade(FinnhubTrade trade);
+
+        default void onDisconnected(String reason) {}
+    }
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final String url;
+    private final String apiToken;
+    private final Duration connectTimeout;
+
+    private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile WebSocket webSocket;
+    // WebSocket chỉ cho phép một lần gửi đang chờ, nên các message được nối tiếp nhau
+    private CompletableFuture<WebSocket> sendChain = CompletableFuture.completedFuture(null);
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong trades = new AtomicLong();
+    private final AtomicLong parseErrors = new AtomicLong();
+    private volatile long lastMessageAtMs;
+
+    public FinnhubTradeStream(ObjectMapper objectMapper,
+                              @Value("${finnhub.stream.url:wss://ws.finnhub.io}") String url,
+                              @Value("${finnhub.api.key}") String apiToken,
+                              @Value("${finnhub.client.connect-timeout:10s}") Duration connectTimeout) {
+        this.objectMapper = objectMapper;
+        this.url = url;
+        this.apiToken = apiToken;
+        this.connectTimeout = connectTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    public boolean isConnected() {
+        WebSocket current = webSocket;
+        return current != null && !current.isInputClosed() && !current.isOutputClosed();
+    }
+
+    // Mở kết nối (đồng bộ) và subscribe lại toàn bộ symbol đã đăng ký; ném lỗi nếu không kết nối được
+    public synchronized void connect(Listener listener) {
+        if (isConnected()) return;
+
+        String separator = url.contains("?") ? "&" : "?";
+        URI uri = URI.create(url + separator + "token=" + URLEncoder.encode(apiToken, StandardCharsets.UTF_8));
+        webSocket = httpClient.newWebSocketBuilder()
+                .connectTimeout(connectTimeout)
+                .buildAsync(uri, new StreamListener(listener))
+                .join();
+        sendChain = CompletableFuture.completedFuture(webSocket);
+        connects.incrementAndGet();
+        log.info("Connected to Finnhub trade stream, resubscribing {} symbols", subscriptions.size());
+
+        subscriptions.forEach(symbol -> send("subscribe", symbol));
+    }
+
+    public synchronized void subscribe(Collection<String> symbols) {
+        for (String symbol : symbols) {
+            if (subscriptions.add(symbol) && isConnected()) {
+                send("subscribe", symbol);
+            }
+        }
+    }
+
+    public synchronized void unsubscribe(Collection<String> symbols) {
+        for (String symbol : symbols) {
+            if (subscriptions.remove(symbol) && isConnected()) {
+                send("unsubscribe", symbol);
+            }
+        }
+    }
+
+    public Set<String> subscriptions() {
+        return Collections.unmodifiableSet(subscriptions);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        WebSocket current = webSocket;
+        webSocket = null;
+        if (current != null && !current.isOutputClosed()) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("url", url);
+        stats.put("connected", isConnected());
+        stats.put("subscriptions", subscriptions.size());
+        stats.put("connects", connects.get());
+        stats.put("disconnects", disconnects.get());
+        stats.put("messages", messages.get());
+        stats.put("trades", trades.get());
+        stats.put("parseErrors", parseErrors.get());
+        stats.put("lastMessageAt", lastMessageAtMs > 0 ? Instant.ofEpochMilli(lastMessageAtMs).toString() : null);
+        return stats;
+    }
+
+    private void send(String type, String symbol) {
+        String message = objectMapper.createObjectNode()
+                .put("type", type)
+                .put("symbol", symbol)
+                .toString();
+        sendChain = sendChain
+                .thenCompose(ws -> ws.sendText(message, true))
+                .exceptionally(e -> {
+                    log.warn("Failed to {} {} on Finnhub trade stream: {}", type, symbol, e.getMessage());
+                    return webSocket;
+                });
+    }
+
+    // Message dạng {"type":"trade","data":[{"s":"AAPL","p":189.5,"v":100,"t":1700000000000}, ...]}; "ping" bị bỏ qua
+    private void handleMessage(String text, Listener listener) {
+        messages.incrementAndGet();
+        lastMessageAtMs = System.currentTimeMillis();
+        try {
+            JsonNode root = objectMapper.readTree(text);
+            if (!"trade".equals(root.path("type").asText())) return;
+
+            for (JsonNode node : root.path("data")) {
+                FinnhubTrade trade = new FinnhubTrade(
+                        node.path("s").asText(null),
+                        node.path("p").isNumber() ? node.path("p").decimalValue() : null,
+                        node.path("v").isNumber() ? node.path("v").decimalValue() : BigDecimal.ZERO,
+                        node.path("t").asLong()
+                );
+                if (!trade.hasPrice()) continue;
+                trades.incrementAndGet();
+                listener.onTrade(trade);
+            }
+        } catch (Exception e) {
+            parseErrors.incrementAndGet();
+            log.warn("Unparseable Finnhub trade stream message: {}", e.getMessage());
+        }
+    }
+
+    private class StreamListener implements WebSocket.Listener {
+
+        private final Listener listener;
+        private final StringBuilder buffer = new StringBuilder();
+
+        private StreamListener(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                String text = buffer.toString();
+                buffer.setLength(0);
+                handleMessage(text, listener);
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            disconnected(ws, "closed (" + statusCode + ") " + reason);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            disconnected(ws, error.getMessage());
+        }
+
+        private void disconnected(WebSocket ws, String reason) {
+            disconnects.incrementAndGet();
+            log.warn("Finnhub trade stream disconnected: {}", reason);
+            if (webSocket == ws) {
+                webSocket = null;
+            }
+            listener.onDisconnected(reason);
+        }
+    }
+}
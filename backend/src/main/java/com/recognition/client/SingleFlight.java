@@ -0,0 +1,113 @@
+package com.recognition.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Gộp các lời gọi đồng thời cùng khoá thành một lời gọi upstream duy nhất (single-flight),
+ * và giữ kết quả thành công trong một khoảng "còn tươi" ngắn để các lời gọi ngay sau đó dùng lại.
+ */
+public class SingleFlight<K, V> {
+
+    private record Fresh<V>(V value, long expiresAtNanos) {}
+
+    private final long freshnessNanos;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<K, Fresh<V>> recent = new ConcurrentHashMap<>();
+    // Lần quét kế tiếp: quét toàn bộ recent tối đa một lần mỗi khoảng freshness,
+    // nên kết quả lớn (danh sách mã của sàn) không nằm lại quá hai khoảng freshness
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder freshHits = new LongAdder();
+
+    public SingleFlight(long freshnessNanos) {
+        this.freshnessNanos = freshnessNanos;
+    }
+
+    /**
+     * Mỗi caller nhận một bản sao của future dùng chung, nên việc cancel/complete phía caller
+     * không ảnh hưởng tới các caller khác. Kết quả null hoặc lỗi không được giữ lại.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        if (freshnessNanos > 0) {
+            long now = System.nanoTime();
+            sweepExpired(now);
+            Fresh<V> fresh = recent.get(key);
+            if (fresh != null) {
+                if (fresh.expiresAtNanos() - now > 0) {
+                    freshHits.increment();
+                    return CompletableFuture.completedFuture(fresh.value());
+                }
+                recent.remove(key, fresh);
+            }
+        }
+
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        loads.increment();
+        CompletableFuture<V> upstream;
+        try {
+            upstream = loader.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((value, e) -> {
+            if (e == null && value != null && freshnessNanos > 0) {
+                remember(key, value);
+            }
+            inFlight.remove(key, shared);
+            if (e != null) {
+                shared.completeExceptionally(e);
+            } else {
+                shared.complete(value);
+            }
+        });
+        return shared.copy();
+    }
+
+    public long loadCount() {
+        return loads.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long freshHitCount() {
+        return freshHits.sum();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("recent", recent.size());
+        stats.put("loads", loads.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("freshHits", freshHits.sum());
+        return stats;
+    }
+
+    private void remember(K key, V value) {
+        long now = System.nanoTime();
+        sweepExpired(now);
+        recent.put(key, new Fresh<>(value, now + freshnessNanos));
+    }
+
+    private void sweepExpired(long now) {
+        long next = nextSweepNanos.get();
+        if (next - now > 0 || !nextSweepNanos.compareAndSet(next, now + freshnessNanos)) return;
+        recent.values().removeIf(fresh -> fresh.expiresAtNanos() - now <= 0);
+    }
+}
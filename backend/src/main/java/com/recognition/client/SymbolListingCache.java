@@ -0,0 +1,192 @@
+package com.recognition.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.client.dto.SymbolListing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache danh sách mã theo sàn, trong bộ nhớ (SymbolListing dạng cột) và trên đĩa (file nhị phân nén),
+ * nên khởi động lại không cần tải lại vài MB JSON. Danh sách quá max-age được làm mới theo lịch bằng
+ * request có điều kiện (ETag / Last-Modified); nếu tải lỗi thì tiếp tục dùng bản cũ.
+ */
+@Slf4j
+@Component
+public class SymbolListingCache {
+
+    private static final int FILE_MAGIC = 0x53594d4c; // "SYML"
+
+    private record Entry(SymbolListing listing, Instant fetchedAt, String etag, String lastModified) {}
+
+    private final FinnhubClient finnhubClient;
+    private final ObjectMapper objectMapper;
+    private final Path cacheDir;
+    private final Duration maxAge;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong diskLoads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public SymbolListingCache(FinnhubClient finnhubClient,
+                              ObjectMapper objectMapper,
+                              @Value("${finnhub.symbols.cache-dir:${java.io.tmpdir}/stockview-symbols}") String cacheDir,
+                              @Value("${finnhub.symbols.max-age:24h}") Duration maxAge) {
+        this.finnhubClient = finnhubClient;
+        this.objectMapper = objectMapper;
+        this.cacheDir = Path.of(cacheDir);
+        this.maxAge = maxAge;
+    }
+
+    // Danh sách mã của sàn; chỉ tải đồng bộ khi chưa có bản nào (bộ nhớ lẫn đĩa), bản cũ được làm mới theo lịch
+    public SymbolListing get(String exchange) {
+        Entry entry = entries.get(exchange);
+        if (entry == null) {
+            entry = loadOrFetch(exchange);
+        }
+        return entry != null ? entry.listing() : SymbolListing.EMPTY;
+    }
+
+    @Scheduled(fixedDelayString = "${finnhub.symbols.refresh-check-ms:3600000}",
+            initialDelayString = "${finnhub.symbols.refresh-check-ms:3600000}")
+    public void refreshStale() {
+        for (String exchange : entries.keySet()) {
+            Entry entry = entries.get(exchange);
+            if (entry != null && isStale(entry)) {
+                refresh(exchange);
+            }
+        }
+    }
+
+    private synchronized Entry loadOrFetch(String exchange) {
+        Entry entry = entries.get(exchange);
+        if (entry != null) return entry;
+
+        entry = readFromDisk(exchange);
+        if (entry != null) {
+            entries.put(exchange, entry);
+            if (!isStale(entry)) return entry;
+        }
+        return refresh(exchange);
+    }
+
+    // Tải lại có điều kiện; trả về bản hiện tại (mới hoặc cũ) hoặc null nếu chưa từng tải được
+    synchronized Entry refresh(String exchange) {
+        Entry current = entries.get(exchange);
+        try {
+            HttpResponse<byte[]> response = finnhubClient.fetchMarketSymbolsConditionalAsync(exchange,
+                    current != null ? current.etag() : null,
+                    current != null ? current.lastModified() : null).join();
+
+            Entry refreshed;
+            if (response.statusCode() == 304 && current != null) {
+                notModified.incrementAndGet();
+                refreshed = new Entry(current.listing(), Instant.now(), current.etag(), current.lastModified());
+            } else {
+                downloads.incrementAndGet();
+                SymbolListing listing = SymbolListing.parse(objectMapper.getFactory(), response.body());
+                refreshed = new Entry(listing, Instant.now(),
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null));
+                log.info("Downloaded {} symbols for exchange {} ({} KB)", listing.size(), exchange, response.body().length / 1024);
+            }
+            entries.put(exchange, refreshed);
+            writeToDisk(exchange, refreshed);
+            return refreshed;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.error("Refreshing symbol listing for {} failed, keeping {}: {}", exchange,
+                    current != null ? "cached copy from " + current.fetchedAt() : "no listing", e.getMessage());
+            return current;
+        }
+    }
+
+    private boolean isStale(Entry entry) {
+        return entry.fetchedAt().plus(maxAge).isBefore(Instant.now());
+    }
+
+    private Path fileFor(String exchange) {
+        return cacheDir.resolve("symbols-" + exchange.replaceAll("[^A-Za-z0-9_-]", "_") + ".bin.gz");
+    }
+
+    private Entry readFromDisk(String exchange) {
+        Path file = fileFor(exchange);
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("Not a symbol listing cache file");
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            String etag = in.readBoolean() ? in.readUTF() : null;
+            String lastModified = in.readBoolean() ? in.readUTF() : null;
+            SymbolListing listing = SymbolListing.readFrom(in);
+            diskLoads.incrementAndGet();
+            log.info("Loaded {} symbols for exchange {} from {} (fetched {})", listing.size(), exchange, file, fetchedAt);
+            return new Entry(listing, fetchedAt, etag, lastModified);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable symbol listing cache {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    // Ghi ra file tạm rồi đổi tên, để tiến trình khác không bao giờ đọc phải file ghi dở
+    private void writeToDisk(String exchange, Entry entry) {
+        Path file = fileFor(exchange);
+        Path tmp = null;
+        try {
+            Files.createDirectories(cacheDir);
+            tmp = Files.createTempFile(cacheDir, "symbols-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeLong(entry.fetchedAt().toEpochMilli());
+                writeNullable(out, entry.etag());
+                writeNullable(out, entry.lastModified());
+                entry.listing().writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Cannot write symbol listing cache {}: {}", file, e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> exchanges = new LinkedHashMap<>();
+        entries.forEach((exchange, entry) -> exchanges.put(exchange, Map.of(
+                "symbols", entry.listing().size(),
+                "fetchedAt", entry.fetchedAt().toString(),
+                "stale", isStale(entry)
+        )));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("exchanges", exchanges);
+        stats.put("downloads", downloads.get());
+        stats.put("notModified", notModified.get());
+        stats.put("diskLoads", diskLoads.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+}
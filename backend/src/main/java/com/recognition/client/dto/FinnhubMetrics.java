@@ -0,0 +1,68 @@
+package com.recognition.client.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Các chỉ số tài chính dùng cho asset, lấy từ object "metric" của /stock/metric?metric=all.
+ * Response còn có "series" (chuỗi lịch sử theo quý/năm, khá lớn) nhưng phần đó được bỏ qua khi parse.
+ */
+public record FinnhubMetrics(
+        BigDecimal marketCapitalization,
+        BigDecimal volume,
+        BigDecimal shareOutstanding,
+        BigDecimal peNormalizedAnnual,
+        BigDecimal pbAnnual,
+        BigDecimal evToEbitdaAnnual,
+        BigDecimal epsAnnual,
+        BigDecimal bookValuePerShareAnnual
+) {
+
+    public static final FinnhubMetrics EMPTY = new FinnhubMetrics(null, null, null, null, null, null, null, null);
+
+    // Đọc response /stock/metric bằng streaming parser (parser chưa đọc token nào); EMPTY nếu không có "metric"
+    public static FinnhubMetrics parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) return EMPTY;
+
+        FinnhubMetrics metrics = EMPTY;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("metric".equals(field) && value == JsonToken.START_OBJECT) {
+                metrics = parseMetric(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return metrics;
+    }
+
+    public boolean isEmpty() {
+        return this.equals(EMPTY);
+    }
+
+    private static FinnhubMetrics parseMetric(JsonParser parser) throws IOException {
+        BigDecimal marketCapitalization = null, volume = null, shareOutstanding = null, peNormalizedAnnual = null,
+                pbAnnual = null, evToEbitdaAnnual = null, epsAnnual = null, bookValuePerShareAnnual = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "marketCapitalization" -> marketCapitalization = JsonValues.decimal(parser);
+                case "volume" -> volume = JsonValues.decimal(parser);
+                case "shareOutstanding" -> shareOutstanding = JsonValues.decimal(parser);
+                case "peNormalizedAnnual" -> peNormalizedAnnual = JsonValues.decimal(parser);
+                case "pbAnnual" -> pbAnnual = JsonValues.decimal(parser);
+                case "evToEbitdaAnnual" -> evToEbitdaAnnual = JsonValues.decimal(parser);
+                case "epsAnnual" -> epsAnnual = JsonValues.decimal(parser);
+                case "bookValuePerShareAnnual" -> bookValuePerShareAnnual = JsonValues.decimal(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new FinnhubMetrics(marketCapitalization, volume, shareOutstanding, peNormalizedAnnual,
+                pbAnnual, evToEbitdaAnnual, epsAnnual, bookValuePerShareAnnual);
+    }
+}
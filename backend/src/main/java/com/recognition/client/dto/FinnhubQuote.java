@@ -0,0 +1,62 @@
+package com.recognition.client.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Kết quả một lần gọi /quote của Finnhub.
+ * c: giá hiện tại, h/l: cao/thấp trong ngày, o: giá mở cửa, pc: giá đóng cửa phiên trước,
+ * v: khối lượng cộng dồn trong ngày (có thể không có, lưu vào dayVolume, không phải volume của tick), t: thời điểm báo giá (epoch giây).
+ */
+public record FinnhubQuote(
+        BigDecimal current,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal open,
+        BigDecimal previousClose,
+        BigDecimal volume,
+        long timestamp
+) {
+
+    /**
+     * Đọc object /quote bằng streaming parser (parser chưa đọc token nào); null nếu body không phải object.
+     * Các trường khác (d, dp...) bị bỏ qua.
+     */
+    public static FinnhubQuote parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+
+        BigDecimal current = null, high = null, low = null, open = null, previousClose = null, volume = null;
+        long timestamp = 0L;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "c" -> current = JsonValues.decimal(parser);
+                case "h" -> high = JsonValues.decimal(parser);
+                case "l" -> low = JsonValues.decimal(parser);
+                case "o" -> open = JsonValues.decimal(parser);
+                case "pc" -> previousClose = JsonValues.decimal(parser);
+                case "v" -> volume = JsonValues.decimal(parser);
+                case "t" -> timestamp = JsonValues.longValue(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new FinnhubQuote(current, high, low, open, previousClose, volume, timestamp);
+    }
+
+    // Finnhub trả c = 0 cho mã không tồn tại hoặc không có dữ liệu
+    public boolean hasPrice() {
+        return current != null && current.compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    // null khi Finnhub không trả thời điểm (t = 0)
+    public OffsetDateTime quotedAt() {
+        return timestamp > 0 ? OffsetDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.recognition.client.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Một giao dịch nhận từ websocket của Finnhub.
+ * s: mã, p: giá khớp, v: khối lượng, t: thời điểm khớp (epoch mili giây).
+ */
+public record FinnhubTrade(
+        String symbol,
+        BigDecimal price,
+        BigDecimal volume,
+        long timestamp
+) {
+
+    public boolean hasPrice() {
+        return symbol != null && price != null && price.compareTo(BigDecimal.ZERO) > 0;
+    }
+}
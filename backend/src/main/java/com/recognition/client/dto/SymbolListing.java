@@ -0,0 +1,148 @@
+package com.recognition.client.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Danh sách mã của một sàn lưu theo cột: mảng symbol, mảng description và mã loại (type) trỏ vào bảng tên loại.
+ * Vài chục nghìn mã chỉ tốn vài mảng thay vì một Map cho mỗi mã; type chỉ có vài giá trị nên được lưu dạng chỉ số.
+ */
+public final class SymbolListing {
+
+    private static final int FORMAT_VERSION = 1;
+
+    public static final SymbolListing EMPTY = new SymbolListing(new String[0], new String[0], new short[0], new String[0]);
+
+    private final String[] symbols;
+    private final String[] descriptions;
+    private final short[] typeCodes;
+    private final String[] typeNames;
+
+    private SymbolListing(String[] symbols, String[] descriptions, short[] typeCodes, String[] typeNames) {
+        this.symbols = symbols;
+        this.descriptions = descriptions;
+        this.typeCodes = typeCodes;
+        this.typeNames = typeNames;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public String symbol(int index) {
+        return symbols[index];
+    }
+
+    public String description(int index) {
+        return descriptions[index];
+    }
+
+    public String type(int index) {
+        return typeNames[typeCodes[index]];
+    }
+
+    /**
+     * Đọc mảng JSON của /stock/symbol bằng streaming parser; chỉ giữ symbol, description, type và bỏ qua các trường khác.
+     */
+    public static SymbolListing parse(JsonFactory factory, byte[] json) throws IOException {
+        try (JsonParser parser = factory.createParser(json)) {
+            return parse(parser);
+        }
+    }
+
+    // Như trên nhưng đọc từ parser chưa đọc token nào
+    public static SymbolListing parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a JSON array of symbols");
+        }
+        Builder builder = new Builder();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String symbol = null;
+            String description = null;
+            String type = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "symbol" -> symbol = JsonValues.text(parser);
+                    case "description" -> description = JsonValues.text(parser);
+                    case "type" -> type = JsonValues.text(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (symbol != null && !symbol.isBlank()) {
+                builder.add(symbol, description, type);
+            }
+        }
+        return builder.build();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(typeNames.length);
+        for (String typeName : typeNames) out.writeUTF(typeName);
+        out.writeInt(symbols.length);
+        for (int i = 0; i < symbols.length; i++) {
+            out.writeUTF(symbols[i]);
+            out.writeUTF(descriptions[i]);
+            out.writeShort(typeCodes[i]);
+        }
+    }
+
+    public static SymbolListing readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported symbol listing format " + version);
+        }
+        String[] typeNames = new String[in.readInt()];
+        for (int i = 0; i < typeNames.length; i++) typeNames[i] = in.readUTF();
+
+        int size = in.readInt();
+        String[] symbols = new String[size];
+        String[] descriptions = new String[size];
+        short[] typeCodes = new short[size];
+        for (int i = 0; i < size; i++) {
+            symbols[i] = in.readUTF();
+            descriptions[i] = in.readUTF();
+            typeCodes[i] = in.readShort();
+        }
+        return new SymbolListing(symbols, descriptions, typeCodes, typeNames);
+    }
+
+    private static final class Builder {
+        private final List<String> symbols = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+        private short[] typeCodes = new short[1024];
+        private final Map<String, Short> typeIndex = new HashMap<>();
+        private final List<String> typeNames = new ArrayList<>();
+
+        void add(String symbol, String description, String type) {
+            String typeName = type != null ? type : "";
+            Short code = typeIndex.get(typeName);
+            if (code == null) {
+                code = (short) typeNames.size();
+                typeIndex.put(typeName, code);
+                typeNames.add(typeName);
+            }
+            if (symbols.size() == typeCodes.length) {
+                typeCodes = Arrays.copyOf(typeCodes, typeCodes.length * 2);
+            }
+            typeCodes[symbols.size()] = code;
+            symbols.add(symbol);
+            descriptions.add(description != null ? description : "");
+        }
+
+        SymbolListing build() {
+            return new SymbolListing(symbols.toArray(String[]::new), descriptions.toArray(String[]::new),
+                    Arrays.copyOf(typeCodes, symbols.size()), typeNames.toArray(String[]::new));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.recognition.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(TieredCacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public TwoTierCacheManager cacheManager(TieredCacheProperties properties,
+                                            ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        RedisCacheManager redisCacheManager = null;
+
+        if (properties.getRedis().isEnabled() && connectionFactory != null) {
+            redisCacheManager = redisCacheManager(properties, connectionFactory);
+            log.info("Two-tier cache enabled: Caffeine + Redis");
+        } else {
+            log.info("Redis cache tier disabled, using local Caffeine cache only");
+        }
+
+        return new TwoTierCacheManager(properties, redisCacheManager);
+    }
+
+    private RedisCacheManager redisCacheManager(TieredCacheProperties properties,
+                                                RedisConnectionFactory connectionFactory) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues()
+                .prefixCacheNameWith(properties.getKeyPrefix())
+                .entryTtl(properties.getDefaultTtl());
+
+        Map<String, RedisCacheConfiguration> perCache = new LinkedHashMap<>();
+        properties.getCaches().keySet()
+                .forEach(name -> perCache.put(name, defaults.entryTtl(properties.ttlFor(name))));
+
+        RedisCacheManager manager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(perCache)
+                .build();
+        manager.afterPropertiesSet();
+        return manager;
+    }
+}
@@ -0,0 +1,15 @@
+package com.recognition.config;
+
+/**
+ * Tên các cache dùng chung giữa @Cacheable và phần evict thủ công.
+ */
+public final class CacheNames {
+
+    public static final String LATEST_PRICE = "latestPrice";
+    public static final String ASSET_OVERVIEW = "assetOverview";
+    public static final String PRICE_STATISTICS = "priceStatistics";
+    public static final String TOP_MOVERS = "topMovers";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,144 @@
+package com.recognition.config;
+
+import com.recognition.client.FinnhubClient;
+import com.recognition.client.FinnhubRateLimiter;
+import com.recognition.client.SingleFlight;
+import com.recognition.service.LatestQuoteStore;
+import com.recognition.service.ingest.PriceIngestScheduler;
+import com.recognition.service.ingest.StreamingPriceIngest;
+import com.recognition.service.job.JobEngine;
+import com.recognition.service.stream.PriceFeedHub;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Metric cho Prometheus (/actuator/prometheus). Request HTTP (mọi endpoint của controller) đã có sẵn
+ * http.server.requests; TimedAspect cho @Timed ở service; phần còn lại đọc lại các số liệu mà các thành phần
+ * vốn đã giữ cho /api/monitoring (rate limiter, cache, quote store, ingest, job, SSE), không đếm thêm lần nữa.
+ * Hikari và JVM được Spring Boot tự bind.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final String MILLISECONDS = "milliseconds";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder finnhubMetrics(FinnhubRateLimiter rateLimiter, FinnhubClient finnhubClient) {
+        return registry -> {
+            new Meters<>(registry, rateLimiter)
+                    .counter("finnhub.rate.limiter.acquired", Tags.empty(), FinnhubRateLimiter::acquiredCount)
+                    .counter("finnhub.rate.limiter.waited", Tags.empty(), FinnhubRateLimiter::waitedCount)
+                    .counter("finnhub.rate.limiter.rejected", Tags.empty(), FinnhubRateLimiter::rejectedCount)
+                    .counter("finnhub.rate.limiter.throttled", Tags.empty(), FinnhubRateLimiter::tooManyRequestsCount)
+                    .gauge("finnhub.rate.limiter.available", Tags.of("window", "second"), null, FinnhubRateLimiter::availablePerSecond)
+                    .gauge("finnhub.rate.limiter.available", Tags.of("window", "minute"), null, FinnhubRateLimiter::availablePerMinute)
+                    .gauge("finnhub.rate.limiter.paused", Tags.empty(), MILLISECONDS, FinnhubRateLimiter::pausedForMs);
+
+            new Meters<>(registry, finnhubClient.singleFlight())
+                    .counter("finnhub.client.singleflight.loads", Tags.empty(), SingleFlight::loadCount)
+                    .counter("finnhub.client.singleflight.coalesced", Tags.empty(), SingleFlight::coalescedCount)
+                    .counter("finnhub.client.singleflight.fresh.hits", Tags.empty(), SingleFlight::freshHitCount);
+        };
+    }
+
+    // Tỉ lệ hit tính ở Prometheus: cache_gets_total{result="hit"} / cache_gets_total
+    @Bean
+    public MeterBinder cacheMetrics(ObjectProvider<TwoTierCacheManager> cacheManager, LatestQuoteStore latestQuoteStore) {
+        return registry -> {
+            TwoTierCacheManager manager = cacheManager.getIfAvailable();
+            if (manager != null) {
+                for (String name : manager.getCacheNames()) {
+                    if (!(manager.getCache(name) instanceof TwoTierCache cache)) continue;
+                    Tags tags = Tags.of("cache", name);
+                    new Meters<>(registry, cache)
+                            .counter("cache.gets", tags.and("tier", "local", "result", "hit"), c -> c.localStats().hitCount())
+                            .counter("cache.gets", tags.and("tier", "local", "result", "miss"), c -> c.localStats().missCount())
+                            .counter("cache.gets", tags.and("tier", "remote", "result", "hit"), TwoTierCache::remoteHitCount)
+                            .counter("cache.gets", tags.and("tier", "remote", "result", "miss"), TwoTierCache::remoteMissCount)
+                            .counter("cache.evictions", tags.and("tier", "local"), c -> c.localStats().evictionCount())
+                            .counter("cache.remote.errors", tags, TwoTierCache::remoteErrorCount)
+                            .gauge("cache.size", tags.and("tier", "local"), null, TwoTierCache::localSize);
+                }
+            }
+
+            Tags tags = Tags.of("cache", "latestQuoteStore", "tier", "memory");
+            new Meters<>(registry, latestQuoteStore)
+                    .counter("cache.gets", tags.and("result", "hit"), LatestQuoteStore::hitCount)
+                    .counter("cache.gets", tags.and("result", "miss"), LatestQuoteStore::missCount)
+                    .gauge("cache.size", tags, null, LatestQuoteStore::size);
+        };
+    }
+
+    @Bean
+    public MeterBinder ingestMetrics(PriceIngestScheduler scheduler, StreamingPriceIngest streamingIngest,
+                                     JobEngine jobEngine, PriceFeedHub priceFeedHub) {
+        return registry -> {
+            // Độ trễ ingest: lag = thời gian một symbol quá hạn poll, staleness = tuổi của lần poll cũ nhất
+            new Meters<>(registry, scheduler)
+                    .gauge("price.ingest.lag.max", Tags.empty(), MILLISECONDS, PriceIngestScheduler::maxLagMs)
+                    .gauge("price.ingest.lag.avg", Tags.empty(), MILLISECONDS, PriceIngestScheduler::avgLagMs)
+                    .gauge("price.ingest.staleness.max", Tags.empty(), MILLISECONDS, PriceIngestScheduler::maxStalenessMs)
+                    .gauge("price.ingest.cycle.last", Tags.empty(), MILLISECONDS, PriceIngestScheduler::lastCycleMs)
+                    .gauge("price.ingest.symbols", Tags.of("source", "poll"), null, PriceIngestScheduler::symbolCount)
+                    .counter("price.ingest.fetched", Tags.empty(), PriceIngestScheduler::fetchedCount)
+                    .counter("price.ingest.failed", Tags.empty(), PriceIngestScheduler::failedCount);
+
+            new Meters<>(registry, streamingIngest)
+                    .gauge("price.ingest.symbols", Tags.of("source", "stream"), null, StreamingPriceIngest::liveSymbolCount)
+                    .gauge("price.ingest.stream.open.bars", Tags.empty(), null, StreamingPriceIngest::openBarCount)
+                    .gauge("price.ingest.stream.flush.last", Tags.empty(), MILLISECONDS, StreamingPriceIngest::lastFlushMs)
+                    .counter("price.ingest.stream.bars.written", Tags.empty(), StreamingPriceIngest::barsWrittenCount)
+                    .counter("price.ingest.stream.bars.dropped", Tags.empty(), StreamingPriceIngest::barsDroppedCount);
+
+            new Meters<>(registry, jobEngine)
+                    .gauge("jobs.running", Tags.empty(), null, JobEngine::runningCount)
+                    .gauge("jobs.queued", Tags.empty(), null, JobEngine::queuedCount)
+                    .counter("jobs.finished", Tags.of("result", "completed"), JobEngine::completedCount)
+                    .counter("jobs.finished", Tags.of("result", "failed"), JobEngine::failedCount)
+                    .counter("jobs.finished", Tags.of("result", "cancelled"), JobEngine::cancelledCount)
+                    .counter("jobs.rejected", Tags.empty(), JobEngine::rejectedCount);
+
+            new Meters<>(registry, priceFeedHub)
+                    .gauge("price.feed.connections", Tags.empty(), null, PriceFeedHub::connectionCount)
+                    .counter("price.feed.delivered", Tags.empty(), PriceFeedHub::deliveredCount)
+                    .counter("price.feed.dropped", Tags.empty(), PriceFeedHub::droppedCount)
+                    .counter("price.feed.rejected", Tags.empty(), PriceFeedHub::rejectedCount);
+        };
+    }
+
+    /**
+     * Đăng ký meter đọc thẳng một bộ đếm/trường của source mỗi lần scrape (không đi qua stats()). Meter chỉ giữ
+     * weak reference tới source nên source phải là bean (hoặc cache) sống suốt ứng dụng.
+     */
+    private record Meters<T>(MeterRegistry registry, T source) {
+
+        Meters<T> gauge(String name, Tags tags, String baseUnit, ToDoubleFunction<T> value) {
+            Gauge.builder(name, source, value)
+                    .tags(tags)
+                    .baseUnit(baseUnit)
+                    .register(registry);
+            return this;
+        }
+
+        Meters<T> counter(String name, Tags tags, ToDoubleFunction<T> value) {
+            FunctionCounter.builder(name, source, value)
+                    .tags(tags)
+                    .register(registry);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.recognition.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình cache 2 tầng (prefix "app.cache").
+ * ttl áp dụng cho Redis, local-ttl cho Caffeine; nếu không khai báo sẽ dùng giá trị mặc định.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache")
+public class TieredCacheProperties {
+
+    private Duration defaultTtl = Duration.ofMinutes(1);
+    private long defaultMaxSize = 1000;
+    private String keyPrefix = "stockview:";
+    private final Redis redis = new Redis();
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    public Spec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, new Spec());
+    }
+
+    public Duration ttlFor(String cacheName) {
+        Duration ttl = specFor(cacheName).getTtl();
+        return ttl != null ? ttl : defaultTtl;
+    }
+
+    public Duration localTtlFor(String cacheName) {
+        Duration localTtl = specFor(cacheName).getLocalTtl();
+        return localTtl != null ? localTtl : ttlFor(cacheName);
+    }
+
+    public long maxSizeFor(String cacheName) {
+        Long maxSize = specFor(cacheName).getMaxSize();
+        return maxSize != null ? maxSize : defaultMaxSize;
+    }
+
+    @Getter
+    @Setter
+    public static class Redis {
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private Duration ttl;
+        private Duration localTtl;
+        private Long maxSize;
+    }
+}
@@ -0,0 +1,180 @@
+package com.recognition.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache 2 tầng: Caffeine (L1, giới hạn kích thước) phía trước Redis (L2, có thể tắt).
+ * Lỗi ở Redis chỉ được ghi nhận và bỏ qua, ứng dụng vẫn chạy với L1.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final CaffeineCache local;
+    private final Cache remote;
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+
+    public TwoTierCache(String name, CaffeineCache local, Cache remote) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null || remote == null) return value;
+
+        value = remoteGet(key);
+        if (value != null && value.get() != null) {
+            local.put(key, value.get());
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return local.get(key, () -> {
+            ValueWrapper wrapper = remote != null ? remoteGet(key) : null;
+            if (wrapper != null && wrapper.get() != null) {
+                return (T) wrapper.get();
+            }
+            T value = valueLoader.call();
+            remotePut(key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) return;
+        local.put(key, value);
+        remotePut(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing != null) return existing;
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+        if (remote == null) return;
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            onRemoteError("evict", e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        if (remote == null) return;
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            onRemoteError("clear", e);
+        }
+    }
+
+    // Thống kê Caffeine của tầng local (đã là snapshot bất biến, không dựng thêm map)
+    public CacheStats localStats() {
+        return local.getNativeCache().stats();
+    }
+
+    public long localSize() {
+        return local.getNativeCache().estimatedSize();
+    }
+
+    public long remoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    public long remoteMissCount() {
+        return remoteMisses.sum();
+    }
+
+    public long remoteErrorCount() {
+        return remoteErrors.sum();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats localStats = localStats();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localSize", local.getNativeCache().estimatedSize());
+        stats.put("localHits", localStats.hitCount());
+        stats.put("localMisses", localStats.missCount());
+        stats.put("localHitRatio", localStats.hitRate());
+        stats.put("localEvictions", localStats.evictionCount());
+        stats.put("remoteEnabled", remote != null);
+        stats.put("remoteHits", remoteHits.sum());
+        stats.put("remoteMisses", remoteMisses.sum());
+        stats.put("remoteErrors", remoteErrors.sum());
+        return stats;
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        try {
+            ValueWrapper value = remote.get(key);
+            if (value != null) remoteHits.increment();
+            else remoteMisses.increment();
+            return value;
+        } catch (RuntimeException e) {
+            onRemoteError("get", e);
+            return null;
+        }
+    }
+
+    private void remotePut(Object key, Object value) {
+        if (remote == null || value == null) return;
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            onRemoteError("put", e);
+        }
+    }
+
+    private void onRemoteError(String operation, RuntimeException e) {
+        remoteErrors.increment();
+        log.debug("Redis cache {} failed on {}: {}", name, operation, e.getMessage());
+    }
+}
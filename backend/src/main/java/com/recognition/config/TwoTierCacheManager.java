@@ -0,0 +1,61 @@
+package com.recognition.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CacheManager tạo TwoTierCache cho từng cache đã khai báo trong TieredCacheProperties.
+ * redisCacheManager = null khi tầng Redis bị tắt.
+ */
+public class TwoTierCacheManager extends AbstractCacheManager {
+
+    private final TieredCacheProperties properties;
+    private final RedisCacheManager redisCacheManager;
+
+    public TwoTierCacheManager(TieredCacheProperties properties, RedisCacheManager redisCacheManager) {
+        this.properties = properties;
+        this.redisCacheManager = redisCacheManager;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().keySet().stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : getCacheNames()) {
+            if (getCache(name) instanceof TwoTierCache cache) {
+                Map<String, Object> cacheStats = new LinkedHashMap<>(cache.stats());
+                cacheStats.put("ttl", properties.ttlFor(name).toString());
+                cacheStats.put("localTtl", properties.localTtlFor(name).toString());
+                stats.put(name, cacheStats);
+            }
+        }
+        return stats;
+    }
+
+    private TwoTierCache createCache(String name) {
+        CaffeineCache local = new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(properties.maxSizeFor(name))
+                .expireAfterWrite(properties.localTtlFor(name))
+                .recordStats()
+                .build(), false);
+        Cache remote = redisCacheManager != null ? redisCacheManager.getCache(name) : null;
+        return new TwoTierCache(name, local, remote);
+    }
+}
@@ -4,6 +4,7 @@ import com.recognition.entity.Asset;
 import com.recognition.entity.Price;
 import com.recognition.exception.ResourceNotFoundException;
 import com.recognition.service.AssetService;
+import com.recognition.service.discovery.AssetDiscoveryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -26,6 +28,7 @@ import java.util.UUID;
 public class AssetController {
 
     private final AssetService assetService;
+    private final AssetDiscoveryService assetDiscoveryService;
 
     // 1. Retrieve all assets stored in the database.
     @GetMapping
@@ -111,6 +114,25 @@ public class AssetController {
         }
     }
 
+    // 6b. Chạy nền discovery toàn bộ danh sách sàn (không giới hạn 10 mã)
+    @PostMapping("/market/stocks/discover")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Discover all new market stocks", description = "Start a background job that adds every listed stock not yet in the database")
+    public ResponseEntity<?> startMarketDiscovery() {
+        String jobId = assetDiscoveryService.startFullDiscovery();
+        return ResponseEntity.ok(Map.of(
+                "message", "Market discovery job started",
+                "jobId", jobId
+        ));
+    }
+
+    // 6c. Tiến độ job discovery
+    @GetMapping("/market/stocks/discover/{jobId}")
+    @Operation(summary = "Market discovery status", description = "Progress and result of a market discovery job")
+    public ResponseEntity<?> getMarketDiscoveryStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(assetDiscoveryService.getJobStatus(jobId));
+    }
+
     // 7. Fetch latest price for a given asset and save it to the database.
     @PostMapping("/prices/{assetId}/fetch")
     @Operation(summary = "Fetch and save latest price", description = "Fetch latest price from external API and save it to the database")
@@ -0,0 +1,49 @@
+package com.recognition.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cấu hình request async của các endpoint trả StreamingResponseBody (export, SSE).
+ * Gọi trong controller trước khi trả body; Spring áp dụng khi bắt đầu xử lý async.
+ */
+final class AsyncRequests {
+
+    private static final String TIMEOUT_KEY = AsyncRequests.class.getName() + ".timeout";
+    private static final String CLEANUP_KEY = AsyncRequests.class.getName() + ".cleanup";
+
+    private AsyncRequests() {
+    }
+
+    // Timeout riêng cho endpoint thay cho spring.mvc.async.request-timeout chung của cả ứng dụng
+    static void setTimeout(HttpServletRequest request, Duration timeout) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(TIMEOUT_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        if (webRequest instanceof AsyncWebRequest asyncWebRequest) {
+                            asyncWebRequest.setTimeout(timeout.toMillis());
+                        }
+                    }
+                });
+    }
+
+    // cleanup chạy đúng một lần khi request kết thúc: hoàn tất, timeout, lỗi hoặc client ngắt, kể cả khi body chưa chạy
+    static void onCompletion(HttpServletRequest request, Runnable cleanup) {
+        AtomicBoolean done = new AtomicBoolean();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(CLEANUP_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        if (done.compareAndSet(false, true)) cleanup.run();
+                    }
+                });
+    }
+}
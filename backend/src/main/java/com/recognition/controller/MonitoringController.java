@@ -0,0 +1,116 @@
+package com.recognition.controller;
+
+import com.recognition.client.FinnhubClient;
+import com.recognition.client.FinnhubRateLimiter;
+import com.recognition.client.SymbolListingCache;
+import com.recognition.config.TwoTierCacheManager;
+import com.recognition.service.LatestQuoteStore;
+import com.recognition.service.TopMoversIndex;
+import com.recognition.service.ingest.PriceIngestScheduler;
+import com.recognition.service.job.JobEngine;
+import com.recognition.service.ingest.StreamingPriceIngest;
+import com.recognition.service.stream.PriceFeedHub;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/monitoring")
+@RequiredArgsConstructor
+@Tag(name = "Monitoring", description = "Runtime statistics for caches and ingest")
+public class MonitoringController {
+
+    private final LatestQuoteStore latestQuoteStore;
+    private final TwoTierCacheManager cacheManager;
+    private final TopMoversIndex topMoversIndex;
+    private final FinnhubClient finnhubClient;
+    private final FinnhubRateLimiter finnhubRateLimiter;
+    private final PriceIngestScheduler priceIngestScheduler;
+    private final StreamingPriceIngest streamingPriceIngest;
+    private final PriceFeedHub priceFeedHub;
+    private final JobEngine jobEngine;
+    private final SymbolListingCache symbolListingCache;
+
+    // 1. Thống kê hit/miss của latest-quote store
+    @GetMapping("/quote-store")
+    @Operation(summary = "Latest-quote store statistics", description = "Size and hit/miss counters of the in-memory latest price store")
+    public ResponseEntity<Map<String, Object>> getQuoteStoreStats() {
+        return ResponseEntity.ok(latestQuoteStore.stats());
+    }
+
+    // 2. Thống kê cache 2 tầng (Caffeine + Redis) theo từng cache
+    @GetMapping("/caches")
+    @Operation(summary = "Cache statistics", description = "Per-cache hit/miss counters, sizes and TTLs of the two-tier cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(cacheManager.stats());
+    }
+
+    // 3. Trạng thái chỉ mục top movers trong bộ nhớ
+    @GetMapping("/top-movers")
+    @Operation(summary = "Top movers index statistics", description = "Readiness and size of the in-memory ranked top movers index")
+    public ResponseEntity<Map<String, Object>> getTopMoversStats() {
+        return ResponseEntity.ok(topMoversIndex.stats());
+    }
+
+    // 4. Độ trễ các lời gọi Finnhub theo endpoint
+    @GetMapping("/finnhub")
+    @Operation(summary = "Finnhub client latency", description = "Per-endpoint request counts, errors, mean/max and p50/p90/p99 latency of the Finnhub client, read from the finnhub.client.requests timer")
+    public ResponseEntity<Map<String, Object>> getFinnhubStats() {
+        return ResponseEntity.ok(finnhubClient.latencyStats());
+    }
+
+    // 5. Rate limiter của Finnhub: token còn lại, số lần phải chờ/bị từ chối, số lần nhận 429
+    @GetMapping("/finnhub/rate-limiter")
+    @Operation(summary = "Finnhub rate limiter", description = "Token bucket state, permits waited and rejected, and HTTP 429 backoff of the Finnhub client")
+    public ResponseEntity<Map<String, Object>> getFinnhubRateLimiterStats() {
+        return ResponseEntity.ok(finnhubRateLimiter.stats());
+    }
+
+    // 6. Single-flight của Finnhub: số lời gọi upstream, số request được gộp và số lần dùng kết quả còn tươi
+    @GetMapping("/finnhub/single-flight")
+    @Operation(summary = "Finnhub request coalescing", description = "Upstream loads, coalesced in-flight requests and freshness-window hits of the Finnhub client")
+    public ResponseEntity<Map<String, Object>> getFinnhubSingleFlightStats() {
+        return ResponseEntity.ok(finnhubClient.singleFlightStats());
+    }
+
+    // 7. Scheduler ingest liên tục: số symbol theo dõi, số chu kỳ, độ trễ so với nhịp và độ cũ của giá
+    @GetMapping("/ingest")
+    @Operation(summary = "Price ingest scheduler", description = "Tracked and hot symbols, cycle timings, schedule lag and staleness of the continuous price ingest")
+    public ResponseEntity<Map<String, Object>> getIngestStats() {
+        return ResponseEntity.ok(priceIngestScheduler.stats());
+    }
+
+    // 8. Ingest qua websocket: trạng thái kết nối, số trade nhận được, số tick bar đã ghi
+    @GetMapping("/ingest/stream")
+    @Operation(summary = "Streaming price ingest", description = "Websocket connection state, received trades, open and flushed tick bars of the streaming price ingest")
+    public ResponseEntity<Map<String, Object>> getStreamingIngestStats() {
+        return ResponseEntity.ok(streamingPriceIngest.stats());
+    }
+
+    // 9. Kênh giá realtime (SSE): số kết nối, số frame đã phát, đã gửi và bị bỏ do client đọc chậm
+    @GetMapping("/feed")
+    @Operation(summary = "Live price feed", description = "Open SSE connections, published, delivered and dropped price frames of the live price feed")
+    public ResponseEntity<Map<String, Object>> getPriceFeedStats() {
+        return ResponseEntity.ok(priceFeedHub.stats());
+    }
+
+    // 10. Job nền: số job đang chạy/chờ, đã xong, lỗi, bị huỷ, bị gộp và thời gian chạy trung bình
+    @GetMapping("/jobs")
+    @Operation(summary = "Background jobs", description = "Running and queued jobs, completed, failed, cancelled and deduplicated counts and average duration of the job engine")
+    public ResponseEntity<Map<String, Object>> getJobStats() {
+        return ResponseEntity.ok(jobEngine.stats());
+    }
+
+    // 11. Cache danh sách mã theo sàn: số mã, thời điểm tải, số lần tải/304/đọc từ đĩa
+    @GetMapping("/finnhub/symbols")
+    @Operation(summary = "Symbol listing cache", description = "Cached exchange symbol listings, their age, downloads, not-modified refreshes and disk loads")
+    public ResponseEntity<Map<String, Object>> getSymbolListingStats() {
+        return ResponseEntity.ok(symbolListingCache.stats());
+    }
+}
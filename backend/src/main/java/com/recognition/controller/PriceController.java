@@ -2,30 +2,41 @@ package com.recognition.controller;
 
 import com.recognition.dto.PriceDto;
 import com.recognition.dto.CandleDTO;
+import com.recognition.dto.response.CursorPageResponse;
 import com.recognition.dto.response.StatisticsDTO;
 import com.recognition.dto.response.PriceResponse;
 import com.recognition.entity.Price;
 import com.recognition.exception.InvalidSortPropertyException;
 import com.recognition.service.AsyncPriceService;
 import com.recognition.service.PriceService;
+import com.recognition.service.export.PriceExportFormat;
+import com.recognition.service.export.PriceExportService;
+import com.recognition.service.stream.PriceFeedHub;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
@@ -42,6 +53,18 @@ public class PriceController {
 
     private final PriceService priceService;
     private final AsyncPriceService asyncPriceService;
+    private final PriceExportService priceExportService;
+    private final PriceFeedHub priceFeedHub;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+    private static final int MAX_STREAM_ASSETS = 200;
+
+    // Export lớn và kết nối SSE sống lâu hơn nhiều so với request async thông thường
+    @Value("${price.export.timeout:30m}")
+    private Duration exportTimeout;
+
+    @Value("${price.feed.timeout:30m}")
+    private Duration streamTimeout;
 
     //1. Lấy giá mới nhất theo asset
     @GetMapping("/{assetId}/latest")
@@ -104,15 +127,51 @@ public class PriceController {
         return ResponseEntity.ok(page.map(this::mapToResponse));
     }
 
+    // 2b. Lịch sử giá phân trang theo cursor (keyset), không dùng OFFSET/COUNT
+    @GetMapping("/{assetId}/history")
+    @Operation(summary = "Price history by cursor",
+            description = "Newest-first price history paged by an opaque cursor; pass nextCursor from the previous page to continue")
+    public ResponseEntity<CursorPageResponse<PriceResponse>> getPriceHistoryByCursor(
+            @PathVariable UUID assetId,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate startDate,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate endDate,
+
+            @Parameter(description = "Opaque cursor returned as nextCursor by the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size (1-" + MAX_CURSOR_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        OffsetDateTime start = startDate != null
+                ? startDate.atStartOfDay().atOffset(ZoneOffset.UTC)
+                : null;
+        OffsetDateTime end = endDate != null
+                ? endDate.atTime(LocalTime.MAX).atOffset(ZoneOffset.UTC)
+                : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+
+        CursorPageResponse<PriceDto> page = priceService.getPriceHistoryByCursor(assetId, start, end, cursor, pageSize);
+        return ResponseEntity.ok(page.map(this::mapToResponse));
+    }
+
     // 3. Dữ liệu biểu đồ
     @GetMapping("/{assetId}/chart")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getChart(
             @PathVariable UUID assetId,
             @RequestParam(defaultValue = "1d") String interval,
+            @Parameter(description = "Candle width: 1m, 5m, 15m, 1h or 1d (default depends on interval)")
+            @RequestParam(required = false) String bucket,
+            @Parameter(description = "Number of most recent candles that have data (anchored at the latest tick, not at now)")
             @RequestParam(defaultValue = "100") int limit
     ) {
-        List<CandleDTO> data = priceService.getCandles(assetId, interval, limit);
+        List<CandleDTO> data = priceService.getCandles(assetId, interval, bucket, limit);
         return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Chart data fetched successfully",
@@ -183,7 +242,29 @@ public class PriceController {
         return ResponseEntity.ok(asyncPriceService.getJobStatus(jobId));
     }
 
-    // 10. Top tăng hoặc giảm giá
+    // 9b. Huỷ job đang chờ hoặc đang chạy
+    @PostMapping("/fetch-all/cancel/{jobId}")
+    @Operation(summary = "Cancel price update job",
+            description = "Cancel a queued or running fetch-all job; a running job stops after the current batch of symbols")
+    public ResponseEntity<?> cancelJob(@PathVariable String jobId) {
+        boolean cancelled = asyncPriceService.cancelJob(jobId);
+        return ResponseEntity.ok(Map.of(
+                "jobId", jobId,
+                "cancelled", cancelled
+        ));
+    }
+
+    // 10. Tính lại bảng rollup từ dữ liệu giá thô
+    @PostMapping("/rollups/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Backfill price rollups",
+            description = "Rebuild the 1m/1h/1d OHLCV rollups from raw prices, for one asset or for all assets")
+    public ResponseEntity<?> backfillRollups(@RequestParam(required = false) UUID assetId) {
+        log.info("Backfilling price rollups for {}", assetId != null ? assetId : "all assets");
+        return ResponseEntity.ok(priceService.backfillRollups(assetId));
+    }
+
+    // 11. Top tăng hoặc giảm giá
     @GetMapping("/top")
     @Operation(summary = "Get top gainers or losers",
             description = "Return the top assets with highest or lowest price change percentage")
@@ -200,7 +281,88 @@ public class PriceController {
         ));
     }
 
-    // 11. Chuyển PriceDto → PriceResponse
+    // 12. Xuất toàn bộ lịch sử giá dạng stream (CSV hoặc NDJSON, tuỳ chọn gzip)
+    @GetMapping("/{assetId}/export")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Export price history",
+            description = "Stream the full tick history of an asset as CSV or NDJSON, oldest first, optionally gzip-compressed")
+    public ResponseEntity<StreamingResponseBody> exportPriceHistory(
+            @PathVariable UUID assetId,
+            @Parameter(description = "Output format: csv or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate startDate,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate endDate,
+
+            @Parameter(description = "Compress the response body with gzip (Content-Encoding: gzip)")
+            @RequestParam(defaultValue = "false") boolean gzip,
+
+            HttpServletRequest request
+    ) {
+        PriceExportFormat exportFormat = PriceExportFormat.fromCode(format);
+        priceExportService.checkAssetExists(assetId);
+
+        OffsetDateTime start = startDate != null
+                ? startDate.atStartOfDay().atOffset(ZoneOffset.UTC)
+                : Instant.EPOCH.atOffset(ZoneOffset.UTC);
+        OffsetDateTime end = endDate != null
+                ? endDate.atTime(LocalTime.MAX).atOffset(ZoneOffset.UTC)
+                : OffsetDateTime.now(ZoneOffset.UTC);
+
+        if (!priceExportService.tryAcquireSlot()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        AsyncRequests.setTimeout(request, exportTimeout);
+        AsyncRequests.onCompletion(request, priceExportService::releaseSlot);
+
+        log.info("Exporting price history for asset {} as {} (gzip={})", assetId, exportFormat.getCode(), gzip);
+        StreamingResponseBody body = out -> priceExportService.export(assetId, start, end, exportFormat, gzip, out);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"prices-" + assetId + "." + exportFormat.getCode() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // 13. Nhận giá realtime của các asset qua Server-Sent Events
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live price feed",
+            description = "Server-Sent Events stream of price updates (event: price) for the given asset ids; the current price of each asset is sent first")
+    public ResponseEntity<StreamingResponseBody> streamPrices(
+            @Parameter(description = "Comma-separated asset ids")
+            @RequestParam Set<UUID> assetIds,
+
+            HttpServletRequest request
+    ) {
+        if (assetIds.isEmpty() || assetIds.size() > MAX_STREAM_ASSETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        PriceFeedHub.Subscription subscription = priceFeedHub.subscribe(assetIds);
+        if (subscription == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        AsyncRequests.setTimeout(request, streamTimeout);
+        // Body có thể không bao giờ chạy (timeout, client ngắt trước): kết nối được trả lại khi request kết thúc
+        AsyncRequests.onCompletion(request, subscription::close);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(subscription::writeTo);
+    }
+
+    // 14. Chuyển PriceDto → PriceResponse
     private PriceResponse mapToResponse(PriceDto dto) {
         PriceResponse response = new PriceResponse();
         response.setAssetId(dto.getAssetId());
@@ -1,5 +1,6 @@
 package com.recognition.dto;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
@@ -12,5 +13,5 @@ public record CandleDTO(
         BigDecimal high,
         BigDecimal low,
         BigDecimal close,
-        Long volume
-) {}
\ No newline at end of file
+        BigDecimal volume
+) implements Serializable {}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.recognition.dto;
+
+import com.recognition.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Vị trí (timestamp, id) của bản ghi cuối cùng trên trang, dùng cho phân trang keyset.
+ * Client nhận chuỗi base64url không cần hiểu nội dung: "epochMicros:uuid".
+ */
+public record PriceCursor(OffsetDateTime timestamp, UUID id) {
+
+    // UUID lớn nhất: trang đầu tiên lấy mọi bản ghi có timestamp <= end
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    public static PriceCursor first(OffsetDateTime end) {
+        return new PriceCursor(end, MAX_ID);
+    }
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, timestamp.toInstant());
+        String raw = micros + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PriceCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long micros = Long.parseLong(raw.substring(0, separator));
+            UUID id = UUID.fromString(raw.substring(separator + 1));
+            Instant instant = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+            return new PriceCursor(instant.atOffset(ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.recognition.dto;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
-public class PriceDto {
+public class PriceDto implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private UUID id;
   private UUID assetId;
   private String assetName;
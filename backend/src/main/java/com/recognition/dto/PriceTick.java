@@ -0,0 +1,13 @@
+package com.recognition.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Projection gọn của một bản ghi giá (chỉ các cột cần cho tổng hợp nến).
+ */
+public record PriceTick(
+        OffsetDateTime timestamp,
+        BigDecimal price,
+        BigDecimal volume
+) {}
@@ -0,0 +1,21 @@
+package com.recognition.dto.response;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Một trang kết quả phân trang theo cursor (không có tổng số bản ghi).
+ * nextCursor = null khi đã hết dữ liệu.
+ */
+public record CursorPageResponse<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {
+
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new CursorPageResponse<>(mapped, size, hasNext, nextCursor);
+    }
+}
@@ -1,15 +1,28 @@
 package com.recognition.dto.response;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 /**
  * DTO tính toán thống kê giá trong khoảng thời gian.
+ * count, stdDevPrice, vwap, firstPrice, lastPrice được bổ sung sau; các trường cũ giữ nguyên.
  */
 public record StatisticsDTO(
         BigDecimal minPrice,
         BigDecimal maxPrice,
         BigDecimal avgPrice,
         OffsetDateTime from,
-        OffsetDateTime to
-) {}
+        OffsetDateTime to,
+        long count,
+        BigDecimal stdDevPrice,
+        BigDecimal vwap,
+        BigDecimal firstPrice,
+        BigDecimal lastPrice
+) implements Serializable {
+
+    public StatisticsDTO(BigDecimal minPrice, BigDecimal maxPrice, BigDecimal avgPrice,
+                         OffsetDateTime from, OffsetDateTime to) {
+        this(minPrice, maxPrice, avgPrice, from, to, 0, null, null, null, null);
+    }
+}
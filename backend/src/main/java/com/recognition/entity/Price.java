@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -26,7 +27,9 @@ import java.util.UUID;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class Price {
+public class Price implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   @Id
   @GeneratedValue(strategy = GenerationType.UUID)
@@ -43,24 +46,36 @@ public class Price {
   private OffsetDateTime timestamp;
 
   @Column(name = "source", nullable = false, length = 50)
-  private String source; // e.g. "Finnhub", "Manual", "Yahoo"
+  private String source; // e.g. "Finnhub", "FinnhubStream", "Manual", "Yahoo"
 
   // 🔹 Trường mở rộng
   @Column(name = "change_percent", precision = 10, scale = 4)
   private BigDecimal changePercent;
 
+  // Cao/thấp trong ngày; dòng "FinnhubStream" mang tiếp giá trị của báo giá mới nhất, mở rộng theo bar
   @Column(name = "high_24h", precision = 18, scale = 8)
   private BigDecimal high24h;
 
   @Column(name = "low_24h", precision = 18, scale = 8)
   private BigDecimal low24h;
 
+  // Khối lượng khớp trong khoảng mà dòng này đại diện (trade/bar từ stream), được cộng dồn khi gộp nến/rollup.
+  // null với báo giá poll từ /quote: trường v ở đó là khối lượng cộng dồn trong ngày, lưu ở dayVolume
   @Column(name = "volume", precision = 20, scale = 2)
   private BigDecimal volume;
 
+  // Khối lượng cộng dồn trong ngày tính tới thời điểm báo giá (v của /quote); không cộng khi gộp nến/rollup/VWAP
+  @Column(name = "day_volume", precision = 20, scale = 2)
+  private BigDecimal dayVolume;
+
   @Column(name = "market_cap", precision = 20, scale = 2)
   private BigDecimal marketCap;
 
   @CreationTimestamp
   private OffsetDateTime createdAt;
+
+  // Khối lượng hiển thị cho báo giá: khối lượng trong ngày nếu có, ngược lại khối lượng của riêng dòng (nhập tay)
+  public BigDecimal displayVolume() {
+    return dayVolume != null ? dayVolume : volume;
+  }
 }
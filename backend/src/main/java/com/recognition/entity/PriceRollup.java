@@ -0,0 +1,80 @@
+package com.recognition.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Nến OHLCV tổng hợp sẵn theo asset và độ phân giải (1m, 1h, 1d), được cập nhật mỗi khi có Price mới.
+ */
+@Entity
+@Table(
+        name = "price_rollups",
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        name = "uq_price_rollup_asset_resolution_bucket",
+                        columnNames = {"asset_id", "resolution", "bucket_start"}
+                )
+        },
+        indexes = {
+                @Index(name = "idx_price_rollup_asset_resolution_bucket", columnList = "asset_id, resolution, bucket_start DESC")
+        }
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
+
+  @Column(name = "asset_id", nullable = false)
+  private UUID assetId;
+
+  @Column(name = "resolution", nullable = false, length = 8)
+  private String resolution; // "1m", "1h", "1d"
+
+  @Column(name = "bucket_start", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+  private OffsetDateTime bucketStart;
+
+  @Column(name = "open_price", nullable = false, precision = 18, scale = 8)
+  private BigDecimal openPrice;
+
+  @Column(name = "high_price", nullable = false, precision = 18, scale = 8)
+  private BigDecimal highPrice;
+
+  @Column(name = "low_price", nullable = false, precision = 18, scale = 8)
+  private BigDecimal lowPrice;
+
+  @Column(name = "close_price", nullable = false, precision = 18, scale = 8)
+  private BigDecimal closePrice;
+
+  // Thời điểm của tick đầu/cuối trong bucket, dùng khi gộp tick đến trễ
+  @Column(name = "open_time", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+  private OffsetDateTime openTime;
+
+  @Column(name = "close_time", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+  private OffsetDateTime closeTime;
+
+  @Column(name = "volume", precision = 24, scale = 2)
+  private BigDecimal volume;
+
+  @Column(name = "tick_count", nullable = false)
+  private long tickCount;
+
+  @Column(name = "price_sum", nullable = false, precision = 28, scale = 8)
+  private BigDecimal priceSum;
+
+  // Tổng bình phương giá và tổng giá x khối lượng, dùng cho độ lệch chuẩn và VWAP
+  @Column(name = "price_sq_sum", precision = 38, scale = 8)
+  private BigDecimal priceSqSum;
+
+  @Column(name = "price_volume_sum", precision = 38, scale = 8)
+  private BigDecimal priceVolumeSum;
+}
@@ -0,0 +1,43 @@
+package com.recognition.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Mốc từ đó rollup của một asset/độ phân giải là đầy đủ (mọi tick từ covered_from trở đi đều đã được gộp).
+ * Bucket trước mốc có thể thiếu tick (ghi trước khi có rollup) nên phải đọc từ bảng prices.
+ */
+@Entity
+@Table(
+        name = "price_rollup_watermarks",
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        name = "uq_price_rollup_watermark_asset_resolution",
+                        columnNames = {"asset_id", "resolution"}
+                )
+        }
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRollupWatermark {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
+
+  @Column(name = "asset_id", nullable = false)
+  private UUID assetId;
+
+  @Column(name = "resolution", nullable = false, length = 8)
+  private String resolution;
+
+  // Backfill đặt về epoch: rollup đầy đủ cho toàn bộ lịch sử
+  @Column(name = "covered_from", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+  private OffsetDateTime coveredFrom;
+}
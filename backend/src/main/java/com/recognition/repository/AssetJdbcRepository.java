@@ -0,0 +1,70 @@
+package com.recognition.repository;
+
+import com.recognition.entity.Asset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Upsert Asset hàng loạt bằng JDBC batch (dùng cho luồng discovery mã mới).
+ * Trùng symbol thì chỉ cập nhật các chỉ số có giá trị mới, giữ nguyên id và trạng thái is_active.
+ */
+@Slf4j
+@Repository
+public class AssetJdbcRepository {
+
+    private static final String UPSERT_ASSET_SQL = """
+            INSERT INTO assets (id, symbol, name, description, is_active, market_cap, volume, shares_outstanding,
+                                pe_ratio, pb_ratio, eps, book_value, ev_to_ebitda, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (symbol) DO UPDATE SET
+                market_cap = COALESCE(EXCLUDED.market_cap, assets.market_cap),
+                volume = COALESCE(EXCLUDED.volume, assets.volume),
+                shares_outstanding = COALESCE(EXCLUDED.shares_outstanding, assets.shares_outstanding),
+                pe_ratio = COALESCE(EXCLUDED.pe_ratio, assets.pe_ratio),
+                pb_ratio = COALESCE(EXCLUDED.pb_ratio, assets.pb_ratio),
+                eps = COALESCE(EXCLUDED.eps, assets.eps),
+                book_value = COALESCE(EXCLUDED.book_value, assets.book_value),
+                ev_to_ebitda = COALESCE(EXCLUDED.ev_to_ebitda, assets.ev_to_ebitda),
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public AssetJdbcRepository(JdbcTemplate jdbcTemplate,
+                               @Value("${price.batch.size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // id của bản ghi đã tồn tại không đổi, nên cần đọc lại asset theo symbol nếu cần id thật
+    public void batchUpsert(List<Asset> assets) {
+        if (assets.isEmpty()) return;
+
+        OffsetDateTime now = OffsetDateTime.now();
+        jdbcTemplate.batchUpdate(UPSERT_ASSET_SQL, assets, batchSize, (ps, asset) -> {
+            ps.setObject(1, asset.getId() != null ? asset.getId() : UUID.randomUUID());
+            ps.setString(2, asset.getSymbol());
+            ps.setString(3, asset.getName());
+            ps.setString(4, asset.getDescription());
+            ps.setBoolean(5, asset.getIsActive() == null || asset.getIsActive());
+            ps.setBigDecimal(6, asset.getMarketCap());
+            ps.setBigDecimal(7, asset.getVolume());
+            ps.setBigDecimal(8, asset.getSharesOutstanding());
+            ps.setBigDecimal(9, asset.getPeRatio());
+            ps.setBigDecimal(10, asset.getPbRatio());
+            ps.setBigDecimal(11, asset.getEps());
+            ps.setBigDecimal(12, asset.getBookValue());
+            ps.setBigDecimal(13, asset.getEvToEbitda());
+            ps.setObject(14, now);
+            ps.setObject(15, now);
+        });
+        log.debug("Batch upserted {} assets (batch size {})", assets.size(), batchSize);
+    }
+}
@@ -1,11 +1,14 @@
 package com.recognition.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.recognition.entity.Asset;
@@ -25,4 +28,10 @@ public interface AssetRepository extends JpaRepository<Asset, UUID>, JpaSpecific
 
     List<Asset> findByIsActiveTrue();
     List<Asset> findBySymbolContainingIgnoreCaseOrNameContainingIgnoreCase(String symbol, String name);
+
+    List<Asset> findBySymbolIn(Collection<String> symbols);
+
+    // Toàn bộ symbol đã có trong một truy vấn, để so khớp danh sách sàn trong bộ nhớ
+    @Query("SELECT a.symbol FROM Asset a")
+    Set<String> findAllSymbols();
 }
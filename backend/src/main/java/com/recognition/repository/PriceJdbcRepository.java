@@ -0,0 +1,118 @@
+package com.recognition.repository;
+
+import com.recognition.entity.Price;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Ghi Price hàng loạt bằng JDBC (bỏ qua Hibernate cho các luồng ingest lớn): mỗi lô là một câu INSERT ... SELECT unnest.
+ * id được sinh trước ở phía Java; RETURNING id cho biết chính xác dòng nào đã được ghi.
+ */
+@Slf4j
+@Repository
+public class PriceJdbcRepository {
+
+    // Mỗi lô là một câu INSERT từ các mảng cột; RETURNING chỉ trả về id của dòng thực sự được ghi
+    private static final String INSERT_PRICES_SQL = """
+            INSERT INTO prices (id, asset_id, price, "timestamp", source, change_percent,
+                                high_24h, low_24h, volume, day_volume, market_cap, created_at)
+            SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::numeric[], ?::timestamptz[], ?::varchar[], ?::numeric[],
+                                 ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::timestamptz[])
+            ON CONFLICT (asset_id, "timestamp", source) DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String EXPORT_PRICES_SQL = """
+            SELECT "timestamp", price, volume, change_percent, high_24h, low_24h, market_cap, source
+            FROM prices
+            WHERE asset_id = ?
+              AND "timestamp" BETWEEN ? AND ?
+            ORDER BY "timestamp" ASC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public PriceJdbcRepository(JdbcTemplate jdbcTemplate,
+                               @Value("${price.batch.size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // Trả về các bản ghi đã ghi (theo thứ tự đầu vào); bản ghi trùng khoá asset/timestamp/source bị bỏ qua
+    public List<Price> batchInsert(List<Price> prices) {
+        if (prices.isEmpty()) return List.of();
+
+        OffsetDateTime now = OffsetDateTime.now();
+        for (Price price : prices) {
+            if (price.getId() == null) price.setId(UUID.randomUUID());
+            if (price.getCreatedAt() == null) price.setCreatedAt(now);
+        }
+
+        Set<UUID> insertedIds = new HashSet<>();
+        for (int from = 0; from < prices.size(); from += batchSize) {
+            List<Price> batch = prices.subList(from, Math.min(from + batchSize, prices.size()));
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_PRICES_SQL);
+                ps.setArray(1, connection.createArrayOf("uuid", column(batch, Price::getId)));
+                ps.setArray(2, connection.createArrayOf("uuid", column(batch, price -> price.getAsset().getId())));
+                ps.setArray(3, connection.createArrayOf("numeric", column(batch, Price::getPrice)));
+                ps.setArray(4, connection.createArrayOf("timestamptz", column(batch, Price::getTimestamp)));
+                ps.setArray(5, connection.createArrayOf("varchar", column(batch, Price::getSource)));
+                ps.setArray(6, connection.createArrayOf("numeric", column(batch, Price::getChangePercent)));
+                ps.setArray(7, connection.createArrayOf("numeric", column(batch, Price::getHigh24h)));
+                ps.setArray(8, connection.createArrayOf("numeric", column(batch, Price::getLow24h)));
+                ps.setArray(9, connection.createArrayOf("numeric", column(batch, Price::getVolume)));
+                ps.setArray(10, connection.createArrayOf("numeric", column(batch, Price::getDayVolume)));
+                ps.setArray(11, connection.createArrayOf("numeric", column(batch, Price::getMarketCap)));
+                ps.setArray(12, connection.createArrayOf("timestamptz", column(batch, Price::getCreatedAt)));
+                return ps;
+            }, (RowCallbackHandler) rs -> insertedIds.add(rs.getObject(1, UUID.class)));
+        }
+
+        List<Price> inserted = prices.stream().filter(price -> insertedIds.contains(price.getId())).toList();
+        log.debug("Batch inserted {} of {} prices (batch size {})", inserted.size(), prices.size(), batchSize);
+        return inserted;
+    }
+
+    // Giá trị một cột dạng text để driver gửi như literal mảng; BigDecimal không dùng dạng số mũ
+    private static String[] column(List<Price> batch, Function<Price, Object> getter) {
+        String[] values = new String[batch.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = getter.apply(batch.get(i));
+            values[i] = value instanceof BigDecimal decimal ? decimal.toPlainString()
+                    : value != null ? value.toString() : null;
+        }
+        return values;
+    }
+
+    /**
+     * Duyệt lịch sử giá theo thứ tự thời gian bằng cursor forward-only, mỗi lần chỉ tải fetchSize dòng.
+     * Postgres chỉ dùng cursor khi autocommit tắt, nên phải gọi bên trong một transaction.
+     */
+    public void streamByAssetAndRange(UUID assetId, OffsetDateTime start, OffsetDateTime end,
+                                      int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(EXPORT_PRICES_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, assetId);
+            ps.setObject(2, start);
+            ps.setObject(3, end);
+            return ps;
+        }, handler);
+    }
+}
@@ -1,18 +1,25 @@
 package com.recognition.repository;
 
+import com.recognition.dto.PriceTick;
 import com.recognition.entity.Asset;
 import com.recognition.entity.Price;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PriceRepository extends JpaRepository<Price, UUID> {
@@ -21,6 +28,12 @@ public interface PriceRepository extends JpaRepository<Price, UUID> {
 
     Optional<Price> findTopByAssetOrderByTimestampDesc(Asset asset);
     Optional<Price> findTopByAssetIdOrderByTimestampDesc(UUID assetId);
+    Optional<Price> findFirstByAssetIdOrderByTimestampAsc(UUID assetId);
+
+    // Lấy giá mới nhất kèm Asset trong cùng một truy vấn
+    @EntityGraph(attributePaths = "asset")
+    Optional<Price> findFirstByAssetIdOrderByTimestampDesc(UUID assetId);
+
     Optional<Price> findTopByAssetIdAndTimestampBeforeOrderByTimestampDesc(UUID assetId, OffsetDateTime timestamp);
     Optional<Price> findByAssetAndTimestampAndSource(Asset asset, OffsetDateTime timestamp, String source);
 
@@ -36,9 +49,91 @@ public interface PriceRepository extends JpaRepository<Price, UUID> {
 
     List<Price> findByAssetIdOrderByTimestampAsc(UUID assetId);
 
+    // Giá mới nhất của các asset cho trước trong một truy vấn (dùng idx_price_asset_timestamp cho từng asset)
+    @Query(value = """
+            SELECT lp.*
+            FROM assets a
+            CROSS JOIN LATERAL (
+                SELECT p.*
+                FROM prices p
+                WHERE p.asset_id = a.id
+                ORDER BY p."timestamp" DESC
+                LIMIT 1
+            ) lp
+            WHERE a.id IN (:assetIds)
+            """, nativeQuery = true)
+    List<Price> findLatestForAssets(@Param("assetIds") Collection<UUID> assetIds);
+
+    // Giá mới nhất của mọi asset (kể cả inactive), dùng để nạp LatestQuoteStore/TopMoversIndex khi khởi động
+    @Query(value = """
+            SELECT lp.*
+            FROM assets a
+            CROSS JOIN LATERAL (
+                SELECT p.*
+                FROM prices p
+                WHERE p.asset_id = a.id
+                ORDER BY p."timestamp" DESC
+                LIMIT 1
+            ) lp
+            """, nativeQuery = true)
+    List<Price> findLatestForAllAssets();
+
     @Query("SELECT p FROM Price p WHERE p.asset.id = :assetId AND p.timestamp BETWEEN :start AND :end ORDER BY p.timestamp ASC")
     List<Price> findByAssetAndTimestampBetweenOrderByTimestampAsc(UUID assetId, OffsetDateTime start, OffsetDateTime end);
 
+    // Đọc tuần tự (cursor) chỉ các cột cần cho tổng hợp nến, không materialize entity
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new com.recognition.dto.PriceTick(p.timestamp, p.price, p.volume)
+            FROM Price p
+            WHERE p.asset.id = :assetId
+              AND p.timestamp BETWEEN :start AND :end
+            ORDER BY p.timestamp ASC
+           """)
+    Stream<PriceTick> streamTicks(@Param("assetId") UUID assetId,
+                                  @Param("start") OffsetDateTime start,
+                                  @Param("end") OffsetDateTime end);
+
+    // Thống kê giá trong một truy vấn tổng hợp (first/last dùng idx_price_asset_timestamp)
+    @Query(value = """
+            SELECT COUNT(p.price)                                      AS "count",
+                   MIN(p.price)                                        AS "minPrice",
+                   MAX(p.price)                                        AS "maxPrice",
+                   AVG(p.price)                                        AS "avgPrice",
+                   STDDEV_POP(p.price)                                 AS "stdDevPrice",
+                   SUM(p.price * p.volume) / NULLIF(SUM(p.volume), 0)  AS "vwap",
+                   (SELECT f.price FROM prices f
+                     WHERE f.asset_id = :assetId AND f."timestamp" BETWEEN :start AND :end
+                     ORDER BY f."timestamp" ASC LIMIT 1)               AS "firstPrice",
+                   (SELECT l.price FROM prices l
+                     WHERE l.asset_id = :assetId AND l."timestamp" BETWEEN :start AND :end
+                     ORDER BY l."timestamp" DESC LIMIT 1)              AS "lastPrice"
+            FROM prices p
+            WHERE p.asset_id = :assetId
+              AND p."timestamp" BETWEEN :start AND :end
+            """, nativeQuery = true)
+    PriceStatisticsView aggregateStatistics(@Param("assetId") UUID assetId,
+                                            @Param("start") OffsetDateTime start,
+                                            @Param("end") OffsetDateTime end);
+
+    // Phân trang keyset: bản ghi đứng sau (cursorTs, cursorId) theo thứ tự timestamp DESC, id DESC.
+    // Điều kiện timestamp <= cursorTs dùng được idx_price_asset_timestamp, không cần OFFSET hay COUNT.
+    @Query(value = """
+            SELECT p.*
+            FROM prices p
+            WHERE p.asset_id = :assetId
+              AND p."timestamp" >= :start
+              AND p."timestamp" <= :cursorTs
+              AND (p."timestamp" < :cursorTs OR p.id < :cursorId)
+            ORDER BY p."timestamp" DESC, p.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Price> findPageBefore(@Param("assetId") UUID assetId,
+                               @Param("start") OffsetDateTime start,
+                               @Param("cursorTs") OffsetDateTime cursorTs,
+                               @Param("cursorId") UUID cursorId,
+                               @Param("limit") int limit);
+
     @Query("""
             SELECT p FROM Price p
             WHERE p.asset.id = :assetId
@@ -0,0 +1,185 @@
+package com.recognition.repository;
+
+import com.recognition.entity.PriceRollup;
+import com.recognition.entity.PriceRollupWatermark;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Upsert / backfill bảng price_rollups và price_rollup_watermarks bằng SQL thuần (ON CONFLICT của PostgreSQL).
+ * Upsert và backfill của cùng một asset loại trừ nhau bằng advisory lock theo asset (giữ tới hết transaction):
+ * upsert lấy khoá chia sẻ, backfill lấy khoá độc quyền, nên backfill không ghi đè tick được cộng dồn song song.
+ */
+@Slf4j
+@Repository
+public class PriceRollupJdbcRepository {
+
+    // Gộp một nến con vào bucket đã có: open/close theo thời điểm tick, high/low/volume/count cộng dồn.
+    // price_sq_sum NULL (dòng cũ trước khi có cột) giữ NULL để phía đọc biết phải tính lại từ tick
+    private static final String UPSERT_ROLLUP_SQL = """
+            INSERT INTO price_rollups (id, asset_id, resolution, bucket_start, open_price, high_price, low_price,
+                                       close_price, open_time, close_time, volume, tick_count, price_sum,
+                                       price_sq_sum, price_volume_sum)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (asset_id, resolution, bucket_start) DO UPDATE SET
+                open_price = CASE WHEN EXCLUDED.open_time < price_rollups.open_time
+                                  THEN EXCLUDED.open_price ELSE price_rollups.open_price END,
+                open_time = LEAST(price_rollups.open_time, EXCLUDED.open_time),
+                close_price = CASE WHEN EXCLUDED.close_time >= price_rollups.close_time
+                                   THEN EXCLUDED.close_price ELSE price_rollups.close_price END,
+                close_time = GREATEST(price_rollups.close_time, EXCLUDED.close_time),
+                high_price = GREATEST(price_rollups.high_price, EXCLUDED.high_price),
+                low_price = LEAST(price_rollups.low_price, EXCLUDED.low_price),
+                volume = CASE WHEN price_rollups.volume IS NULL AND EXCLUDED.volume IS NULL THEN NULL
+                              ELSE COALESCE(price_rollups.volume, 0) + COALESCE(EXCLUDED.volume, 0) END,
+                tick_count = price_rollups.tick_count + EXCLUDED.tick_count,
+                price_sum = price_rollups.price_sum + EXCLUDED.price_sum,
+                price_sq_sum = CASE WHEN price_rollups.price_sq_sum IS NULL THEN NULL
+                                    ELSE price_rollups.price_sq_sum + EXCLUDED.price_sq_sum END,
+                price_volume_sum = CASE WHEN price_rollups.price_volume_sum IS NULL AND EXCLUDED.price_volume_sum IS NULL
+                                        THEN NULL
+                                        ELSE COALESCE(price_rollups.price_volume_sum, 0)
+                                             + COALESCE(EXCLUDED.price_volume_sum, 0) END
+            """;
+
+    // Nhóm khoá advisory dành cho rollup (số tuỳ ý, chỉ cần không trùng với nơi khác dùng advisory lock)
+    private static final int ROLLUP_LOCK_CLASS = 0x524F4C4C;
+
+    // Khoá sắp theo key để hai transaction cùng lấy nhiều khoá không deadlock với nhau
+    private static final String LOCK_SHARED_SQL = """
+            SELECT pg_advisory_xact_lock_shared(?, k)
+            FROM (SELECT DISTINCT hashtext(CAST(id AS text)) AS k FROM unnest(?::uuid[]) AS id ORDER BY k) keys
+            """;
+
+    private static final String LOCK_EXCLUSIVE_SQL = "SELECT pg_advisory_xact_lock(?, hashtext(CAST(? AS text)))";
+
+    // Tính lại toàn bộ bucket của một asset ở một độ phân giải từ bảng prices (ghi đè giá trị cũ)
+    private static final String BACKFILL_ROLLUP_SQL = """
+            INSERT INTO price_rollups (id, asset_id, resolution, bucket_start, open_price, high_price, low_price,
+                                       close_price, open_time, close_time, volume, tick_count, price_sum,
+                                       price_sq_sum, price_volume_sum)
+            SELECT gen_random_uuid(),
+                   p.asset_id,
+                   ?,
+                   to_timestamp(floor(extract(epoch FROM p."timestamp") / %1$d) * %1$d),
+                   (array_agg(p.price ORDER BY p."timestamp" ASC))[1],
+                   MAX(p.price),
+                   MIN(p.price),
+                   (array_agg(p.price ORDER BY p."timestamp" DESC))[1],
+                   MIN(p."timestamp"),
+                   MAX(p."timestamp"),
+                   SUM(p.volume),
+                   COUNT(*),
+                   SUM(p.price),
+                   SUM(p.price * p.price),
+                   SUM(p.price * p.volume)
+            FROM prices p
+            WHERE p.asset_id = ?
+            GROUP BY 2, 4
+            ON CONFLICT (asset_id, resolution, bucket_start) DO UPDATE SET
+                open_price = EXCLUDED.open_price,
+                high_price = EXCLUDED.high_price,
+                low_price = EXCLUDED.low_price,
+                close_price = EXCLUDED.close_price,
+                open_time = EXCLUDED.open_time,
+                close_time = EXCLUDED.close_time,
+                volume = EXCLUDED.volume,
+                tick_count = EXCLUDED.tick_count,
+                price_sum = EXCLUDED.price_sum,
+                price_sq_sum = EXCLUDED.price_sq_sum,
+                price_volume_sum = EXCLUDED.price_volume_sum
+            """;
+
+    // Mốc đầu tiên của asset/độ phân giải; mốc đã có (từ lần ghi trước hoặc backfill) được giữ nguyên
+    private static final String INSERT_WATERMARK_SQL = """
+            INSERT INTO price_rollup_watermarks (id, asset_id, resolution, covered_from)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (asset_id, resolution) DO NOTHING
+            """;
+
+    // Sau backfill rollup của asset đầy đủ cho toàn bộ lịch sử
+    private static final String BACKFILL_WATERMARK_SQL = """
+            INSERT INTO price_rollup_watermarks (id, asset_id, resolution, covered_from)
+            VALUES (gen_random_uuid(), ?, ?, to_timestamp(0))
+            ON CONFLICT (asset_id, resolution) DO UPDATE SET covered_from = EXCLUDED.covered_from
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public PriceRollupJdbcRepository(JdbcTemplate jdbcTemplate,
+                                     @Value("${price.batch.size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // Mỗi (asset, resolution, bucket) chỉ được xuất hiện một lần trong collection (đã gộp trước ở phía Java)
+    public void upsert(Collection<PriceRollup> rollups) {
+        if (rollups.isEmpty()) return;
+
+        lockShared(rollups.stream().map(PriceRollup::getAssetId).distinct().toList());
+
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP_SQL, rollups, batchSize, (ps, rollup) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, rollup.getAssetId());
+            ps.setString(3, rollup.getResolution());
+            ps.setObject(4, rollup.getBucketStart());
+            ps.setBigDecimal(5, rollup.getOpenPrice());
+            ps.setBigDecimal(6, rollup.getHighPrice());
+            ps.setBigDecimal(7, rollup.getLowPrice());
+            ps.setBigDecimal(8, rollup.getClosePrice());
+            ps.setObject(9, rollup.getOpenTime());
+            ps.setObject(10, rollup.getCloseTime());
+            ps.setBigDecimal(11, rollup.getVolume());
+            ps.setLong(12, rollup.getTickCount());
+            ps.setBigDecimal(13, rollup.getPriceSum());
+            ps.setBigDecimal(14, rollup.getPriceSqSum());
+            ps.setBigDecimal(15, rollup.getPriceVolumeSum());
+        });
+    }
+
+    public void insertWatermarks(Collection<PriceRollupWatermark> watermarks) {
+        if (watermarks.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(INSERT_WATERMARK_SQL, watermarks, batchSize, (ps, watermark) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, watermark.getAssetId());
+            ps.setString(3, watermark.getResolution());
+            ps.setObject(4, watermark.getCoveredFrom());
+        });
+    }
+
+    /**
+     * Ghi đè bucket của asset rồi đưa watermark về đầu lịch sử. Phải gọi trong transaction: khoá độc quyền lấy trước
+     * câu INSERT ... SELECT, nên snapshot của nó đã thấy mọi tick của các upsert đang chạy (chúng commit trước khi
+     * nhả khoá), còn upsert mới phải chờ backfill commit rồi mới cộng dồn lên bucket đã tính lại.
+     */
+    public int backfill(String resolution, long bucketSeconds, UUID assetId) {
+        jdbcTemplate.query(LOCK_EXCLUSIVE_SQL, (RowCallbackHandler) rs -> { }, ROLLUP_LOCK_CLASS, assetId);
+        int rows = jdbcTemplate.update(BACKFILL_ROLLUP_SQL.formatted(bucketSeconds), resolution, assetId);
+        jdbcTemplate.update(BACKFILL_WATERMARK_SQL, assetId, resolution);
+        log.debug("Backfilled {} {} rollup buckets for asset {}", rows, resolution, assetId);
+        return rows;
+    }
+
+    public List<UUID> findAssetIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM assets ORDER BY id", UUID.class);
+    }
+
+    private void lockShared(List<UUID> assetIds) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOCK_SHARED_SQL);
+            ps.setInt(1, ROLLUP_LOCK_CLASS);
+            ps.setArray(2, connection.createArrayOf("uuid", assetIds.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> { });
+    }
+}
@@ -0,0 +1,18 @@
+package com.recognition.repository;
+
+import com.recognition.entity.PriceRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PriceRollupRepository extends JpaRepository<PriceRollup, UUID> {
+
+    List<PriceRollup> findByAssetIdAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+            UUID assetId, String resolution, OffsetDateTime start, OffsetDateTime end);
+
+    void deleteAllByAssetId(UUID assetId);
+}
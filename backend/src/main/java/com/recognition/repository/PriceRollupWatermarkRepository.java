@@ -0,0 +1,16 @@
+package com.recognition.repository;
+
+import com.recognition.entity.PriceRollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PriceRollupWatermarkRepository extends JpaRepository<PriceRollupWatermark, UUID> {
+
+    Optional<PriceRollupWatermark> findByAssetIdAndResolution(UUID assetId, String resolution);
+
+    void deleteAllByAssetId(UUID assetId);
+}
@@ -0,0 +1,25 @@
+package com.recognition.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Kết quả truy vấn tổng hợp thống kê giá (một dòng).
+ */
+public interface PriceStatisticsView {
+
+    Long getCount();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getMaxPrice();
+
+    BigDecimal getAvgPrice();
+
+    BigDecimal getStdDevPrice();
+
+    BigDecimal getVwap();
+
+    BigDecimal getFirstPrice();
+
+    BigDecimal getLastPrice();
+}
@@ -2,6 +2,7 @@ package com.recognition.repository;
 
 import com.recognition.entity.Watchlist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +16,8 @@ public interface WatchlistRepository extends JpaRepository<Watchlist, UUID> {
     boolean existsByUserIdAndSymbol(UUID userId, String symbol);
 
     void deleteByUserIdAndSymbol(UUID userId, String symbol);
+
+    // Số người theo dõi của từng symbol: [symbol (upper case), số lượng]
+    @Query("SELECT UPPER(w.symbol), COUNT(w) FROM Watchlist w GROUP BY UPPER(w.symbol)")
+    List<Object[]> countWatchersBySymbol();
 }
@@ -1,48 +1,58 @@
 package com.recognition.service;
 
+import com.recognition.entity.Asset;
+import com.recognition.service.ingest.PriceFetchPipeline;
+import com.recognition.service.job.Job;
+import com.recognition.service.job.JobEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Job cập nhật giá toàn bộ asset chạy nền trên JobEngine.
+ * Tiến độ được cập nhật sau mỗi nhóm asset đã ghi (xem PriceService#fetchAndSaveAllPricesFromFinnhub)
+ * và job có thể huỷ giữa hai nhóm. Chỉ một job fetch-all chạy tại một thời điểm.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AsyncPriceService {
 
-    private final PriceService priceService;
+    private static final String FETCH_ALL = "FETCH_ALL_PRICES";
 
-    // Bộ nhớ tạm lưu trạng thái tiến trình (jobId -> status)
-    private final Map<String, Map<String, Object>> jobStatus = new ConcurrentHashMap<>();
+    private final PriceService priceService;
+    private final JobEngine jobEngine;
 
+    // Trả về id của job mới, hoặc của job fetch-all đang chạy nếu đã có
     public String startJob() {
-        String jobId = UUID.randomUUID().toString();
-        jobStatus.put(jobId, Map.of("status", "RUNNING", "progress", 0));
-        runJobAsync(jobId);
-        return jobId;
+        return jobEngine.submit(FETCH_ALL, FETCH_ALL, this::fetchAllPrices).getId();
     }
 
-    @Async
-    public void runJobAsync(String jobId) {
-        try {
-            log.info("Async job {} started", jobId);
-            Map<String, Object> result = priceService.fetchAndSaveAllPricesFromFinnhub();
-            jobStatus.put(jobId, Map.of(
-                    "status", "DONE",
-                    "result", result
-            ));
-            log.info("Async job {} finished", jobId);
-        } catch (Exception e) {
-            jobStatus.put(jobId, Map.of("status", "FAILED", "error", e.getMessage()));
-            log.error("Async job {} failed: {}", jobId, e.getMessage());
-        }
+    public Map<String, Object> getJobStatus(String jobId) {
+        return jobEngine.find(jobId)
+                .map(Job::toStatus)
+                .orElse(Map.of("status", "NOT_FOUND"));
     }
 
-    public Map<String, Object> getJobStatus(String jobId) {
-        return jobStatus.getOrDefault(jobId, Map.of("status", "NOT_FOUND"));
+    public boolean cancelJob(String jobId) {
+        return jobEngine.cancel(jobId);
     }
-}
 
+    private Map<String, Object> fetchAllPrices(Job job) {
+        return priceService.fetchAndSaveAllPricesFromFinnhub(new PriceFetchPipeline.ChunkListener() {
+            @Override
+            public void onStart(int totalAssets) {
+                job.setTotal(totalAssets);
+            }
+
+            @Override
+            public void onChunk(List<Asset> chunk, List<String> failed) {
+                Set<String> failedSymbols = new HashSet<>(failed);
+                chunk.forEach(asset -> job.recordSymbol(asset.getSymbol(), !failedSymbols.contains(asset.getSymbol())));
+                job.checkCancelled();
+            }
+        });
+    }
+}
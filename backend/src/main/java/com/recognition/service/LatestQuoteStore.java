@@ -0,0 +1,121 @@
+package com.recognition.service;
+
+import com.recognition.dto.PriceDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ nhớ tạm toàn tiến trình lưu giá mới nhất của từng asset (assetId -> PriceDto).
+ * Các luồng ghi giá cập nhật store sau khi commit, nên luồng đọc không cần truy vấn DB sau khi đã "làm nóng".
+ */
+@Slf4j
+@Component
+public class LatestQuoteStore {
+
+    private final Map<UUID, PriceDto> quotes = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Nhận thông báo khi giá mới nhất của một asset thay đổi hoặc bị xoá khỏi store.
+     */
+    public interface Listener {
+        void onQuote(PriceDto quote);
+
+        default void onEvict(UUID assetId) {}
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<PriceDto> get(UUID assetId) {
+        PriceDto quote = quotes.get(assetId);
+        if (quote == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(quote);
+    }
+
+    // Đọc cho luồng nền (ingest), không tính vào hit/miss của luồng đọc API
+    public Optional<PriceDto> peek(UUID assetId) {
+        return Optional.ofNullable(quotes.get(assetId));
+    }
+
+    // Giá vừa được lưu: cập nhật store và báo cho listener (SSE, top movers). Chỉ gọi qua putAfterCommit khi ghi giá
+    public void put(PriceDto quote) {
+        if (fill(quote)) {
+            listeners.forEach(listener -> listener.onQuote(quote));
+        }
+    }
+
+    /**
+     * Nạp store mà không báo listener (đọc DB khi miss, giá không đổi, warm-up): không có giá mới nào được lưu.
+     * Chỉ ghi đè khi bản ghi mới hơn hoặc bằng bản ghi hiện tại (tránh luồng chậm ghi đè giá cũ); trả true nếu đã ghi.
+     */
+    public boolean fill(PriceDto quote) {
+        if (quote == null || quote.getAssetId() == null) return false;
+        PriceDto stored = quotes.merge(quote.getAssetId(), quote,
+                (current, incoming) -> isNewer(incoming, current) ? incoming : current);
+        return stored == quote;
+    }
+
+    // Cập nhật sau khi transaction commit để không lộ dữ liệu chưa commit hoặc bị rollback
+    public void putAfterCommit(PriceDto quote) {
+        AfterCommit.run(() -> put(quote));
+    }
+
+    public void evict(UUID assetId) {
+        quotes.remove(assetId);
+        listeners.forEach(listener -> listener.onEvict(assetId));
+    }
+
+    public void evictAfterCommit(UUID assetId) {
+        AfterCommit.run(() -> evict(assetId));
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return quotes.size();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hitCount();
+        long missCount = missCount();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", quotes.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private static boolean isNewer(PriceDto incoming, PriceDto current) {
+        if (current.getTimestamp() == null) return true;
+        if (incoming.getTimestamp() == null) return false;
+        return !incoming.getTimestamp().isBefore(current.getTimestamp());
+    }
+}
@@ -0,0 +1,61 @@
+package com.recognition.service;
+
+import com.recognition.config.CacheNames;
+import com.recognition.entity.Asset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Evict các cache liên quan đến giá khi có bản ghi Price mới (sau khi commit).
+ * Chỉ xoá key của asset bị ảnh hưởng; riêng top movers phụ thuộc mọi asset nên bị xoá toàn bộ.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceCacheEvictor {
+
+    // Các range hợp lệ của getStatistics, dùng để dựng key cần evict
+    private static final List<String> STATISTICS_RANGES = List.of("day", "week", "month");
+
+    private final CacheManager cacheManager;
+
+    public void evictAfterCommit(Asset asset) {
+        evictAfterCommit(List.of(asset));
+    }
+
+    // Dùng cho các luồng ghi hàng loạt: evict từng asset, top movers chỉ xoá một lần
+    public void evictAfterCommit(Collection<Asset> assets) {
+        if (assets.isEmpty()) return;
+        // Lấy key ngay trong transaction: sau commit asset có thể là proxy không còn session
+        Map<UUID, String> keys = new LinkedHashMap<>();
+        assets.forEach(asset -> keys.putIfAbsent(asset.getId(), asset.getSymbol()));
+        AfterCommit.run(() -> {
+            keys.forEach(this::evict);
+            clear(CacheNames.TOP_MOVERS);
+        });
+    }
+
+    private void evict(UUID assetId, String symbol) {
+        evict(CacheNames.LATEST_PRICE, assetId);
+        STATISTICS_RANGES.forEach(range -> evict(CacheNames.PRICE_STATISTICS, assetId + ":" + range));
+        evict(CacheNames.ASSET_OVERVIEW, assetId.toString().toUpperCase());
+        evict(CacheNames.ASSET_OVERVIEW, symbol.toUpperCase());
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) cache.evict(key);
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) cache.clear();
+    }
+}
@@ -2,8 +2,11 @@ package com.recognition.service;
 
 import com.recognition.dto.CandleDTO;
 import com.recognition.dto.PriceDto;
+import com.recognition.dto.response.CursorPageResponse;
 import com.recognition.dto.response.StatisticsDTO;
+import com.recognition.entity.Asset;
 import com.recognition.entity.Price;
+import com.recognition.service.ingest.PriceFetchPipeline;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -42,11 +45,26 @@ public interface PriceService {
 
     Page<PriceDto> getPriceHistoryPaged(UUID assetId, OffsetDateTime startDate, OffsetDateTime endDate, Pageable pageable);
 
+    /**
+     * Lịch sử giá mới nhất trước, phân trang theo cursor (timestamp, id) thay cho OFFSET/COUNT.
+     * cursor = null cho trang đầu tiên.
+     */
+    CursorPageResponse<PriceDto> getPriceHistoryByCursor(UUID assetId, OffsetDateTime startDate, OffsetDateTime endDate,
+                                                         String cursor, int size);
+
     // -------------------------
     /**
      * Lấy dữ liệu nến (candle) theo asset, interval và limit.
      */
-    List<CandleDTO> getCandles(UUID assetId, String interval, int limit);
+    default List<CandleDTO> getCandles(UUID assetId, String interval, int limit) {
+        return getCandles(assetId, interval, null, limit);
+    }
+
+    /**
+     * Lấy tối đa `limit` nến OHLCV gần nhất trong range `interval`, mỗi nến rộng `bucket` (1m, 5m, 15m, 1h, 1d).
+     * bucket = null thì dùng bucket mặc định của range.
+     */
+    List<CandleDTO> getCandles(UUID assetId, String interval, String bucket, int limit);
 
     /**
      * Tính toán thống kê giá theo range (day/week/month).
@@ -54,4 +72,16 @@ public interface PriceService {
     StatisticsDTO getStatistics(UUID assetId, String range);
 
     Map<String, Object> fetchAndSaveAllPricesFromFinnhub();
+
+    // Như trên, báo tiến độ sau mỗi nhóm asset đã ghi; listener có thể ném CancellationException để dừng
+    Map<String, Object> fetchAndSaveAllPricesFromFinnhub(PriceFetchPipeline.ChunkListener listener);
+
+    // Lấy và lưu giá cho một nhóm asset (dùng bởi scheduler ingest)
+    Map<String, Object> fetchAndSavePrices(List<Asset> assets);
+
+    // Lưu một lô giá đã có sẵn (vd. tick bar từ websocket); tự tính change_percent nếu chưa có
+    int savePrices(List<Price> records);
+
+    // Tính lại bảng rollup (1m, 1h, 1d) từ dữ liệu giá thô; assetId = null cho toàn bộ asset
+    Map<String, Object> backfillRollups(UUID assetId);
 }
@@ -0,0 +1,109 @@
+package com.recognition.service;
+
+import com.recognition.dto.PriceDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Chỉ mục giá mới nhất của từng asset, sắp xếp theo changePercent.
+ * Được cập nhật từ LatestQuoteStore nên top gainers/losers chỉ cần đọc k phần tử đầu/cuối,
+ * không phụ thuộc vào số lượng bản ghi lịch sử trong bảng prices.
+ * byAsset và ranked được đọc/ghi dưới cùng một khoá: thay một entry là bỏ bản cũ rồi thêm bản mới,
+ * nên luồng đọc không khoá có thể thấy một asset hai lần hoặc không thấy lần nào.
+ */
+@Component
+@RequiredArgsConstructor
+public class TopMoversIndex implements LatestQuoteStore.Listener {
+
+    private record Entry(BigDecimal changePercent, UUID assetId, PriceDto quote) {}
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing(Entry::changePercent)
+            .thenComparing(Entry::assetId);
+
+    private final LatestQuoteStore latestQuoteStore;
+
+    private final NavigableSet<Entry> ranked = new TreeSet<>(ORDER);
+    private final Map<UUID, Entry> byAsset = new HashMap<>();
+
+    // Chỉ trả kết quả khi đã nạp đủ giá mới nhất của mọi asset (xem PriceServiceImpl#warmLatestQuotes)
+    private volatile boolean ready;
+
+    @PostConstruct
+    void register() {
+        latestQuoteStore.addListener(this);
+    }
+
+    @Override
+    public synchronized void onQuote(PriceDto quote) {
+        Entry previous = byAsset.get(quote.getAssetId());
+        // Thông báo có thể đến lệch thứ tự khi nhiều luồng cùng ghi: giữ bản mới hơn
+        if (previous != null && isOlder(quote, previous.quote())) return;
+        if (previous != null) {
+            byAsset.remove(quote.getAssetId());
+            ranked.remove(previous);
+        }
+
+        // Giống truy vấn cũ: bỏ qua giá chưa có changePercent
+        if (quote.getChangePercent() == null) return;
+
+        Entry entry = new Entry(quote.getChangePercent(), quote.getAssetId(), quote);
+        byAsset.put(quote.getAssetId(), entry);
+        ranked.add(entry);
+    }
+
+    @Override
+    public synchronized void onEvict(UUID assetId) {
+        Entry previous = byAsset.remove(assetId);
+        if (previous != null) ranked.remove(previous);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public synchronized List<PriceDto> gainers(int limit) {
+        return take(ranked.descendingIterator(), limit);
+    }
+
+    public synchronized List<PriceDto> losers(int limit) {
+        return take(ranked.iterator(), limit);
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("size", byAsset.size());
+        return stats;
+    }
+
+    private static boolean isOlder(PriceDto incoming, PriceDto current) {
+        if (incoming.getTimestamp() == null || current.getTimestamp() == null) return false;
+        return incoming.getTimestamp().isBefore(current.getTimestamp());
+    }
+
+    private static List<PriceDto> take(Iterator<Entry> iterator, int limit) {
+        List<PriceDto> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next().quote());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.recognition.service.candle;
+
+import com.recognition.dto.CandleDTO;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Gom các tick (đã sắp xếp tăng dần theo thời gian) thành nến OHLCV trong một lượt duyệt.
+ * Chỉ giữ lại tối đa `limit` cây nến gần nhất nên bộ nhớ không phụ thuộc vào số tick.
+ */
+public class CandleAggregator {
+
+    private final CandleInterval interval;
+    private final int limit;
+    private final Deque<CandleDTO> candles;
+
+    private long bucketStart = Long.MIN_VALUE;
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private BigDecimal volume;
+
+    public CandleAggregator(CandleInterval interval, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive: " + limit);
+        this.interval = interval;
+        this.limit = limit;
+        this.candles = new ArrayDeque<>(Math.min(limit, 1024));
+    }
+
+    public void accept(OffsetDateTime timestamp, BigDecimal price, BigDecimal tickVolume) {
+        accept(timestamp, price, price, price, price, tickVolume);
+    }
+
+    // Gộp một nến con (ví dụ một dòng rollup 1 phút) vào bucket tương ứng
+    public void accept(OffsetDateTime timestamp, BigDecimal o, BigDecimal h, BigDecimal l, BigDecimal c, BigDecimal v) {
+        if (c == null) return;
+
+        long bucket = interval.bucketStart(timestamp.toEpochSecond());
+        if (bucket != bucketStart) {
+            flush();
+            bucketStart = bucket;
+            open = o;
+            high = h;
+            low = l;
+            volume = null;
+        } else {
+            if (h.compareTo(high) > 0) high = h;
+            if (l.compareTo(low) < 0) low = l;
+        }
+        close = c;
+        // Giữ nguyên phần thập phân (khối lượng từ websocket có thể lẻ)
+        if (v != null) {
+            volume = volume != null ? volume.add(v) : v;
+        }
+    }
+
+    public List<CandleDTO> finish() {
+        flush();
+        return new ArrayList<>(candles);
+    }
+
+    private void flush() {
+        if (bucketStart == Long.MIN_VALUE) return;
+
+        if (candles.size() == limit) candles.removeFirst();
+        candles.addLast(new CandleDTO(
+                CandleInterval.toDateTime(bucketStart),
+                open, high, low, close,
+                volume
+        ));
+        bucketStart = Long.MIN_VALUE;
+    }
+}
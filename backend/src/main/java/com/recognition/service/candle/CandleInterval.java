@@ -0,0 +1,66 @@
+package com.recognition.service.candle;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Độ rộng của một cây nến. Các bucket được căn theo epoch (UTC).
+ */
+public enum CandleInterval {
+
+    ONE_MINUTE("1m", 60),
+    FIVE_MINUTES("5m", 5 * 60),
+    FIFTEEN_MINUTES("15m", 15 * 60),
+    ONE_HOUR("1h", 60 * 60),
+    ONE_DAY("1d", 24 * 60 * 60);
+
+    private final String code;
+    private final long seconds;
+
+    CandleInterval(String code, long seconds) {
+        this.code = code;
+        this.seconds = seconds;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    public static CandleInterval fromCode(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equalsIgnoreCase(code)) return interval;
+        }
+        throw new IllegalArgumentException("Invalid bucket: " + code + ". Use 1m, 5m, 15m, 1h or 1d.");
+    }
+
+    // Bucket mặc định cho từng range của getCandles khi client không truyền bucket
+    public static CandleInterval defaultForRange(String range) {
+        return switch (range.toLowerCase()) {
+            case "1d", "day" -> FIFTEEN_MINUTES;
+            case "1w", "week" -> ONE_HOUR;
+            default -> ONE_DAY;
+        };
+    }
+
+    public long bucketStart(long epochSecond) {
+        return epochSecond - Math.floorMod(epochSecond, seconds);
+    }
+
+    public OffsetDateTime bucketStart(OffsetDateTime timestamp) {
+        return toDateTime(bucketStart(timestamp.toEpochSecond()));
+    }
+
+    // Thời điểm bắt đầu của bucket thứ `count` tính lùi từ bucket chứa `now` (bao gồm cả bucket hiện tại)
+    public OffsetDateTime windowStart(OffsetDateTime now, long count) {
+        return toDateTime(bucketStart(now.toEpochSecond()) - (Math.max(count, 1) - 1) * seconds);
+    }
+
+    static OffsetDateTime toDateTime(long epochSecond) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,287 @@
+package com.recognition.service.discovery;
+
+import com.recognition.client.FinnhubClient;
+import com.recognition.client.FinnhubRateLimiter.Caller;
+import com.recognition.client.SymbolListingCache;
+import com.recognition.client.dto.FinnhubMetrics;
+import com.recognition.client.dto.FinnhubQuote;
+import com.recognition.client.dto.SymbolListing;
+import com.recognition.entity.Asset;
+import com.recognition.entity.Price;
+import com.recognition.repository.AssetJdbcRepository;
+import com.recognition.repository.AssetRepository;
+import com.recognition.service.PriceService;
+import com.recognition.service.job.Job;
+import com.recognition.service.job.JobEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Tìm mã mới trên sàn và thêm vào bảng assets.
+ * Danh sách sàn (lấy từ SymbolListingCache) được so với toàn bộ symbol đã có (một truy vấn, so khớp trong bộ nhớ); mã mới được lấy
+ * báo giá + chỉ số đồng thời (tốc độ do FinnhubRateLimiter quyết định) rồi ghi theo lô: upsert asset
+ * bằng JDBC batch và giá qua PriceService#savePrices, mỗi lô một transaction.
+ */
+@Slf4j
+@Service
+public class AssetDiscoveryService {
+
+    private static final String EXCHANGE = "US";
+    private static final String DISCOVERY_JOB = "ASSET_DISCOVERY";
+    private static final int MAX_SYMBOL_LENGTH = 20;
+    private static final int MAX_NAME_LENGTH = 100;
+
+    private record Candidate(String symbol, String description, String type) {}
+
+    private record Enriched(Candidate candidate, FinnhubQuote quote, FinnhubMetrics metrics) {
+
+        String symbol() {
+            return candidate.symbol();
+        }
+    }
+
+    private final FinnhubClient finnhubClient;
+    private final SymbolListingCache symbolListingCache;
+    private final AssetRepository assetRepository;
+    private final AssetJdbcRepository assetJdbcRepository;
+    private final PriceService priceService;
+    private final JobEngine jobEngine;
+    private final TransactionTemplate batchTransaction;
+    private final int concurrency;
+    private final int batchSize;
+
+    public AssetDiscoveryService(FinnhubClient finnhubClient,
+                                 SymbolListingCache symbolListingCache,
+                                 AssetRepository assetRepository,
+                                 AssetJdbcRepository assetJdbcRepository,
+                                 PriceService priceService,
+                                 JobEngine jobEngine,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${asset.discovery.concurrency:8}") int concurrency,
+                                 @Value("${asset.discovery.batch-size:100}") int batchSize) {
+        this.finnhubClient = finnhubClient;
+        this.symbolListingCache = symbolListingCache;
+        this.assetRepository = assetRepository;
+        this.assetJdbcRepository = assetJdbcRepository;
+        this.priceService = priceService;
+        this.jobEngine = jobEngine;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Thêm tối đa limit mã mới (đồng bộ); trả về thông tin các mã đã thêm
+    public List<Map<String, Object>> discover(int limit) {
+        List<Candidate> candidates = findNewSymbols(limit);
+        if (candidates.isEmpty()) return Collections.emptyList();
+
+        List<Map<String, Object>> added = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            added.addAll(processBatch(candidates.subList(from, Math.min(from + batchSize, candidates.size()))));
+        }
+        log.info("✅ Added {} new assets to database.", added.size());
+        return added;
+    }
+
+    // Chạy nền toàn bộ danh sách sàn; chỉ một job discovery chạy tại một thời điểm
+    public String startFullDiscovery() {
+        return jobEngine.submit(DISCOVERY_JOB, DISCOVERY_JOB, this::discoverAll).getId();
+    }
+
+    public Map<String, Object> getJobStatus(String jobId) {
+        return jobEngine.find(jobId)
+                .map(Job::toStatus)
+                .orElse(Map.of("status", "NOT_FOUND"));
+    }
+
+    private Map<String, Object> discoverAll(Job job) {
+        List<Candidate> candidates = findNewSymbols(Integer.MAX_VALUE);
+        job.setTotal(candidates.size());
+
+        int added = 0;
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            job.checkCancelled();
+            List<Candidate> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+            List<Map<String, Object>> saved = processBatch(batch);
+            added += saved.size();
+
+            Set<String> savedSymbols = new HashSet<>();
+            saved.forEach(stock -> savedSymbols.add(String.valueOf(stock.get("symbol"))));
+            for (Candidate candidate : batch) {
+                job.recordSymbol(candidate.symbol(), savedSymbols.contains(candidate.symbol()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("candidates", candidates.size());
+        result.put("added", added);
+        return result;
+    }
+
+    // Mã có trên sàn nhưng chưa có trong DB, giữ thứ tự của danh sách sàn
+    private List<Candidate> findNewSymbols(int limit) {
+        SymbolListing listing = symbolListingCache.get(EXCHANGE);
+        if (listing.size() == 0) {
+            log.warn("Finnhub returned empty stock list.");
+            return Collections.emptyList();
+        }
+
+        Set<String> known = new HashSet<>(assetRepository.findAllSymbols());
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < listing.size() && candidates.size() < limit; i++) {
+            String symbol = listing.symbol(i);
+            if (symbol.length() > MAX_SYMBOL_LENGTH) continue;
+            // add() để một mã xuất hiện hai lần trong danh sách sàn không bị xử lý hai lần
+            if (known.add(symbol)) {
+                candidates.add(new Candidate(symbol, listing.description(i), listing.type(i)));
+            }
+        }
+        log.info("Discovery: {} listed symbols, {} new (limit {})", listing.size(), candidates.size(), limit);
+        return candidates;
+    }
+
+    private List<Map<String, Object>> processBatch(List<Candidate> batch) {
+        List<Enriched> enriched = enrich(batch);
+        if (enriched.isEmpty()) return Collections.emptyList();
+        List<Map<String, Object>> saved = batchTransaction.execute(status -> save(enriched));
+        return saved != null ? saved : Collections.emptyList();
+    }
+
+    // Lấy báo giá và chỉ số của các mã song song; số mã đang xử lý bị giới hạn để không dồn quá nhiều request chờ rate limiter
+    private List<Enriched> enrich(List<Candidate> batch) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<Enriched>> futures = new ArrayList<>(batch.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Candidate candidate : batch) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        var quote = finnhubClient.fetchQuoteAsync(candidate.symbol(), Caller.BACKGROUND);
+                        var metrics = finnhubClient.fetchStockMetricsAsync(candidate.symbol(), Caller.BACKGROUND);
+                        return new Enriched(candidate, quote.join(), metrics.join());
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        List<Enriched> result = new ArrayList<>(batch.size());
+        for (Future<Enriched> future : futures) {
+            try {
+                Enriched item = future.get();
+                if (item.quote() != null) {
+                    result.add(item);
+                } else {
+                    log.warn("No valid price returned for {}", item.symbol());
+                }
+            } catch (Exception e) {
+                log.warn("Error enriching new stock: {}", e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> save(List<Enriched> enriched) {
+        List<Asset> assets = new ArrayList<>(enriched.size());
+        for (Enriched item : enriched) {
+            assets.add(toAsset(item));
+        }
+        assetJdbcRepository.batchUpsert(assets);
+
+        Map<String, Asset> bySymbol = new HashMap<>();
+        for (Asset asset : assetRepository.findBySymbolIn(enriched.stream().map(Enriched::symbol).toList())) {
+            bySymbol.put(asset.getSymbol(), asset);
+        }
+
+        List<Price> prices = new ArrayList<>();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Enriched item : enriched) {
+            Asset asset = bySymbol.get(item.symbol());
+            if (asset == null) continue;
+            FinnhubQuote quote = item.quote();
+
+            // Thời điểm báo giá của Finnhub; bỏ qua giá nếu không có (asset vẫn được thêm)
+            OffsetDateTime timestamp = quote.quotedAt();
+            if (timestamp != null) {
+                prices.add(Price.builder()
+                        .asset(asset)
+                        .price(quote.current())
+                        .high24h(quote.high())
+                        .low24h(quote.low())
+                        .dayVolume(quote.volume())
+                        .timestamp(timestamp)
+                        .source("Finnhub")
+                        .build());
+            } else {
+                log.warn("Skipping invalid timestamp (0) for {}", item.symbol());
+            }
+
+            Map<String, Object> stock = new LinkedHashMap<>();
+            stock.put("symbol", item.symbol());
+            stock.put("description", item.candidate().description());
+            stock.put("type", item.candidate().type());
+            stock.put("assetId", asset.getId());
+            stock.put("price", quote.current());
+            stock.put("high24h", quote.high());
+            stock.put("low24h", quote.low());
+            stock.put("timestamp", timestamp != null ? timestamp.toString() : null);
+            stock.put("marketCap", asset.getMarketCap());
+            stock.put("volume", asset.getVolume());
+            stock.put("pe", asset.getPeRatio());
+            stock.put("pb", asset.getPbRatio());
+            result.add(stock);
+        }
+
+        // Trùng khoá asset/timestamp/source được bỏ qua bởi ON CONFLICT
+        priceService.savePrices(prices);
+        return result;
+    }
+
+    private Asset toAsset(Enriched item) {
+        String name = item.candidate().description();
+        if (name == null || name.isBlank()) name = item.symbol();
+
+        Asset asset = Asset.builder()
+                .symbol(item.symbol())
+                .name(name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name)
+                .description(item.candidate().type())
+                .isActive(true)
+                .build();
+
+        FinnhubMetrics metrics = item.metrics();
+        if (metrics != null && !metrics.isEmpty()) {
+            asset.setMarketCap(fit(metrics.marketCapitalization(), 20, 2));
+            asset.setVolume(fit(metrics.volume(), 20, 2));
+            asset.setSharesOutstanding(fit(metrics.shareOutstanding(), 20, 2));
+            asset.setPeRatio(fit(metrics.peNormalizedAnnual(), 10, 4));
+            asset.setPbRatio(fit(metrics.pbAnnual(), 10, 4));
+            asset.setEvToEbitda(fit(metrics.evToEbitdaAnnual(), 10, 4));
+            asset.setEps(fit(metrics.epsAnnual(), 10, 4));
+            asset.setBookValue(fit(metrics.bookValuePerShareAnnual(), 10, 4));
+        }
+        return asset;
+    }
+
+    // Làm tròn theo scale của cột; giá trị vượt precision bị bỏ (null) thay vì làm hỏng cả lô upsert
+    private static BigDecimal fit(BigDecimal value, int precision, int scale) {
+        if (value == null) return null;
+        BigDecimal decimal = value.setScale(scale, RoundingMode.HALF_UP);
+        return decimal.precision() - decimal.scale() > precision - scale ? null : decimal;
+    }
+}
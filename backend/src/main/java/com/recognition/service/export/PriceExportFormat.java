@@ -0,0 +1,34 @@
+package com.recognition.service.export;
+
+import java.util.Arrays;
+
+/**
+ * Định dạng xuất lịch sử giá.
+ */
+public enum PriceExportFormat {
+    CSV("csv", "text/csv"),
+    NDJSON("ndjson", "application/x-ndjson");
+
+    private final String code;
+    private final String contentType;
+
+    PriceExportFormat(String code, String contentType) {
+        this.code = code;
+        this.contentType = contentType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static PriceExportFormat fromCode(String code) {
+        return Arrays.stream(values())
+                .filter(format -> format.code.equalsIgnoreCase(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Invalid format: " + code + ". Use 'csv' or 'ndjson'."));
+    }
+}
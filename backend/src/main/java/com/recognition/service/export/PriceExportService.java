@@ -0,0 +1,180 @@
+package com.recognition.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.exception.ResourceNotFoundException;
+import com.recognition.repository.AssetRepository;
+import com.recognition.repository.PriceJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Xuất toàn bộ lịch sử giá của một asset ra CSV hoặc NDJSON với bộ nhớ cố định.
+ * Dữ liệu đi thẳng từ cursor JDBC xuống output stream; khi client đọc chậm, lệnh ghi bị chặn
+ * và cursor cũng dừng lấy thêm dòng (back-pressure tự nhiên, không có hàng đợi trung gian).
+ * Mỗi export giữ một connection DB suốt quá trình stream nên số export đồng thời bị giới hạn.
+ */
+@Slf4j
+@Service
+public class PriceExportService {
+
+    private static final String CSV_HEADER = "timestamp,price,volume,change_percent,high_24h,low_24h,market_cap,source\n";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final PriceJdbcRepository priceJdbcRepository;
+    private final AssetRepository assetRepository;
+    private final JsonFactory jsonFactory;
+    private final int fetchSize;
+    private final Semaphore slots;
+
+    public PriceExportService(PriceJdbcRepository priceJdbcRepository,
+                              AssetRepository assetRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${price.export.fetch-size:1000}") int fetchSize,
+                              @Value("${price.export.max-concurrent:4}") int maxConcurrent) {
+        this.priceJdbcRepository = priceJdbcRepository;
+        this.assetRepository = assetRepository;
+        this.jsonFactory = objectMapper.getFactory();
+        this.fetchSize = fetchSize;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    // false nếu đã đủ số export đồng thời; caller phải gọi releaseSlot đúng một lần khi export kết thúc
+    public boolean tryAcquireSlot() {
+        return slots.tryAcquire();
+    }
+
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    // Gọi trước khi mở response để lỗi 404 không xảy ra giữa chừng luồng dữ liệu
+    public void checkAssetExists(UUID assetId) {
+        if (!assetRepository.existsById(assetId)) {
+            throw new ResourceNotFoundException("Asset not found with ID: " + assetId);
+        }
+    }
+
+    // Trả về số dòng đã ghi; output stream do caller quản lý (không bị đóng ở đây)
+    @Transactional(readOnly = true)
+    public long export(UUID assetId, OffsetDateTime start, OffsetDateTime end,
+                       PriceExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        long startNanos = System.nanoTime();
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut != null ? gzipOut : out,
+                StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+        long rows = switch (format) {
+            case CSV -> exportCsv(assetId, start, end, writer);
+            case NDJSON -> exportNdjson(assetId, start, end, writer);
+        };
+        writer.flush();
+        if (gzipOut != null) gzipOut.finish();
+
+        log.info("Exported {} prices for asset {} as {} in {} ms",
+                rows, assetId, format.getCode(), (System.nanoTime() - startNanos) / 1_000_000);
+        return rows;
+    }
+
+    private long exportCsv(UUID assetId, OffsetDateTime start, OffsetDateTime end, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        long[] rows = {0};
+        priceJdbcRepository.streamByAssetAndRange(assetId, start, end, fetchSize, rs -> {
+            try {
+                writer.write(rs.getObject(1, OffsetDateTime.class).toString());
+                writer.write(',');
+                writeNumber(writer, rs.getBigDecimal(2));
+                writer.write(',');
+                writeNumber(writer, rs.getBigDecimal(3));
+                writer.write(',');
+                writeNumber(writer, rs.getBigDecimal(4));
+                writer.write(',');
+                writeNumber(writer, rs.getBigDecimal(5));
+                writer.write(',');
+                writeNumber(writer, rs.getBigDecimal(6));
+                writer.write(',');
+                writeNumber(writer, rs.getBigDecimal(7));
+                writer.write(',');
+                writeCsvText(writer, rs.getString(8));
+                writer.write('\n');
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows[0];
+    }
+
+    private long exportNdjson(UUID assetId, OffsetDateTime start, OffsetDateTime end, Writer writer) throws IOException {
+        long[] rows = {0};
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            // Writer thuộc về caller, generator không được đóng nó
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+            priceJdbcRepository.streamByAssetAndRange(assetId, start, end, fetchSize, rs -> {
+                try {
+                    writeJsonRow(generator, rs);
+                    generator.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return rows[0];
+    }
+
+    private static void writeJsonRow(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeStringField("timestamp", rs.getObject(1, OffsetDateTime.class).toString());
+        writeNumberField(generator, "price", rs.getBigDecimal(2));
+        writeNumberField(generator, "volume", rs.getBigDecimal(3));
+        writeNumberField(generator, "changePercent", rs.getBigDecimal(4));
+        writeNumberField(generator, "high24h", rs.getBigDecimal(5));
+        writeNumberField(generator, "low24h", rs.getBigDecimal(6));
+        writeNumberField(generator, "marketCap", rs.getBigDecimal(7));
+        generator.writeStringField("source", rs.getString(8));
+        generator.writeEndObject();
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeNumber(Writer writer, BigDecimal value) throws IOException {
+        if (value != null) writer.write(value.toPlainString());
+    }
+
+    private static void writeCsvText(Writer writer, String value) throws IOException {
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -1,43 +1,89 @@
 package com.recognition.service.impl;
 
 import com.recognition.client.FinnhubClient;
+import com.recognition.client.dto.FinnhubQuote;
+import com.recognition.config.CacheNames;
 import com.recognition.dto.CandleDTO;
+import com.recognition.dto.PriceCursor;
 import com.recognition.dto.PriceDto;
+import com.recognition.dto.PriceTick;
+import com.recognition.dto.response.CursorPageResponse;
 import com.recognition.dto.response.StatisticsDTO;
 import com.recognition.entity.Asset;
 import com.recognition.entity.Price;
+import com.recognition.entity.PriceRollup;
 import com.recognition.exception.ResourceNotFoundException;
 import com.recognition.repository.AssetRepository;
+import com.recognition.repository.PriceJdbcRepository;
 import com.recognition.repository.PriceRepository;
+import com.recognition.repository.PriceStatisticsView;
+import com.recognition.service.LatestQuoteStore;
+import com.recognition.service.PriceCacheEvictor;
 import com.recognition.service.PriceService;
+import com.recognition.service.TopMoversIndex;
+import com.recognition.service.candle.CandleAggregator;
+import com.recognition.service.candle.CandleInterval;
+import com.recognition.service.ingest.PriceFetchPipeline;
+import com.recognition.service.price.PriceChange;
+import com.recognition.service.rollup.PriceRollupService;
+import com.recognition.service.rollup.RollupResolution;
+import com.recognition.service.stats.PriceStatsAccumulator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import java.util.*;
 
+// Timer price.service cho từng phương thức public (tag class/method/exception)
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "price.service", description = "PriceServiceImpl method latency")
 @Transactional(readOnly = true)
 public class PriceServiceImpl implements PriceService {
 
     private final PriceRepository priceRepository;
+    private final PriceJdbcRepository priceJdbcRepository;
     private final AssetRepository assetRepository;
     private final FinnhubClient finnhubClient;
+    private final LatestQuoteStore latestQuoteStore;
+    private final PriceCacheEvictor priceCacheEvictor;
+    private final PriceRollupService priceRollupService;
+    private final TopMoversIndex topMoversIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${price.top-movers.in-memory:true}")
+    private boolean topMoversInMemory;
+
+    @Value("${price.fetch-all.chunk-size:50}")
+    private int fetchAllChunkSize;
+
+    @Value("${price.fetch-all.max-in-flight-chunks:4}")
+    private int fetchAllMaxInFlight;
 
     @Override
     public Page<Price> getPriceHistory(UUID assetId, OffsetDateTime startDate,
@@ -57,9 +103,10 @@ public class PriceServiceImpl implements PriceService {
     }
 
     @Override
-    @Cacheable(value = "latestPrice", key = "#assetId")
+    @Cacheable(value = CacheNames.LATEST_PRICE, key = "#assetId")
     public Price getLatestPrice(UUID assetId) {
-        return priceRepository.findTopByAssetIdOrderByTimestampDesc(assetId)
+        // Nạp sẵn asset để entity vẫn dùng được sau khi được cache (không còn session)
+        return priceRepository.findFirstByAssetIdOrderByTimestampDesc(assetId)
                 .orElseThrow(() -> new ResourceNotFoundException("No price data found for asset: " + assetId));
     }
 
@@ -73,7 +120,11 @@ public class PriceServiceImpl implements PriceService {
         price.setAsset(asset);
         price.setPrice(priceValue);
         price.setTimestamp(OffsetDateTime.now());
-        return priceRepository.save(price);
+        Price saved = priceRepository.save(price);
+        priceRollupService.record(saved);
+        latestQuoteStore.putAfterCommit(mapToDto(saved));
+        priceCacheEvictor.evictAfterCommit(asset);
+        return saved;
     }
 
     @Override
@@ -83,11 +134,8 @@ public class PriceServiceImpl implements PriceService {
                 .orElseThrow(() -> new ResourceNotFoundException("No price data found"));
         Price past = priceRepository.findTopByAssetIdAndTimestampBeforeOrderByTimestampDesc(assetId, cutoffTime)
                 .orElse(current);
-        if (past.getPrice().compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
-        return current.getPrice()
-                .subtract(past.getPrice())
-                .divide(past.getPrice(), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        BigDecimal change = PriceChange.percent(current.getPrice(), past.getPrice());
+        return change != null ? change : BigDecimal.ZERO;
     }
 
     @Override
@@ -96,11 +144,14 @@ public class PriceServiceImpl implements PriceService {
         Asset asset = assetRepository.findById(assetId)
                 .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetId));
 
+        // Một lần gọi /quote cho cả giá, cao/thấp trong ngày và khối lượng
+        FinnhubQuote quote = null;
         BigDecimal priceValue;
         String source;
 
         try {
-            priceValue = fetchPriceFromFinnhub(asset.getSymbol());
+            quote = fetchQuoteFromFinnhub(asset.getSymbol());
+            priceValue = quote.current();
             source = "finnhub-api";
         } catch (Exception e) {
             log.warn("Finnhub fetch failed for {} — using last known price", asset.getSymbol());
@@ -110,34 +161,22 @@ public class PriceServiceImpl implements PriceService {
             source = lastPrice.getSource();
         }
 
-        // 🔹 Lấy khối lượng giao dịch (volume)
-        BigDecimal volume = null;
-        try {
-            volume = finnhubClient.fetchQuoteVolume(asset.getSymbol());
-        } catch (Exception e) {
-            log.warn("Unable to fetch volume for {}: {}", asset.getSymbol(), e.getMessage());
-        }
-
-        BigDecimal volumeValue = (volume != null) ? volume : null;
-
         // Lấy giá trước đó
         Price previousPrice = priceRepository.findTopByAssetOrderByTimestampDesc(asset).orElse(null);
 
-        BigDecimal changePercent = null;
-        if (previousPrice != null && previousPrice.getPrice() != null
-                && previousPrice.getPrice().compareTo(BigDecimal.ZERO) != 0
-                && priceValue != null) {
-            BigDecimal diff = priceValue.subtract(previousPrice.getPrice());
-            changePercent = diff
-                    .divide(previousPrice.getPrice(), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
+        BigDecimal changePercent = previousPrice != null
+                ? PriceChange.percent(priceValue, previousPrice.getPrice())
+                : null;
+        if (changePercent != null) {
             log.info("Change for {}: {} -> {} = {}%", asset.getSymbol(), previousPrice.getPrice(), priceValue, changePercent);
         }
 
         // Bỏ qua nếu giá trùng nhau (tránh spam record)
         if (previousPrice != null && previousPrice.getPrice().compareTo(priceValue) == 0) {
             log.info("⏸ No price change for {}, skipping insert.", asset.getSymbol());
-            return mapToDto(previousPrice);
+            PriceDto unchanged = mapToDto(previousPrice);
+            latestQuoteStore.fill(unchanged);
+            return unchanged;
         }
 
         // Lưu bản ghi giá mới
@@ -147,18 +186,30 @@ public class PriceServiceImpl implements PriceService {
                 .timestamp(OffsetDateTime.now())
                 .source(source)
                 .changePercent(changePercent)
-                .volume(volumeValue)
+                .high24h(quote != null ? quote.high() : null)
+                .low24h(quote != null ? quote.low() : null)
+                .dayVolume(quote != null ? quote.volume() : null)
                 .build();
 
         Price saved = priceRepository.save(price);
-        return mapToDto(saved);
+        priceRollupService.record(saved);
+        PriceDto dto = mapToDto(saved);
+        latestQuoteStore.putAfterCommit(dto);
+        priceCacheEvictor.evictAfterCommit(asset);
+        return dto;
     }
 
     @Override
     public PriceDto getLatestPriceDto(UUID assetId) {
-        Price price = priceRepository.findTopByAssetIdOrderByTimestampDesc(assetId)
+        Optional<PriceDto> cached = latestQuoteStore.get(assetId);
+        if (cached.isPresent()) return cached.get();
+
+        // Cache miss: một truy vấn duy nhất (giá + asset), sau đó nạp vào store
+        Price price = priceRepository.findFirstByAssetIdOrderByTimestampDesc(assetId)
                 .orElseThrow(() -> new ResourceNotFoundException("Price not found"));
-        return mapToDto(price);
+        PriceDto dto = mapToDto(price);
+        latestQuoteStore.fill(dto);
+        return dto;
     }
 
     @Override
@@ -172,7 +223,11 @@ public class PriceServiceImpl implements PriceService {
         price.setAsset(assetRepository.findById(assetId)
                 .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetId)));
         price.setTimestamp(OffsetDateTime.now());
-        return priceRepository.save(price);
+        Price saved = priceRepository.save(price);
+        priceRollupService.record(saved);
+        latestQuoteStore.putAfterCommit(mapToDto(saved));
+        priceCacheEvictor.evictAfterCommit(saved.getAsset());
+        return saved;
     }
 
     @Override
@@ -210,9 +265,37 @@ public class PriceServiceImpl implements PriceService {
     }
 
     @Override
-    public List<CandleDTO> getCandles(UUID assetId, String interval, int limit) {
-        Asset asset = assetRepository.findById(assetId)
-                .orElseThrow(() -> new NoSuchElementException("Asset not found"));
+    public CursorPageResponse<PriceDto> getPriceHistoryByCursor(UUID assetId, OffsetDateTime startDate,
+                                                                OffsetDateTime endDate, String cursor, int size) {
+        if (!assetRepository.existsById(assetId)) {
+            throw new ResourceNotFoundException("Asset not found with ID: " + assetId);
+        }
+
+        OffsetDateTime start = startDate != null ? startDate : Instant.EPOCH.atOffset(ZoneOffset.UTC);
+        OffsetDateTime end = endDate != null ? endDate : OffsetDateTime.now(ZoneOffset.UTC);
+        PriceCursor position = cursor != null ? PriceCursor.decode(cursor) : PriceCursor.first(end);
+
+        // Lấy dư 1 bản ghi để biết còn trang sau mà không cần COUNT
+        List<Price> rows = priceRepository.findPageBefore(assetId, start, position.timestamp(), position.id(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<Price> page = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Price last = page.get(page.size() - 1);
+            nextCursor = new PriceCursor(last.getTimestamp(), last.getId()).encode();
+        }
+
+        List<PriceDto> content = page.stream().map(this::mapToDto).toList();
+        return new CursorPageResponse<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    @Override
+    public List<CandleDTO> getCandles(UUID assetId, String interval, String bucket, int limit) {
+        if (!assetRepository.existsById(assetId)) {
+            throw new NoSuchElementException("Asset not found");
+        }
+        if (limit <= 0) return Collections.emptyList();
 
         OffsetDateTime now = OffsetDateTime.now();
         OffsetDateTime start;
@@ -227,32 +310,77 @@ public class PriceServiceImpl implements PriceService {
             default -> throw new IllegalArgumentException("Invalid interval: " + interval);
         }
 
-        List<Price> prices = "all".equalsIgnoreCase(interval)
-                ? priceRepository.findByAssetIdOrderByTimestampAsc(assetId)
-                : priceRepository.findByAssetAndTimestampBetweenOrderByTimestampAsc(assetId, start, now);
-
-        if (prices.isEmpty()) return Collections.emptyList();
-
-        List<Price> limited = prices.size() > limit
-                ? prices.subList(prices.size() - limit, prices.size())
-                : prices;
-
-        return limited.stream()
-                .map(p -> new CandleDTO(
-                        p.getTimestamp(),
-                        p.getPrice(), // open
-                        p.getPrice(), // high
-                        p.getPrice(), // low
-                        p.getPrice(), // close
-                        p.getVolume() != null ? p.getVolume().longValue() : null // convert BigDecimal -> Long
-                ))
-                .collect(Collectors.toList());
+        CandleInterval candleInterval = bucket == null || bucket.isBlank()
+                ? CandleInterval.defaultForRange(interval)
+                : CandleInterval.fromCode(bucket);
+
+        // `limit` = số nến gần nhất có dữ liệu. Cửa sổ đọc tính lùi từ tick mới nhất (không phải now) để ngoài giờ
+        // giao dịch/cuối tuần vẫn có nến; nếu chưa đủ `limit` nến vì có khoảng trống thì mở rộng cửa sổ và đọc lại
+        Optional<Price> latest = priceRepository.findTopByAssetIdOrderByTimestampDesc(assetId);
+        if (latest.isEmpty() || latest.get().getTimestamp().isBefore(start)) return Collections.emptyList();
+        OffsetDateTime anchor = latest.get().getTimestamp();
+
+        OffsetDateTime windowStart = candleInterval.windowStart(anchor, limit);
+        if (windowStart.isAfter(start)) {
+            List<CandleDTO> candles = aggregateCandles(assetId, candleInterval, limit, windowStart, now);
+            if (candles.size() >= limit) return candles;
+
+            // Không lùi quá tick đầu tiên, nếu không cửa sổ của range "all" sẽ mở rộng mãi
+            OffsetDateTime first = priceRepository.findFirstByAssetIdOrderByTimestampAsc(assetId)
+                    .map(Price::getTimestamp)
+                    .orElse(start);
+            if (first.isAfter(start)) start = first;
+
+            for (long span = (long) limit * 4; ; span *= 4) {
+                windowStart = candleInterval.windowStart(anchor, span);
+                if (!windowStart.isAfter(start)) break;
+                candles = aggregateCandles(assetId, candleInterval, limit, windowStart, now);
+                if (candles.size() >= limit) return candles;
+            }
+        }
+        return aggregateCandles(assetId, candleInterval, limit, start, now);
+    }
+
+    private List<CandleDTO> aggregateCandles(UUID assetId, CandleInterval candleInterval, int limit,
+                                             OffsetDateTime start, OffsetDateTime end) {
+        CandleAggregator aggregator = new CandleAggregator(candleInterval, limit);
+
+        // Đọc từ rollup thô nhất phù hợp (chi phí O(số bucket) thay vì O(số tick)), nhưng chỉ từ watermark trở đi;
+        // phần trước đó (chưa backfill hoặc bucket bị start cắt ngang) đọc từ tick
+        RollupResolution resolution = RollupResolution.coarsestFor(candleInterval);
+        OffsetDateTime rollupStart = rollupStart(assetId, resolution, start);
+        boolean useRollups = rollupStart != null && !rollupStart.isAfter(end);
+        OffsetDateTime ticksEnd = useRollups ? rollupStart.minusNanos(1_000) : end;
+
+        if (ticksEnd.isAfter(start)) {
+            try (Stream<PriceTick> ticks = priceRepository.streamTicks(assetId, start, ticksEnd)) {
+                ticks.forEach(tick -> aggregator.accept(tick.timestamp(), tick.price(), tick.volume()));
+            }
+        }
+        if (useRollups) {
+            for (PriceRollup rollup : priceRollupService.find(assetId, resolution, rollupStart, end)) {
+                aggregator.accept(rollup.getBucketStart(), rollup.getOpenPrice(), rollup.getHighPrice(),
+                        rollup.getLowPrice(), rollup.getClosePrice(), rollup.getVolume());
+            }
+        }
+        return aggregator.finish();
+    }
+
+    // Bucket rollup đầu tiên dùng được cho cửa sổ bắt đầu tại start: không sớm hơn watermark và không bị start cắt ngang.
+    // null nếu asset chưa có watermark ở độ phân giải này (chỉ đọc được từ tick)
+    private OffsetDateTime rollupStart(UUID assetId, RollupResolution resolution, OffsetDateTime start) {
+        OffsetDateTime firstBucket = resolution.firstBucketAtOrAfter(start);
+        return priceRollupService.coveredFrom(assetId, resolution)
+                .map(coveredFrom -> coveredFrom.isAfter(firstBucket) ? coveredFrom : firstBucket)
+                .orElse(null);
     }
 
     @Override
+    @Cacheable(value = CacheNames.PRICE_STATISTICS, key = "#assetId + ':' + #range")
     public StatisticsDTO getStatistics(UUID assetId, String range) {
-        Asset asset = assetRepository.findById(assetId)
-                .orElseThrow(() -> new NoSuchElementException("Asset not found"));
+        if (!assetRepository.existsById(assetId)) {
+            throw new NoSuchElementException("Asset not found");
+        }
 
         var now = OffsetDateTime.now();
         var start = switch (range) {
@@ -262,17 +390,64 @@ public class PriceServiceImpl implements PriceService {
             default -> throw new IllegalArgumentException("Invalid range: " + range);
         };
 
-        List<Price> prices = priceRepository.findByAssetAndRange(assetId, start, now);
-        if (prices.isEmpty()) return new StatisticsDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, start, now);
+        // Đọc từ rollup khi watermark phủ cả cửa sổ (trừ bucket đầu bị start cắt ngang, phần đó đọc từ tick).
+        // Rollup cũ chưa có price_sq_sum thì đi đường SQL cho tới khi backfill lại.
+        RollupResolution resolution = RollupResolution.forStatisticsRange(range);
+        OffsetDateTime rollupStart = rollupStart(assetId, resolution, start);
+        if (rollupStart != null && rollupStart.equals(resolution.firstBucketAtOrAfter(start))) {
+            List<PriceRollup> rollups = priceRollupService.find(assetId, resolution, rollupStart, now);
+            if (rollups.stream().allMatch(r -> r.getPriceSqSum() != null)) {
+                PriceStatsAccumulator accumulator = new PriceStatsAccumulator();
+                if (rollupStart.isAfter(start)) {
+                    try (Stream<PriceTick> ticks = priceRepository.streamTicks(assetId, start, rollupStart.minusNanos(1_000))) {
+                        ticks.forEach(tick -> accumulator.accept(tick.price(), tick.volume()));
+                    }
+                }
+                for (PriceRollup rollup : rollups) {
+                    accumulator.merge(
+                            rollup.getTickCount(),
+                            rollup.getPriceSum(),
+                            rollup.getPriceSqSum(),
+                            rollup.getLowPrice(), rollup.getHighPrice(),
+                            rollup.getOpenPrice(), rollup.getClosePrice(),
+                            rollup.getPriceVolumeSum() != null ? rollup.getPriceVolumeSum().doubleValue() : 0.0,
+                            rollup.getPriceVolumeSum() != null && rollup.getVolume() != null ? rollup.getVolume().doubleValue() : 0.0
+                    );
+                }
+                return accumulator.toStatistics(start, now);
+            }
+        }
+
+        // Tổng hợp trong database, không tải từng bản ghi giá về ứng dụng
+        PriceStatisticsView stats = priceRepository.aggregateStatistics(assetId, start, now);
+        if (stats == null || stats.getCount() == null || stats.getCount() == 0) {
+            return new StatisticsDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, start, now);
+        }
 
-        var min = prices.stream().map(Price::getPrice).min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-        var max = prices.stream().map(Price::getPrice).max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-        var avg = prices.stream()
-                .map(Price::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .divide(BigDecimal.valueOf(prices.size()), BigDecimal.ROUND_HALF_UP);
+        return new StatisticsDTO(
+                stats.getMinPrice(),
+                stats.getMaxPrice(),
+                scaled(stats.getAvgPrice()),
+                start,
+                now,
+                stats.getCount(),
+                scaled(stats.getStdDevPrice()),
+                scaled(stats.getVwap()),
+                stats.getFirstPrice(),
+                stats.getLastPrice()
+        );
+    }
 
-        return new StatisticsDTO(min, max, avg, start, now);
+    private static BigDecimal scaled(BigDecimal value) {
+        return value != null ? value.setScale(8, RoundingMode.HALF_UP) : null;
+    }
+
+    @Override
+    public Map<String, Object> backfillRollups(UUID assetId) {
+        if (assetId != null && !assetRepository.existsById(assetId)) {
+            throw new ResourceNotFoundException("Asset not found: " + assetId);
+        }
+        return priceRollupService.backfill(assetId);
     }
 
     private PriceDto mapToDto(Price price) {
@@ -283,7 +458,7 @@ public class PriceServiceImpl implements PriceService {
         dto.setAssetSymbol(price.getAsset().getSymbol());
         dto.setPrice(price.getPrice());
         dto.setTimestamp(price.getTimestamp());
-        dto.setVolume(price.getVolume());
+        dto.setVolume(price.displayVolume());
         dto.setChangePercent(price.getChangePercent());
         dto.setHigh24h(price.getHigh24h());
         dto.setLow24h(price.getLow24h());
@@ -292,87 +467,214 @@ public class PriceServiceImpl implements PriceService {
         return dto;
     }
 
-    private BigDecimal fetchPriceFromFinnhub(String symbol) {
-        BigDecimal price = finnhubClient.fetchPrice(symbol);
-        if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
+    private FinnhubQuote fetchQuoteFromFinnhub(String symbol) {
+        FinnhubQuote quote = finnhubClient.fetchQuote(symbol);
+        if (quote == null || !quote.hasPrice()) {
             throw new RuntimeException("FinnhubClient returned invalid or null price for " + symbol);
         }
-        return price;
+        return quote;
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> fetchAndSaveAllPricesFromFinnhub() {
+        return fetchAndSaveAllPricesFromFinnhub(null);
+    }
+
+    // Không chạy trong transaction chung: mỗi nhóm asset được ghi trong transaction riêng ngay khi có báo giá
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> fetchAndSaveAllPricesFromFinnhub(PriceFetchPipeline.ChunkListener listener) {
+        long startedAt = System.nanoTime();
         List<Asset> assets = assetRepository.findByIsActiveTrue();
-        List<String> symbols = assets.stream().map(Asset::getSymbol).toList();
+        long loadedAt = System.nanoTime();
+
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        PriceFetchPipeline pipeline = new PriceFetchPipeline(
+                finnhubClient::fetchAllQuotesAsync,
+                (chunk, quotes, failed) -> chunkTransaction.execute(status ->
+                        persistQuotes(chunk, quotes, failed, new LinkedHashMap<>())),
+                fetchAllChunkSize,
+                fetchAllMaxInFlight);
+        PriceFetchPipeline.Result result = pipeline.run(assets, listener);
 
-        // Gọi 1 lần duy nhất để lấy toàn bộ giá
-        Map<String, BigDecimal> prices = finnhubClient.fetchAllPrices(symbols);
+        Map<String, Object> timings = new LinkedHashMap<>();
+        timings.put("loadAssetsMs", elapsedMs(startedAt, loadedAt));
+        timings.put("fetchWaitMs", result.fetchWaitMs());
+        timings.put("writeMs", result.writeMs());
+        timings.put("totalMs", elapsedMs(startedAt, System.nanoTime()));
 
-        int updated = 0;
+        log.info("fetchAndSaveAllPricesFromFinnhub: {} assets in {} chunks, {} saved, {} failed, timings {}",
+                assets.size(), result.chunks(), result.updated(), result.failed().size(), timings);
+
+        return Map.of(
+                "message", "Fetched all prices in " + result.chunks() + " chunks",
+                "totalAssets", assets.size(),
+                "updated", result.updated(),
+                "failed", result.failed(),
+                "timings", timings
+        );
+    }
+
+    // Gọi Finnhub ngoài transaction (không giữ connection DB khi chờ mạng), rồi ghi trong transaction riêng
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> fetchAndSavePrices(List<Asset> assets) {
+        Map<String, Object> timings = new LinkedHashMap<>();
         List<String> failed = new ArrayList<>();
+        int updated = ingestQuotes(assets, failed, timings);
 
-        for (Asset asset : assets) {
-            try {
-                BigDecimal price = prices.get(asset.getSymbol());
-                if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
-                    failed.add(asset.getSymbol());
-                    continue;
-                }
+        return Map.of(
+                "totalAssets", assets.size(),
+                "updated", updated,
+                "failed", failed,
+                "timings", timings
+        );
+    }
 
-                OffsetDateTime timestamp = OffsetDateTime.now();
-
-                // Tính phần trăm thay đổi
-                BigDecimal changePercent = null;
-                var prevOpt = priceRepository.findTopByAssetOrderByTimestampDesc(asset);
-                if (prevOpt.isPresent()) {
-                    BigDecimal prev = prevOpt.get().getPrice();
-                    if (prev != null && prev.compareTo(BigDecimal.ZERO) != 0) {
-                        BigDecimal diff = price.subtract(prev);
-                        changePercent = diff.divide(prev, 4, RoundingMode.HALF_UP)
-                                .multiply(BigDecimal.valueOf(100));
-                    }
-                }
+    // Lấy báo giá của các asset rồi ghi trong một transaction mới; trả về số bản ghi đã ghi
+    private int ingestQuotes(List<Asset> assets, List<String> failed, Map<String, Object> timings) {
+        if (assets.isEmpty()) return 0;
+        long startedAt = System.nanoTime();
+        List<String> symbols = assets.stream().map(Asset::getSymbol).toList();
 
-                // Lưu giá mới
-                Price record = Price.builder()
-                        .asset(asset)
-                        .price(price)
-                        .timestamp(timestamp)
-                        .source("Finnhub")
-                        .changePercent(changePercent)
-                        .build();
+        // Gọi 1 lần duy nhất để lấy toàn bộ báo giá
+        Map<String, FinnhubQuote> quotes = finnhubClient.fetchAllQuotes(symbols);
+        timings.put("fetchMs", elapsedMs(startedAt, System.nanoTime()));
+
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Integer updated = writeTransaction.execute(status -> persistQuotes(assets, quotes, failed, timings));
+        return updated != null ? updated : 0;
+    }
 
-                priceRepository.save(record);
-                updated++;
+    // Tính changePercent theo giá trước đó và ghi báo giá bằng JDBC batch trong transaction hiện tại
+    private int persistQuotes(List<Asset> assets, Map<String, FinnhubQuote> quotes,
+                              List<String> failed, Map<String, Object> timings) {
+        long startedAt = System.nanoTime();
 
-            } catch (Exception e) {
-                log.warn("Failed to save price for {}: {}", asset.getSymbol(), e.getMessage());
+        // Giá trước đó của toàn bộ asset trong 1 truy vấn (thay vì 1 truy vấn / asset)
+        Map<UUID, BigDecimal> previousPrices = loadPreviousPrices(assets.stream().map(Asset::getId).toList());
+        long previousLoadedAt = System.nanoTime();
+
+        OffsetDateTime timestamp = OffsetDateTime.now();
+        List<Price> records = new ArrayList<>(assets.size());
+
+        for (Asset asset : assets) {
+            FinnhubQuote quote = quotes.get(asset.getSymbol());
+            if (quote == null || !quote.hasPrice()) {
                 failed.add(asset.getSymbol());
+                continue;
             }
+            BigDecimal price = quote.current();
+
+            records.add(Price.builder()
+                    .asset(asset)
+                    .price(price)
+                    .timestamp(timestamp)
+                    .source("Finnhub")
+                    .changePercent(PriceChange.percent(price, previousPrices.get(asset.getId())))
+                    .high24h(quote.high())
+                    .low24h(quote.low())
+                    .dayVolume(quote.volume())
+                    .build());
         }
 
-        return Map.of(
-                "message", "Fetched all prices in one call",
-                "totalAssets", assets.size(),
-                "updated", updated,
-                "failed", failed
-        );
+        int updated = persist(records);
+        long persistedAt = System.nanoTime();
+
+        timings.put("previousPricesMs", elapsedMs(startedAt, previousLoadedAt));
+        timings.put("persistMs", elapsedMs(previousLoadedAt, persistedAt));
+        return updated;
     }
 
     @Override
-    public List<PriceDto> getTopMovers(String type, int limit) {
-        Pageable pageable = Pageable.ofSize(limit);
-        List<Price> prices;
+    @Transactional
+    public int savePrices(List<Price> records) {
+        if (records.isEmpty()) return 0;
+
+        List<UUID> missing = records.stream()
+                .filter(record -> record.getChangePercent() == null)
+                .map(record -> record.getAsset().getId())
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            Map<UUID, BigDecimal> previousPrices = loadPreviousPrices(missing);
+            for (Price record : records) {
+                if (record.getChangePercent() == null) {
+                    record.setChangePercent(PriceChange.percent(record.getPrice(), previousPrices.get(record.getAsset().getId())));
+                }
+            }
+        }
+        return persist(records);
+    }
 
-        if ("gainers".equalsIgnoreCase(type)) {
-            prices = priceRepository.findTopGainers(pageable);
-        } else if ("losers".equalsIgnoreCase(type)) {
-            prices = priceRepository.findTopLosers(pageable);
-        } else {
+    // Lưu giá mới bằng JDBC batch, cập nhật rollup; latest-quote store và cache được cập nhật sau commit.
+    // Trả về số bản ghi thực sự được ghi (bản ghi trùng bị bỏ qua không tính)
+    private int persist(List<Price> records) {
+        List<Price> inserted = priceJdbcRepository.batchInsert(records);
+        // Chỉ gộp dòng đã ghi thật: batch lặp lại (retry) không được cộng dồn rollup lần nữa
+        priceRollupService.record(inserted);
+
+        inserted.forEach(record -> latestQuoteStore.putAfterCommit(mapToDto(record)));
+        priceCacheEvictor.evictAfterCommit(inserted.stream().map(Price::getAsset).toList());
+        return inserted.size();
+    }
+
+    private Map<UUID, BigDecimal> loadPreviousPrices(Collection<UUID> assetIds) {
+        Map<UUID, BigDecimal> previousPrices = new HashMap<>();
+        for (Price previous : priceRepository.findLatestForAssets(assetIds)) {
+            previousPrices.put(previous.getAsset().getId(), previous.getPrice());
+        }
+        return previousPrices;
+    }
+
+    private static long elapsedMs(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+
+    // Nạp giá mới nhất của mọi asset vào LatestQuoteStore (và qua đó TopMoversIndex) khi khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmLatestQuotes() {
+        long start = System.nanoTime();
+        try {
+            // Nạp trước asset vào persistence context để mapToDto không phát sinh truy vấn theo từng asset
+            assetRepository.findAll();
+            List<Price> latest = priceRepository.findLatestForAllAssets();
+            // Không phát qua SSE: chỉ nạp store và chỉ mục top movers
+            for (Price price : latest) {
+                PriceDto dto = mapToDto(price);
+                if (latestQuoteStore.fill(dto)) topMoversIndex.onQuote(dto);
+            }
+            if (topMoversInMemory) {
+                topMoversIndex.markReady();
+            }
+            log.info("Warmed latest quotes for {} assets in {} ms", latest.size(), elapsedMs(start, System.nanoTime()));
+        } catch (Exception e) {
+            log.warn("Latest quote warm-up failed, top movers will be served from the database: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Cacheable(value = CacheNames.TOP_MOVERS, key = "#type.toLowerCase() + ':' + #limit")
+    public List<PriceDto> getTopMovers(String type, int limit) {
+        boolean gainers = "gainers".equalsIgnoreCase(type);
+        if (!gainers && !"losers".equalsIgnoreCase(type)) {
             throw new IllegalArgumentException("Invalid type: " + type + ". Use 'gainers' or 'losers'.");
         }
 
+        // Đọc từ chỉ mục trong bộ nhớ; chỉ truy vấn DB khi chỉ mục chưa được nạp
+        if (topMoversIndex.isReady()) {
+            return gainers ? topMoversIndex.gainers(limit) : topMoversIndex.losers(limit);
+        }
+
+        Pageable pageable = Pageable.ofSize(limit);
+        List<Price> prices = gainers
+                ? priceRepository.findTopGainers(pageable)
+                : priceRepository.findTopLosers(pageable);
+
         return prices.stream()
                 .map(this::mapToDto)
                 .collect(Collectors.toList());
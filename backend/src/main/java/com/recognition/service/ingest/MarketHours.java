@@ -0,0 +1,28 @@
+package com.recognition.service.ingest;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Giờ giao dịch chính của sàn Mỹ (NYSE/Nasdaq): 09:30–16:00 giờ New York, thứ Hai tới thứ Sáu.
+ * Chưa tính ngày nghỉ lễ của sàn.
+ */
+public final class MarketHours {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final LocalTime OPEN = LocalTime.of(9, 30);
+    private static final LocalTime CLOSE = LocalTime.of(16, 0);
+
+    private MarketHours() {}
+
+    public static boolean isOpen(Instant instant) {
+        ZonedDateTime local = instant.atZone(NEW_YORK);
+        DayOfWeek day = local.getDayOfWeek();
+        if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) return false;
+        LocalTime time = local.toLocalTime();
+        return !time.isBefore(OPEN) && time.isBefore(CLOSE);
+    }
+}
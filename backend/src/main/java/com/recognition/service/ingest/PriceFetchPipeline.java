@@ -0,0 +1,140 @@
+package com.recognition.service.ingest;
+
+import com.recognition.client.dto.FinnhubQuote;
+import com.recognition.entity.Asset;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Fetch-all theo kiểu pipeline: asset được chia thành nhóm, tối đa maxInFlight nhóm được lấy báo giá đồng thời,
+ * nhóm nào về trước được ghi trước (mỗi nhóm một transaction ngắn do ChunkWriter quyết định).
+ * Trong lúc ghi một nhóm, các nhóm sau vẫn đang được tải, và dữ liệu đã ghi không mất nếu lần chạy bị dừng giữa chừng.
+ * Khi bị dừng (listener ném, luồng bị interrupt), các nhóm đang tải bị huỷ để không tiếp tục tiêu quota của rate limiter.
+ */
+@Slf4j
+public class PriceFetchPipeline {
+
+    /**
+     * Ghi báo giá của một nhóm asset; thêm symbol không có giá vào failed và trả về số bản ghi đã lưu.
+     */
+    @FunctionalInterface
+    public interface ChunkWriter {
+        int write(List<Asset> chunk, Map<String, FinnhubQuote> quotes, List<String> failed);
+    }
+
+    /**
+     * Được gọi sau khi mỗi nhóm đã ghi xong; ném CancellationException để dừng pipeline.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        default void onStart(int totalAssets) {}
+
+        void onChunk(List<Asset> chunk, List<String> failed);
+    }
+
+    public record Result(int totalAssets, int chunks, int updated, List<String> failed,
+                         long fetchWaitMs, long writeMs, long totalMs) {}
+
+    private record FetchedChunk(List<Asset> assets, Map<String, FinnhubQuote> quotes, Throwable error) {}
+
+    private final Function<List<String>, CompletableFuture<Map<String, FinnhubQuote>>> fetcher;
+    private final ChunkWriter writer;
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    public PriceFetchPipeline(Function<List<String>, CompletableFuture<Map<String, FinnhubQuote>>> fetcher,
+                              ChunkWriter writer, int chunkSize, int maxInFlight) {
+        this.fetcher = fetcher;
+        this.writer = writer;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public Result run(List<Asset> assets, ChunkListener listener) {
+        long startedAt = System.nanoTime();
+        List<List<Asset>> chunks = new ArrayList<>();
+        for (int from = 0; from < assets.size(); from += chunkSize) {
+            chunks.add(assets.subList(from, Math.min(from + chunkSize, assets.size())));
+        }
+
+        BlockingQueue<FetchedChunk> fetched = new LinkedBlockingQueue<>();
+        List<CompletableFuture<?>> outstanding = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        int next = 0;
+        int inFlight = 0;
+        int updated = 0;
+        long fetchWaitNanos = 0;
+        long writeNanos = 0;
+
+        boolean finished = false;
+        try {
+            if (listener != null) {
+                listener.onStart(assets.size());
+            }
+            while (next < chunks.size() && inFlight < maxInFlight) {
+                outstanding.add(launch(chunks.get(next++), fetched));
+                inFlight++;
+            }
+
+            while (inFlight > 0) {
+                long waitStartedAt = System.nanoTime();
+                FetchedChunk chunk = fetched.take();
+                fetchWaitNanos += System.nanoTime() - waitStartedAt;
+                inFlight--;
+
+                // Gửi nhóm kế tiếp trước khi ghi để mạng và DB chạy song song
+                if (next < chunks.size()) {
+                    outstanding.add(launch(chunks.get(next++), fetched));
+                    inFlight++;
+                }
+
+                List<String> chunkFailed = new ArrayList<>();
+                long writeStartedAt = System.nanoTime();
+                if (chunk.error() != null) {
+                    log.error("Fetching quotes for {} symbols failed: {}", chunk.assets().size(), chunk.error().getMessage());
+                    chunk.assets().forEach(asset -> chunkFailed.add(asset.getSymbol()));
+                } else {
+                    try {
+                        updated += writer.write(chunk.assets(), chunk.quotes(), chunkFailed);
+                    } catch (RuntimeException e) {
+                        log.error("Saving quotes for {} symbols failed: {}", chunk.assets().size(), e.getMessage(), e);
+                        chunkFailed.clear();
+                        chunk.assets().forEach(asset -> chunkFailed.add(asset.getSymbol()));
+                    }
+                }
+                writeNanos += System.nanoTime() - writeStartedAt;
+
+                failed.addAll(chunkFailed);
+                if (listener != null) {
+                    listener.onChunk(chunk.assets(), chunkFailed);
+                }
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Price fetch pipeline interrupted");
+        } finally {
+            if (!finished) {
+                outstanding.forEach(future -> future.cancel(true));
+            }
+        }
+
+        return new Result(assets.size(), chunks.size(), updated, failed,
+                fetchWaitNanos / 1_000_000, writeNanos / 1_000_000, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    // Trả về future của fetcher (không phải future phụ thuộc) để huỷ được lời gọi thật
+    private CompletableFuture<?> launch(List<Asset> chunk, BlockingQueue<FetchedChunk> fetched) {
+        List<String> symbols = chunk.stream().map(Asset::getSymbol).toList();
+        CompletableFuture<Map<String, FinnhubQuote>> future = fetcher.apply(symbols);
+        future.whenComplete((quotes, error) ->
+                fetched.add(new FetchedChunk(chunk, quotes != null ? quotes : Map.of(), error)));
+        return future;
+    }
+}
@@ -0,0 +1,270 @@
+package com.recognition.service.ingest;
+
+import com.recognition.entity.Asset;
+import com.recognition.repository.AssetRepository;
+import com.recognition.repository.WatchlistRepository;
+import com.recognition.service.PriceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduler ingest liên tục cho các asset đang active.
+ * Mỗi symbol có nhịp riêng: symbol "nóng" (nhiều watchlist) được poll dày hơn, ngoài giờ giao dịch
+ * mọi symbol dùng nhịp thưa. Mỗi tick chỉ tiêu một phần ngân sách request/phút và ưu tiên symbol
+ * trễ nhiều nhất so với nhịp của nó, nên khi thiếu quota mọi symbol bị trễ cùng tỉ lệ.
+ * Symbol đang nhận trade qua websocket (StreamingPriceIngest) được bỏ qua; REST chỉ còn là đường dự phòng.
+ */
+@Slf4j
+@Component
+public class PriceIngestScheduler {
+
+    private static final class SymbolSchedule {
+        private volatile Asset asset;
+        private volatile boolean hot;
+        private volatile long nextDueAtMs;
+        private volatile long lastFetchedAtMs;
+        private volatile long lastLagMs;
+
+        private SymbolSchedule(Asset asset, long nextDueAtMs) {
+            this.asset = asset;
+            this.nextDueAtMs = nextDueAtMs;
+        }
+    }
+
+    private final AssetRepository assetRepository;
+    private final WatchlistRepository watchlistRepository;
+    private final PriceService priceService;
+    private final StreamingPriceIngest streamingIngest;
+
+    private final boolean enabled;
+    private final boolean marketHoursOnly;
+    private final long hotIntervalMs;
+    private final long normalIntervalMs;
+    private final long closedIntervalMs;
+    private final long hotWatchers;
+    private final double budgetPerMinute;
+    private final long refreshMs;
+
+    private final Map<UUID, SymbolSchedule> schedules = new ConcurrentHashMap<>();
+
+    // Ngân sách request tích luỹ theo thời gian (token), giới hạn ở mức 10 giây
+    private double budget;
+    private long lastTickAtMs;
+    private long lastRefreshAtMs;
+
+    private final AtomicLong cycles = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skippedLive = new AtomicLong();
+    private volatile long lastCycleMs;
+    private volatile long maxCycleMs;
+    private volatile int lastDue;
+
+    // Tổng hợp độ trễ, tính lại khi lịch thay đổi (cuối chu kỳ, refresh) thay vì mỗi lần đọc
+    private volatile long maxLagMs;
+    private volatile long avgLagMs;
+    private volatile long oldestFetchedAtMs;
+
+    public PriceIngestScheduler(AssetRepository assetRepository,
+                                WatchlistRepository watchlistRepository,
+                                PriceService priceService,
+                                StreamingPriceIngest streamingIngest,
+                                @Value("${price.ingest.scheduler.enabled:false}") boolean enabled,
+                                @Value("${price.ingest.market-hours-only:true}") boolean marketHoursOnly,
+                                @Value("${price.ingest.hot-interval-ms:15000}") long hotIntervalMs,
+                                @Value("${price.ingest.normal-interval-ms:60000}") long normalIntervalMs,
+                                @Value("${price.ingest.closed-interval-ms:1800000}") long closedIntervalMs,
+                                @Value("${price.ingest.hot-watchers:3}") long hotWatchers,
+                                @Value("${price.ingest.budget-per-minute:50}") double budgetPerMinute,
+                                @Value("${price.ingest.refresh-ms:300000}") long refreshMs) {
+        this.assetRepository = assetRepository;
+        this.watchlistRepository = watchlistRepository;
+        this.priceService = priceService;
+        this.streamingIngest = streamingIngest;
+        this.enabled = enabled;
+        this.marketHoursOnly = marketHoursOnly;
+        this.hotIntervalMs = hotIntervalMs;
+        this.normalIntervalMs = normalIntervalMs;
+        this.closedIntervalMs = closedIntervalMs;
+        this.hotWatchers = hotWatchers;
+        this.budgetPerMinute = budgetPerMinute;
+        this.refreshMs = refreshMs;
+    }
+
+    @Scheduled(fixedDelayString = "${price.ingest.tick-ms:1000}", initialDelayString = "${price.ingest.initial-delay-ms:10000}")
+    public void tick() {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+
+        try {
+            if (now - lastRefreshAtMs >= refreshMs) {
+                refreshAssets(now);
+            }
+            runCycle(now);
+        } catch (Exception e) {
+            log.error("Price ingest cycle failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Nạp lại danh sách asset active và độ "nóng" theo số watchlist; giữ nguyên lịch của symbol đã có
+    void refreshAssets(long now) {
+        List<Asset> assets = assetRepository.findByIsActiveTrue();
+
+        Map<String, Long> watchers = new HashMap<>();
+        for (Object[] row : watchlistRepository.countWatchersBySymbol()) {
+            watchers.put((String) row[0], ((Number) row[1]).longValue());
+        }
+
+        Set<UUID> activeIds = new HashSet<>();
+        int index = 0;
+        for (Asset asset : assets) {
+            activeIds.add(asset.getId());
+            boolean hot = watchers.getOrDefault(asset.getSymbol().toUpperCase(), 0L) >= hotWatchers;
+
+            // Symbol mới được rải đều trong một nhịp để không dồn request vào cùng một tick
+            long offset = assets.isEmpty() ? 0 : (index++ * normalIntervalMs) / assets.size();
+            SymbolSchedule schedule = schedules.computeIfAbsent(asset.getId(), id -> new SymbolSchedule(asset, now + offset));
+            schedule.asset = asset;
+            schedule.hot = hot;
+        }
+        schedules.keySet().retainAll(activeIds);
+        lastRefreshAtMs = now;
+        updateLagStats();
+
+        log.info("Price ingest tracking {} active assets ({} hot)",
+                schedules.size(), schedules.values().stream().filter(s -> s.hot).count());
+    }
+
+    void runCycle(long now) {
+        // Cộng ngân sách theo thời gian trôi qua kể từ tick trước
+        double perMs = budgetPerMinute / 60_000.0;
+        long elapsed = lastTickAtMs == 0 ? 1_000 : now - lastTickAtMs;
+        budget = Math.min(budget + elapsed * perMs, Math.max(1.0, budgetPerMinute / 6.0));
+        lastTickAtMs = now;
+
+        // Symbol đến hạn, xếp theo độ trễ tương đối (trễ / nhịp) giảm dần
+        List<SymbolSchedule> due = new ArrayList<>();
+        for (SymbolSchedule schedule : schedules.values()) {
+            if (schedule.nextDueAtMs > now) continue;
+            if (streamingIngest.isLive(schedule.asset.getSymbol(), now)) {
+                schedule.nextDueAtMs = now + intervalFor(schedule, now);
+                skippedLive.incrementAndGet();
+                continue;
+            }
+            due.add(schedule);
+        }
+        lastDue = due.size();
+        if (due.isEmpty() || budget < 1.0) return;
+
+        due.sort(Comparator.comparingDouble((SymbolSchedule s) -> (double) (now - s.nextDueAtMs) / intervalFor(s, now)).reversed());
+        int take = (int) Math.min(due.size(), Math.floor(budget));
+        List<SymbolSchedule> batch = due.subList(0, take);
+        budget -= take;
+
+        long startedAt = System.currentTimeMillis();
+        Map<String, Object> result = priceService.fetchAndSavePrices(batch.stream().map(s -> s.asset).toList());
+        long finishedAt = System.currentTimeMillis();
+
+        for (SymbolSchedule schedule : batch) {
+            schedule.lastLagMs = now - schedule.nextDueAtMs;
+            schedule.lastFetchedAtMs = finishedAt;
+            schedule.nextDueAtMs = finishedAt + intervalFor(schedule, finishedAt);
+        }
+
+        Object failedSymbols = result.get("failed");
+        int failedCount = failedSymbols instanceof Collection<?> list ? list.size() : 0;
+        fetched.addAndGet(take - failedCount);
+        failed.addAndGet(failedCount);
+        cycles.incrementAndGet();
+        lastCycleMs = finishedAt - startedAt;
+        maxCycleMs = Math.max(maxCycleMs, lastCycleMs);
+        updateLagStats();
+
+        log.debug("Price ingest cycle: {} due, {} fetched, {} failed in {} ms", due.size(), take, failedCount, lastCycleMs);
+    }
+
+    private void updateLagStats() {
+        long maxLag = 0;
+        long totalLag = 0;
+        long oldestFetchedAt = 0;
+        for (SymbolSchedule schedule : schedules.values()) {
+            maxLag = Math.max(maxLag, schedule.lastLagMs);
+            totalLag += schedule.lastLagMs;
+            if (schedule.lastFetchedAtMs > 0 && (oldestFetchedAt == 0 || schedule.lastFetchedAtMs < oldestFetchedAt)) {
+                oldestFetchedAt = schedule.lastFetchedAtMs;
+            }
+        }
+        maxLagMs = maxLag;
+        avgLagMs = schedules.isEmpty() ? 0 : totalLag / schedules.size();
+        oldestFetchedAtMs = oldestFetchedAt;
+    }
+
+    public long maxLagMs() {
+        return maxLagMs;
+    }
+
+    public long avgLagMs() {
+        return avgLagMs;
+    }
+
+    // Tuổi của lần poll cũ nhất
+    public long maxStalenessMs() {
+        long oldest = oldestFetchedAtMs;
+        return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    public long lastCycleMs() {
+        return lastCycleMs;
+    }
+
+    public int symbolCount() {
+        return schedules.size();
+    }
+
+    public long fetchedCount() {
+        return fetched.get();
+    }
+
+    public long failedCount() {
+        return failed.get();
+    }
+
+    private long intervalFor(SymbolSchedule schedule, long nowMs) {
+        if (marketHoursOnly && !MarketHours.isOpen(Instant.ofEpochMilli(nowMs))) {
+            return closedIntervalMs;
+        }
+        return schedule.hot ? hotIntervalMs : normalIntervalMs;
+    }
+
+    public Map<String, Object> stats() {
+        long now = System.currentTimeMillis();
+        int hot = 0;
+        for (SymbolSchedule schedule : schedules.values()) {
+            if (schedule.hot) hot++;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("marketOpen", MarketHours.isOpen(Instant.ofEpochMilli(now)));
+        stats.put("symbols", schedules.size());
+        stats.put("hotSymbols", hot);
+        stats.put("due", lastDue);
+        stats.put("cycles", cycles.get());
+        stats.put("fetched", fetched.get());
+        stats.put("failed", failed.get());
+        stats.put("skippedLive", skippedLive.get());
+        stats.put("lastCycleMs", lastCycleMs);
+        stats.put("maxCycleMs", maxCycleMs);
+        stats.put("maxLagMs", maxLagMs);
+        stats.put("avgLagMs", avgLagMs);
+        stats.put("maxStalenessMs", maxStalenessMs());
+        return stats;
+    }
+}
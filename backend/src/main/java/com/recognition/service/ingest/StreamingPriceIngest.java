@@ -0,0 +1,247 @@
+package com.recognition.service.ingest;
+
+import com.recognition.client.FinnhubTradeStream;
+import com.recognition.client.dto.FinnhubTrade;
+import com.recognition.dto.PriceDto;
+import com.recognition.entity.Asset;
+import com.recognition.entity.Price;
+import com.recognition.repository.AssetRepository;
+import com.recognition.service.LatestQuoteStore;
+import com.recognition.service.PriceService;
+import com.recognition.service.price.PriceChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingest giá từ luồng trade websocket của Finnhub: trade được gộp thành tick bar theo symbol và
+ * định kỳ ghi xuống bảng prices theo lô. Khi websocket mất kết nối hoặc một symbol lâu không có trade,
+ * PriceIngestScheduler tiếp tục poll symbol đó qua REST (xem isLive).
+ * Bar chỉ kéo dài khoảng một lần flush, nên dòng ghi xuống giữ nguyên các trường "trong ngày" của báo giá mới nhất
+ * (cao/thấp mở rộng theo bar, khối lượng ngày, mốc tính % thay đổi); chỉ giá và khối lượng của bar là mới.
+ */
+@Slf4j
+@Component
+public class StreamingPriceIngest implements FinnhubTradeStream.Listener {
+
+    // Tách khỏi "Finnhub" (báo giá poll): volume của dòng bar là khối lượng của riêng bar
+    private static final String SOURCE = "FinnhubStream";
+
+    private final FinnhubTradeStream tradeStream;
+    private final AssetRepository assetRepository;
+    private final PriceService priceService;
+    private final LatestQuoteStore latestQuoteStore;
+    private final TickBarAggregator aggregator = new TickBarAggregator();
+
+    private final boolean enabled;
+    private final long staleMs;
+    private final long maxReconnectDelayMs;
+
+    private final Map<String, Asset> assetsBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastTradeReceivedAt = new ConcurrentHashMap<>();
+    // Mốc tính % thay đổi (giá mà báo giá poll gần nhất so với) theo asset, suy ra một lần để không trôi qua từng bar
+    private final Map<UUID, BigDecimal> referencePrices = new ConcurrentHashMap<>();
+
+    // Kết nối lại với backoff luỹ thừa: 1s, 2s, 4s... tối đa maxReconnectDelayMs
+    private long reconnectDelayMs = 1_000;
+    private long nextReconnectAtMs;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong barsWritten = new AtomicLong();
+    private final AtomicLong barsDropped = new AtomicLong();
+    private volatile long lastFlushMs;
+
+    public StreamingPriceIngest(FinnhubTradeStream tradeStream,
+                                AssetRepository assetRepository,
+                                PriceService priceService,
+                                LatestQuoteStore latestQuoteStore,
+                                @Value("${price.ingest.stream.enabled:false}") boolean enabled,
+                                @Value("${price.ingest.stream.stale-ms:120000}") long staleMs,
+                                @Value("${price.ingest.stream.max-reconnect-delay-ms:60000}") long maxReconnectDelayMs) {
+        this.tradeStream = tradeStream;
+        this.assetRepository = assetRepository;
+        this.priceService = priceService;
+        this.latestQuoteStore = latestQuoteStore;
+        this.enabled = enabled;
+        this.staleMs = staleMs;
+        this.maxReconnectDelayMs = maxReconnectDelayMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        refreshSubscriptions();
+        ensureConnected(System.currentTimeMillis());
+    }
+
+    @Override
+    public void onTrade(FinnhubTrade trade) {
+        if (!assetsBySymbol.containsKey(trade.symbol())) return;
+        aggregator.add(trade);
+        // Theo giờ nhận tại máy chủ, không theo giờ khớp của sàn, để không phụ thuộc lệch đồng hồ
+        lastTradeReceivedAt.put(trade.symbol(), System.currentTimeMillis());
+    }
+
+    // Symbol có trade gần đây qua websocket thì không cần poll REST
+    public boolean isLive(String symbol, long nowMs) {
+        if (!enabled || !tradeStream.isConnected()) return false;
+        Long last = lastTradeReceivedAt.get(symbol);
+        return last != null && nowMs - last <= staleMs;
+    }
+
+    @Scheduled(fixedDelayString = "${price.ingest.stream.flush-ms:1000}")
+    public void flush() {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        ensureConnected(now);
+
+        List<TickBarAggregator.TickBar> bars = aggregator.drain();
+        if (bars.isEmpty()) return;
+
+        List<Price> records = new ArrayList<>(bars.size());
+        for (TickBarAggregator.TickBar bar : bars) {
+            Asset asset = assetsBySymbol.get(bar.symbol());
+            if (asset == null) {
+                barsDropped.incrementAndGet();
+                continue;
+            }
+            records.add(toPrice(asset, bar));
+        }
+
+        try {
+            int written = priceService.savePrices(records);
+            barsWritten.addAndGet(written);
+            barsDropped.addAndGet(records.size() - written);
+        } catch (Exception e) {
+            barsDropped.addAndGet(records.size());
+            log.error("Failed to flush {} tick bars: {}", records.size(), e.getMessage(), e);
+        }
+        flushes.incrementAndGet();
+        lastFlushMs = System.currentTimeMillis() - now;
+    }
+
+    // Giá là close của bar; các trường trong ngày lấy từ báo giá mới nhất thay vì từ bar chỉ dài vài giây
+    Price toPrice(Asset asset, TickBarAggregator.TickBar bar) {
+        PriceDto latest = latestQuoteStore.peek(asset.getId()).orElse(null);
+        BigDecimal reference = latest != null ? referencePrice(asset.getId(), latest) : null;
+        return Price.builder()
+                .asset(asset)
+                .price(bar.close())
+                .timestamp(OffsetDateTime.ofInstant(Instant.ofEpochMilli(bar.lastTradeAt()), ZoneOffset.UTC))
+                .source(SOURCE)
+                .changePercent(PriceChange.percent(bar.close(), reference))
+                .high24h(latest != null && latest.getHigh24h() != null ? latest.getHigh24h().max(bar.high()) : null)
+                .low24h(latest != null && latest.getLow24h() != null ? latest.getLow24h().min(bar.low()) : null)
+                .dayVolume(latest != null ? latest.getVolume() : null)
+                .volume(bar.volume())
+                .build();
+    }
+
+    // Báo giá poll mới: suy ra giá mốc từ giá và % thay đổi của nó; dòng bar trước đó: dùng lại mốc đã suy ra
+    private BigDecimal referencePrice(UUID assetId, PriceDto latest) {
+        BigDecimal known = referencePrices.get(assetId);
+        if (SOURCE.equals(latest.getSource()) && known != null) return known;
+
+        BigDecimal reference = latest.getPrice();
+        if (latest.getChangePercent() != null) {
+            BigDecimal factor = BigDecimal.ONE.add(latest.getChangePercent().movePointLeft(2));
+            if (factor.signum() > 0) reference = reference.divide(factor, 8, RoundingMode.HALF_UP);
+        }
+        if (reference != null) referencePrices.put(assetId, reference);
+        return reference;
+    }
+
+    // Đồng bộ danh sách subscribe với tập asset active
+    @Scheduled(fixedDelayString = "${price.ingest.refresh-ms:300000}", initialDelayString = "${price.ingest.refresh-ms:300000}")
+    public void refreshSubscriptions() {
+        if (!enabled) return;
+        Map<String, Asset> active = new HashMap<>();
+        for (Asset asset : assetRepository.findByIsActiveTrue()) {
+            active.put(asset.getSymbol(), asset);
+        }
+
+        Set<String> removed = new HashSet<>(assetsBySymbol.keySet());
+        removed.removeAll(active.keySet());
+
+        assetsBySymbol.putAll(active);
+        assetsBySymbol.keySet().removeAll(removed);
+        lastTradeReceivedAt.keySet().removeAll(removed);
+        Set<UUID> activeIds = new HashSet<>();
+        active.values().forEach(asset -> activeIds.add(asset.getId()));
+        referencePrices.keySet().retainAll(activeIds);
+
+        tradeStream.unsubscribe(removed);
+        tradeStream.subscribe(active.keySet());
+    }
+
+    @Override
+    public void onDisconnected(String reason) {
+        synchronized (this) {
+            nextReconnectAtMs = System.currentTimeMillis() + reconnectDelayMs;
+        }
+    }
+
+    private synchronized void ensureConnected(long now) {
+        if (tradeStream.isConnected() || now < nextReconnectAtMs) return;
+        try {
+            tradeStream.connect(this);
+            reconnectDelayMs = 1_000;
+        } catch (Exception e) {
+            nextReconnectAtMs = now + reconnectDelayMs;
+            log.warn("Cannot connect to Finnhub trade stream, retrying in {} ms: {}", reconnectDelayMs, e.getMessage());
+            reconnectDelayMs = Math.min(reconnectDelayMs * 2, maxReconnectDelayMs);
+        }
+    }
+
+    // Số symbol đang có trade gần đây; duyệt trực tiếp map thay vì stream
+    public long liveSymbolCount() {
+        if (!enabled || !tradeStream.isConnected()) return 0;
+        long now = System.currentTimeMillis();
+        long live = 0;
+        for (long receivedAt : lastTradeReceivedAt.values()) {
+            if (now - receivedAt <= staleMs) live++;
+        }
+        return live;
+    }
+
+    public int openBarCount() {
+        return aggregator.openBars();
+    }
+
+    public long lastFlushMs() {
+        return lastFlushMs;
+    }
+
+    public long barsWrittenCount() {
+        return barsWritten.get();
+    }
+
+    public long barsDroppedCount() {
+        return barsDropped.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(tradeStream.stats());
+        stats.put("enabled", enabled);
+        stats.put("trackedSymbols", assetsBySymbol.size());
+        stats.put("liveSymbols", liveSymbolCount());
+        stats.put("openBars", aggregator.openBars());
+        stats.put("flushes", flushes.get());
+        stats.put("barsWritten", barsWritten.get());
+        stats.put("barsDropped", barsDropped.get());
+        stats.put("lastFlushMs", lastFlushMs);
+        return stats;
+    }
+}
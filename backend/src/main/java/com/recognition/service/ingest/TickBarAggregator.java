@@ -0,0 +1,70 @@
+package com.recognition.service.ingest;
+
+import com.recognition.client.dto.FinnhubTrade;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gộp trade theo symbol thành tick bar (open/high/low/close/volume) trong bộ nhớ cho tới lần flush kế tiếp.
+ * Trade tới trễ vẫn được tính đúng: open/close theo thời điểm khớp chứ không theo thứ tự nhận.
+ */
+public class TickBarAggregator {
+
+    public record TickBar(
+            String symbol,
+            BigDecimal open,
+            BigDecimal high,
+            BigDecimal low,
+            BigDecimal close,
+            BigDecimal volume,
+            int trades,
+            long firstTradeAt,
+            long lastTradeAt
+    ) {
+
+        static TickBar of(FinnhubTrade trade) {
+            return new TickBar(trade.symbol(), trade.price(), trade.price(), trade.price(), trade.price(),
+                    trade.volume(), 1, trade.timestamp(), trade.timestamp());
+        }
+
+        TickBar add(FinnhubTrade trade) {
+            boolean earliest = trade.timestamp() < firstTradeAt;
+            boolean latest = trade.timestamp() >= lastTradeAt;
+            return new TickBar(
+                    symbol,
+                    earliest ? trade.price() : open,
+                    high.max(trade.price()),
+                    low.min(trade.price()),
+                    latest ? trade.price() : close,
+                    volume.add(trade.volume()),
+                    trades + 1,
+                    Math.min(firstTradeAt, trade.timestamp()),
+                    Math.max(lastTradeAt, trade.timestamp())
+            );
+        }
+    }
+
+    private final Map<String, TickBar> bars = new ConcurrentHashMap<>();
+
+    public void add(FinnhubTrade trade) {
+        bars.compute(trade.symbol(), (symbol, bar) -> bar == null ? TickBar.of(trade) : bar.add(trade));
+    }
+
+    // Lấy ra và xoá toàn bộ bar đang mở; trade tới trong lúc drain sẽ vào bar của lần flush sau
+    public List<TickBar> drain() {
+        List<TickBar> drained = new ArrayList<>(bars.size());
+        for (String symbol : bars.keySet()) {
+            TickBar bar = bars.remove(symbol);
+            if (bar != null) drained.add(bar);
+        }
+        return drained;
+    }
+
+    public int openBars() {
+        return bars.size();
+    }
+}
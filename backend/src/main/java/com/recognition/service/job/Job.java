@@ -0,0 +1,132 @@
+package com.recognition.service.job;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trạng thái của một job: tiến độ theo từng symbol, thời gian chạy và kết quả.
+ * Các trường được cập nhật bởi luồng chạy job và đọc bởi request kiểm tra tiến độ.
+ */
+public class Job {
+
+    private final String id;
+    private final String type;
+    private final String dedupKey;
+    private final Instant createdAt = Instant.now();
+
+    private volatile JobState state = JobState.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+
+    private volatile int total;
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final List<String> failed = new CopyOnWriteArrayList<>();
+    private volatile String lastSymbol;
+
+    private volatile Map<String, Object> result;
+    private volatile String error;
+
+    Job(String id, String type, String dedupKey) {
+        this.id = id;
+        this.type = type;
+        this.dedupKey = dedupKey;
+    }
+
+    public String getId() { return id; }
+    public String getType() { return type; }
+    public JobState getState() { return state; }
+    public Instant getFinishedAt() { return finishedAt; }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    // Ghi nhận kết quả của một symbol
+    public void recordSymbol(String symbol, boolean success) {
+        processed.incrementAndGet();
+        if (success) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.add(symbol);
+        }
+        lastSymbol = symbol;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Job " + id + " cancelled");
+        }
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    String getDedupKey() {
+        return dedupKey;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        state = JobState.RUNNING;
+    }
+
+    void markFinished(JobState finalState, Map<String, Object> result, String error) {
+        this.result = result;
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+    }
+
+    public long durationMs() {
+        if (startedAt == null) return 0;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return end.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    public Map<String, Object> toStatus() {
+        int done = processed.get();
+        long durationMs = durationMs();
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", id);
+        status.put("type", type);
+        status.put("status", state.name());
+        status.put("progress", total > 0 ? Math.min(100, done * 100 / total) : (state == JobState.DONE ? 100 : 0));
+        status.put("total", total);
+        status.put("processed", done);
+        status.put("succeeded", succeeded.get());
+        status.put("failed", failed.size());
+        status.put("lastSymbol", lastSymbol);
+        status.put("createdAt", createdAt);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("durationMs", durationMs);
+        status.put("symbolsPerSecond", durationMs > 0 ? Math.round(done * 10_000.0 / durationMs) / 10.0 : 0.0);
+        if (state.isFinished()) {
+            status.put("failedSymbols", List.copyOf(failed));
+        }
+        if (result != null) status.put("result", result);
+        if (error != null) status.put("error", error);
+        return status;
+    }
+}
@@ -0,0 +1,217 @@
+package com.recognition.service.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chạy các job nền trên executor có giới hạn (số luồng và hàng đợi cố định).
+ * Job cùng dedupKey chỉ chạy một bản tại một thời điểm: yêu cầu trùng nhận lại job đang chạy.
+ * Job đã kết thúc được giữ trong jobs.ttl để client đọc kết quả rồi bị xoá.
+ */
+@Slf4j
+@Component
+public class JobEngine {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration ttl;
+    private final int maxRetained;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> activeByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failedJobs = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder totalDurationMs = new LongAdder();
+
+    public JobEngine(@Value("${jobs.executor.threads:2}") int threads,
+                     @Value("${jobs.executor.queue-capacity:20}") int queueCapacity,
+                     @Value("${jobs.ttl:1h}") Duration ttl,
+                     @Value("${jobs.max-retained:500}") int maxRetained) {
+        this.ttl = ttl;
+        this.maxRetained = maxRetained;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gửi job mới; nếu đã có job cùng dedupKey chưa kết thúc thì trả về job đó.
+     * Ném RejectedExecutionException khi hàng đợi đầy.
+     */
+    public Job submit(String type, String dedupKey, JobTask task) {
+        Job created = new Job(UUID.randomUUID().toString(), type, dedupKey);
+        Job active = dedupKey != null ? activeByKey.putIfAbsent(dedupKey, created) : null;
+        if (active != null) {
+            deduplicated.increment();
+            return active;
+        }
+
+        jobs.put(created.getId(), created);
+        try {
+            created.setFuture(executor.submit(() -> execute(created, task)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(created.getId());
+            if (dedupKey != null) activeByKey.remove(dedupKey, created);
+            rejected.increment();
+            throw e;
+        }
+        submitted.increment();
+        return created;
+    }
+
+    public Optional<Job> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Job đang chờ bị huỷ ngay. Job đang chạy dừng ở lần kiểm tra checkCancelled() kế tiếp, và luồng của nó bị interrupt
+     * để thao tác đang chặn (chờ báo giá, chờ rate limiter) dừng ngay thay vì chạy hết nhóm hiện tại.
+     */
+    public boolean cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || job.getState().isFinished()) return false;
+        job.requestCancel();
+        Future<?> future = job.getFuture();
+        if (future == null) return true;
+        if (job.getState() == JobState.QUEUED) {
+            if (future.cancel(false)) finish(job, JobState.CANCELLED, null, "Cancelled before start");
+        } else {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    private void execute(Job job, JobTask task) {
+        if (job.isCancelRequested()) {
+            finish(job, JobState.CANCELLED, null, "Cancelled before start");
+            return;
+        }
+        job.markRunning();
+        log.info("Job {} ({}) started", job.getId(), job.getType());
+        try {
+            Map<String, Object> result = task.run(job);
+            finish(job, JobState.DONE, result, null);
+            log.info("Job {} ({}) finished in {} ms", job.getId(), job.getType(), job.durationMs());
+        } catch (CancellationException e) {
+            finish(job, JobState.CANCELLED, null, e.getMessage());
+            log.info("Job {} ({}) cancelled after {} ms", job.getId(), job.getType(), job.durationMs());
+        } catch (Exception e) {
+            if (job.isCancelRequested()) {
+                // Lỗi do bị interrupt khi huỷ (ví dụ ghi DB dở dang) vẫn tính là huỷ
+                finish(job, JobState.CANCELLED, null, e.getMessage());
+                log.info("Job {} ({}) cancelled after {} ms", job.getId(), job.getType(), job.durationMs());
+                return;
+            }
+            finish(job, JobState.FAILED, null, e.getMessage());
+            log.error("Job {} ({}) failed: {}", job.getId(), job.getType(), e.getMessage(), e);
+        }
+    }
+
+    private void finish(Job job, JobState state, Map<String, Object> result, String error) {
+        synchronized (job) {
+            if (job.getState().isFinished()) return;
+            // Nhả dedupKey trước để ai thấy job đã kết thúc cũng có thể gửi job mới
+            if (job.getDedupKey() != null) activeByKey.remove(job.getDedupKey(), job);
+            job.markFinished(state, result, error);
+        }
+        totalDurationMs.add(job.durationMs());
+        switch (state) {
+            case DONE -> completed.increment();
+            case FAILED -> failedJobs.increment();
+            case CANCELLED -> cancelled.increment();
+            default -> { }
+        }
+    }
+
+    // Xoá job đã kết thúc quá TTL; nếu vẫn vượt maxRetained thì xoá các job kết thúc sớm nhất
+    @Scheduled(fixedDelayString = "${jobs.eviction-interval-ms:60000}")
+    public void evictFinished() {
+        Instant cutoff = Instant.now().minus(ttl);
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getState().isFinished() && job.getFinishedAt().isBefore(cutoff);
+            if (expired) evicted.increment();
+            return expired;
+        });
+
+        int excess = jobs.size() - maxRetained;
+        if (excess > 0) {
+            jobs.values().stream()
+                    .filter(job -> job.getState().isFinished())
+                    .sorted(Comparator.comparing(Job::getFinishedAt))
+                    .limit(excess)
+                    .forEach(job -> {
+                        jobs.remove(job.getId());
+                        evicted.increment();
+                    });
+        }
+    }
+
+    public int runningCount() {
+        return executor.getActiveCount();
+    }
+
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public long completedCount() {
+        return completed.sum();
+    }
+
+    public long failedCount() {
+        return failedJobs.sum();
+    }
+
+    public long cancelledCount() {
+        return cancelled.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public Map<String, Object> stats() {
+        long finished = completed.sum() + failedJobs.sum() + cancelled.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("retained", jobs.size());
+        stats.put("submitted", submitted.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failedJobs.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("evicted", evicted.sum());
+        stats.put("avgDurationMs", finished > 0 ? totalDurationMs.sum() / finished : 0);
+        return stats;
+    }
+}
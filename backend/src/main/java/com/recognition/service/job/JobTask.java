@@ -0,0 +1,12 @@
+package com.recognition.service.job;
+
+import java.util.Map;
+
+/**
+ * Công việc chạy trong JobEngine. Task tự báo tiến độ qua Job và nên kiểm tra job.checkCancelled()
+ * giữa các bước; giá trị trả về được lưu làm kết quả của job.
+ */
+@FunctionalInterface
+public interface JobTask {
+    Map<String, Object> run(Job job) throws Exception;
+}
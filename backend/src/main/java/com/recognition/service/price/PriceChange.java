@@ -0,0 +1,27 @@
+package com.recognition.service.price;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Phần trăm thay đổi giữa hai giá, dùng chung cho mọi luồng ghi giá (poll, stream, nhập tay).
+ * Công thức: (price - previous) / previous làm tròn HALF_UP tới 4 chữ số rồi x100, kết quả có scale 4.
+ */
+public final class PriceChange {
+
+    // Scale của cột change_percent
+    public static final int PERCENT_SCALE = 4;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private PriceChange() {
+    }
+
+    // null nếu thiếu giá hoặc giá trước bằng 0
+    public static BigDecimal percent(BigDecimal price, BigDecimal previous) {
+        if (price == null || previous == null || previous.signum() == 0) return null;
+        return price.subtract(previous)
+                .divide(previous, PERCENT_SCALE, RoundingMode.HALF_UP)
+                .multiply(HUNDRED);
+    }
+}
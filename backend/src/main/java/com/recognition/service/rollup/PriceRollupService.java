@@ -0,0 +1,205 @@
+package com.recognition.service.rollup;
+
+import com.recognition.entity.Price;
+import com.recognition.entity.PriceRollup;
+import com.recognition.entity.PriceRollupWatermark;
+import com.recognition.repository.PriceRollupJdbcRepository;
+import com.recognition.repository.PriceRollupRepository;
+import com.recognition.repository.PriceRollupWatermarkRepository;
+import com.recognition.service.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Duy trì bảng price_rollups (1m, 1h, 1d): cập nhật tăng dần khi có Price mới và backfill từ dữ liệu cũ.
+ * Watermark theo asset/độ phân giải cho biết rollup đầy đủ từ thời điểm nào; phía đọc chỉ tin rollup sau mốc đó.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PriceRollupService {
+
+    private final PriceRollupRepository priceRollupRepository;
+    private final PriceRollupJdbcRepository priceRollupJdbcRepository;
+    private final PriceRollupWatermarkRepository priceRollupWatermarkRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Các cặp asset|resolution đã có watermark trong DB, tránh ghi lại ở mỗi lần record
+    private final Set<String> watermarked = ConcurrentHashMap.newKeySet();
+
+    @Value("${price.rollup.read-enabled:true}")
+    private boolean readEnabled;
+
+    @Value("${price.rollup.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    // Gọi trong cùng transaction với thao tác ghi Price để rollup luôn khớp với dữ liệu thô
+    @Transactional
+    public void record(Collection<Price> prices) {
+        Map<String, PriceRollup> deltas = new LinkedHashMap<>();
+        for (Price price : prices) {
+            if (price.getPrice() == null || price.getTimestamp() == null) continue;
+            UUID assetId = price.getAsset().getId();
+            for (RollupResolution resolution : RollupResolution.values()) {
+                OffsetDateTime bucketStart = resolution.getInterval().bucketStart(price.getTimestamp());
+                String key = assetId + "|" + resolution.getCode() + "|" + bucketStart.toEpochSecond();
+                PriceRollup delta = deltas.get(key);
+                if (delta == null) {
+                    deltas.put(key, newDelta(assetId, resolution, bucketStart, price));
+                } else {
+                    merge(delta, price);
+                }
+            }
+        }
+        priceRollupJdbcRepository.upsert(deltas.values());
+        recordWatermarks(deltas.values());
+    }
+
+    // Lần đầu có rollup cho asset/resolution: bucket đầu tiên có thể thiếu tick cũ nên rollup chỉ đầy đủ từ bucket kế tiếp
+    private void recordWatermarks(Collection<PriceRollup> deltas) {
+        Map<String, PriceRollupWatermark> watermarks = new LinkedHashMap<>();
+        for (PriceRollup delta : deltas) {
+            String key = delta.getAssetId() + "|" + delta.getResolution();
+            if (watermarked.contains(key)) continue;
+            OffsetDateTime coveredFrom = delta.getBucketStart()
+                    .plusSeconds(RollupResolution.fromCode(delta.getResolution()).getInterval().getSeconds());
+            PriceRollupWatermark existing = watermarks.get(key);
+            if (existing == null || coveredFrom.isBefore(existing.getCoveredFrom())) {
+                watermarks.put(key, PriceRollupWatermark.builder()
+                        .assetId(delta.getAssetId())
+                        .resolution(delta.getResolution())
+                        .coveredFrom(coveredFrom)
+                        .build());
+            }
+        }
+        if (watermarks.isEmpty()) return;
+        priceRollupJdbcRepository.insertWatermarks(watermarks.values());
+        AfterCommit.run(() -> watermarked.addAll(watermarks.keySet()));
+    }
+
+    public void record(Price price) {
+        record(List.of(price));
+    }
+
+    /**
+     * assetId = null: backfill cho toàn bộ asset. Mỗi asset một transaction riêng, nên khoá của backfill chỉ chặn
+     * việc ghi giá của đúng asset đang được tính lại và chỉ trong thời gian tính lại asset đó.
+     */
+    public Map<String, Object> backfill(UUID assetId) {
+        long startedAt = System.currentTimeMillis();
+        TransactionTemplate assetTransaction = new TransactionTemplate(transactionManager);
+        assetTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        List<UUID> assetIds = assetId != null ? List.of(assetId) : priceRollupJdbcRepository.findAssetIds();
+        Map<String, Integer> buckets = new LinkedHashMap<>();
+        for (UUID id : assetIds) {
+            assetTransaction.executeWithoutResult(status -> {
+                for (RollupResolution resolution : RollupResolution.values()) {
+                    buckets.merge(resolution.getCode(), priceRollupJdbcRepository.backfill(
+                            resolution.getCode(), resolution.getInterval().getSeconds(), id), Integer::sum);
+                }
+            });
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (RollupResolution resolution : RollupResolution.values()) {
+            result.put(resolution.getCode(), buckets.getOrDefault(resolution.getCode(), 0));
+        }
+        result.put("assets", assetIds.size());
+        result.put("durationMs", System.currentTimeMillis() - startedAt);
+        log.info("Backfilled price rollups for {}: {}", assetId != null ? "asset " + assetId : "all assets", result);
+        return result;
+    }
+
+    /**
+     * Thời điểm từ đó rollup của asset ở độ phân giải này là đầy đủ; rỗng nếu đọc rollup bị tắt hoặc chưa có
+     * watermark (chưa backfill và chưa ghi tick nào sau khi bật rollup). Phần trước mốc phải đọc từ bảng prices.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OffsetDateTime> coveredFrom(UUID assetId, RollupResolution resolution) {
+        if (!readEnabled) return Optional.empty();
+        return priceRollupWatermarkRepository.findByAssetIdAndResolution(assetId, resolution.getCode())
+                .map(PriceRollupWatermark::getCoveredFrom);
+    }
+
+    // Trả về danh sách rỗng nếu tính năng đọc rollup bị tắt hoặc chưa có dữ liệu rollup
+    @Transactional(readOnly = true)
+    public List<PriceRollup> find(UUID assetId, RollupResolution resolution, OffsetDateTime start, OffsetDateTime end) {
+        if (!readEnabled) return Collections.emptyList();
+        return priceRollupRepository.findByAssetIdAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+                assetId, resolution.getCode(), start, end);
+    }
+
+    @Transactional
+    public void deleteByAsset(UUID assetId) {
+        priceRollupRepository.deleteAllByAssetId(assetId);
+        priceRollupWatermarkRepository.deleteAllByAssetId(assetId);
+        watermarked.removeIf(key -> key.startsWith(assetId + "|"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) return;
+        try {
+            log.info("Rollup backfill on startup: {}", backfill(null));
+        } catch (Exception e) {
+            log.error("Rollup backfill on startup failed: {}", e.getMessage());
+        }
+    }
+
+    private static PriceRollup newDelta(UUID assetId, RollupResolution resolution, OffsetDateTime bucketStart, Price price) {
+        return PriceRollup.builder()
+                .assetId(assetId)
+                .resolution(resolution.getCode())
+                .bucketStart(bucketStart)
+                .openPrice(price.getPrice())
+                .highPrice(price.getPrice())
+                .lowPrice(price.getPrice())
+                .closePrice(price.getPrice())
+                .openTime(price.getTimestamp())
+                .closeTime(price.getTimestamp())
+                .volume(price.getVolume())
+                .tickCount(1)
+                .priceSum(price.getPrice())
+                .priceSqSum(price.getPrice().multiply(price.getPrice()))
+                .priceVolumeSum(price.getVolume() != null ? price.getPrice().multiply(price.getVolume()) : null)
+                .build();
+    }
+
+    private static void merge(PriceRollup delta, Price price) {
+        BigDecimal value = price.getPrice();
+        if (price.getTimestamp().isBefore(delta.getOpenTime())) {
+            delta.setOpenPrice(value);
+            delta.setOpenTime(price.getTimestamp());
+        }
+        if (!price.getTimestamp().isBefore(delta.getCloseTime())) {
+            delta.setClosePrice(value);
+            delta.setCloseTime(price.getTimestamp());
+        }
+        if (value.compareTo(delta.getHighPrice()) > 0) delta.setHighPrice(value);
+        if (value.compareTo(delta.getLowPrice()) < 0) delta.setLowPrice(value);
+        if (price.getVolume() != null) {
+            delta.setVolume(delta.getVolume() == null ? price.getVolume() : delta.getVolume().add(price.getVolume()));
+        }
+        delta.setTickCount(delta.getTickCount() + 1);
+        delta.setPriceSum(delta.getPriceSum().add(value));
+        delta.setPriceSqSum(delta.getPriceSqSum().add(value.multiply(value)));
+        if (price.getVolume() != null) {
+            BigDecimal priceVolume = value.multiply(price.getVolume());
+            delta.setPriceVolumeSum(delta.getPriceVolumeSum() == null ? priceVolume : delta.getPriceVolumeSum().add(priceVolume));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.recognition.service.rollup;
+
+import com.recognition.service.candle.CandleInterval;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Các độ phân giải được tổng hợp sẵn trong bảng price_rollups.
+ */
+public enum RollupResolution {
+
+    MINUTE(CandleInterval.ONE_MINUTE),
+    HOUR(CandleInterval.ONE_HOUR),
+    DAY(CandleInterval.ONE_DAY);
+
+    private final CandleInterval interval;
+
+    RollupResolution(CandleInterval interval) {
+        this.interval = interval;
+    }
+
+    public CandleInterval getInterval() {
+        return interval;
+    }
+
+    public String getCode() {
+        return interval.getCode();
+    }
+
+    public static RollupResolution fromCode(String code) {
+        for (RollupResolution resolution : values()) {
+            if (resolution.getCode().equals(code)) return resolution;
+        }
+        throw new IllegalArgumentException("Unknown rollup resolution: " + code);
+    }
+
+    // Bucket đầy đủ đầu tiên bắt đầu không sớm hơn timestamp
+    public OffsetDateTime firstBucketAtOrAfter(OffsetDateTime timestamp) {
+        OffsetDateTime bucketStart = interval.bucketStart(timestamp);
+        return bucketStart.isBefore(timestamp) ? bucketStart.plusSeconds(interval.getSeconds()) : bucketStart;
+    }
+
+    // Rollup thô nhất mà độ rộng nến yêu cầu chia hết cho nó
+    public static RollupResolution coarsestFor(CandleInterval requested) {
+        RollupResolution best = MINUTE;
+        for (RollupResolution resolution : values()) {
+            if (requested.getSeconds() % resolution.interval.getSeconds() == 0) best = resolution;
+        }
+        return best;
+    }
+
+    // Rollup dùng cho getStatistics theo range (day/week/month)
+    public static RollupResolution forStatisticsRange(String range) {
+        return "day".equals(range) ? MINUTE : HOUR;
+    }
+}
@@ -0,0 +1,98 @@
+package com.recognition.service.stats;
+
+import com.recognition.dto.response.StatisticsDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+
+/**
+ * Tính thống kê giá trong một lượt duyệt. Nhận từng tick (accept) hoặc từng nhóm đã tổng hợp sẵn như một dòng rollup (merge).
+ * Phương sai giữ dạng (mean, M2) cập nhật theo Welford cho tick và công thức gộp của Chan cho nhóm, thay vì
+ * sumSquares / n - mean^2: với giá lớn và biên độ nhỏ hai số hạng đó gần bằng nhau và phép trừ double mất hết chữ số.
+ */
+public class PriceStatsAccumulator {
+
+    private static final int SCALE = 8;
+
+    private long count;
+    private double mean;
+    // Tổng bình phương độ lệch so với mean
+    private double m2;
+    private double priceVolumeSum;
+    private double volumeSum;
+
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal first;
+    private BigDecimal last;
+
+    // Các tick phải được đưa vào theo thứ tự thời gian tăng dần
+    public void accept(BigDecimal price, BigDecimal volume) {
+        double p = price.doubleValue();
+        count++;
+        double delta = p - mean;
+        mean += delta / count;
+        m2 += delta * (p - mean);
+        if (volume != null) {
+            double v = volume.doubleValue();
+            priceVolumeSum += p * v;
+            volumeSum += v;
+        }
+        updateBounds(price, price, price, price);
+    }
+
+    /**
+     * groupSum và groupSumSquares là tổng chính xác (NUMERIC của rollup): M2 của nhóm = (n * Σx² - (Σx)²) / n được tính
+     * bằng BigDecimal nên không bị triệt tiêu, chỉ làm tròn một lần khi chuyển sang double.
+     */
+    public void merge(long groupCount, BigDecimal groupSum, BigDecimal groupSumSquares,
+                      BigDecimal low, BigDecimal high, BigDecimal open, BigDecimal close,
+                      double groupPriceVolumeSum, double groupVolumeSum) {
+        if (groupCount == 0) return;
+        BigDecimal n = BigDecimal.valueOf(groupCount);
+        double groupMean = groupSum.doubleValue() / groupCount;
+        double groupM2 = Math.max(0.0, n.multiply(groupSumSquares).subtract(groupSum.multiply(groupSum)).doubleValue()
+                / groupCount);
+
+        long total = count + groupCount;
+        double delta = groupMean - mean;
+        mean += delta * groupCount / total;
+        m2 += groupM2 + delta * delta * ((double) count * groupCount / total);
+        count = total;
+        priceVolumeSum += groupPriceVolumeSum;
+        volumeSum += groupVolumeSum;
+        updateBounds(low, high, open, close);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public StatisticsDTO toStatistics(OffsetDateTime from, OffsetDateTime to) {
+        if (count == 0) {
+            return new StatisticsDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, from, to);
+        }
+
+        double variance = Math.max(0.0, m2 / count);
+
+        return new StatisticsDTO(
+                min, max, scaled(mean), from, to,
+                count,
+                scaled(Math.sqrt(variance)),
+                volumeSum > 0 ? scaled(priceVolumeSum / volumeSum) : null,
+                first, last
+        );
+    }
+
+    private void updateBounds(BigDecimal low, BigDecimal high, BigDecimal open, BigDecimal close) {
+        if (min == null || low.compareTo(min) < 0) min = low;
+        if (max == null || high.compareTo(max) > 0) max = high;
+        if (first == null) first = open;
+        last = close;
+    }
+
+    private static BigDecimal scaled(double value) {
+        return BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+}
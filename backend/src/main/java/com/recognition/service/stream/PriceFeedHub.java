@@ -0,0 +1,211 @@
+package com.recognition.service.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.dto.PriceDto;
+import com.recognition.service.LatestQuoteStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Phát giá realtime tới client qua Server-Sent Events.
+ * Mỗi lần LatestQuoteStore nhận giá mới, hub serialize đúng một lần thành frame SSE (byte[]) và dùng chung
+ * frame đó cho mọi subscriber của asset. Mỗi kết nối có hàng đợi giới hạn; client đọc chậm sẽ mất
+ * các frame cũ nhất chứ không làm chậm luồng ghi giá.
+ */
+@Slf4j
+@Component
+public class PriceFeedHub implements LatestQuoteStore.Listener {
+
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final LatestQuoteStore latestQuoteStore;
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final int maxConnections;
+    private final long heartbeatMs;
+
+    private final Map<UUID, Set<Subscription>> subscribersByAsset = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PriceFeedHub(LatestQuoteStore latestQuoteStore,
+                        ObjectMapper objectMapper,
+                        @Value("${price.feed.queue-capacity:256}") int queueCapacity,
+                        @Value("${price.feed.max-connections:20000}") int maxConnections,
+                        @Value("${price.feed.heartbeat-ms:15000}") long heartbeatMs) {
+        this.latestQuoteStore = latestQuoteStore;
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.maxConnections = maxConnections;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    @PostConstruct
+    void register() {
+        latestQuoteStore.addListener(this);
+    }
+
+    /**
+     * Một kết nối SSE: hàng đợi frame riêng, được ghi ra socket bởi luồng của request (virtual thread).
+     */
+    public final class Subscription {
+
+        private final Set<UUID> assetIds;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private volatile boolean closed;
+
+        private Subscription(Set<UUID> assetIds) {
+            this.assetIds = assetIds;
+        }
+
+        // Gọi từ luồng ghi giá: không bao giờ chặn, bỏ frame cũ nhất khi hàng đợi đầy
+        private void offer(byte[] frame) {
+            while (!queue.offer(frame)) {
+                if (queue.poll() != null) dropped.increment();
+            }
+        }
+
+        /**
+         * Gửi giá hiện tại của các asset đã đăng ký, sau đó ghi frame mới cho tới khi client ngắt kết nối.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                for (UUID assetId : assetIds) {
+                    PriceDto current = latestQuoteStore.get(assetId).orElse(null);
+                    if (current != null) out.write(frame(current));
+                }
+                out.flush();
+
+                while (!closed) {
+                    byte[] frame = queue.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    if (frame != null) {
+                        out.write(frame);
+                        delivered.increment();
+                    } else {
+                        out.write(HEARTBEAT);
+                    }
+                    // Gom các frame đang chờ vào một lần flush
+                    while ((frame = queue.poll()) != null) {
+                        out.write(frame);
+                        delivered.increment();
+                    }
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        // Có thể được gọi đồng thời từ luồng ghi (finally) và callback kết thúc request: chỉ giảm đếm một lần
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            for (UUID assetId : assetIds) {
+                subscribersByAsset.computeIfPresent(assetId, (id, subscribers) -> {
+                    subscribers.remove(this);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+            }
+            connections.decrementAndGet();
+        }
+    }
+
+    // null nếu đã đạt số kết nối tối đa
+    public Subscription subscribe(Set<UUID> assetIds) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        Subscription subscription = new Subscription(Set.copyOf(assetIds));
+        for (UUID assetId : subscription.assetIds) {
+            subscribersByAsset.compute(assetId, (id, subscribers) -> {
+                Set<Subscription> set = subscribers != null ? subscribers : new CopyOnWriteArraySet<>();
+                set.add(subscription);
+                return set;
+            });
+        }
+        return subscription;
+    }
+
+    @Override
+    public void onQuote(PriceDto quote) {
+        Set<Subscription> subscribers = subscribersByAsset.get(quote.getAssetId());
+        if (subscribers == null || subscribers.isEmpty()) return;
+
+        byte[] frame = frame(quote);
+        published.increment();
+        for (Subscription subscription : subscribers) {
+            subscription.offer(frame);
+        }
+    }
+
+    private byte[] frame(PriceDto quote) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("assetId", quote.getAssetId());
+        delta.put("symbol", quote.getAssetSymbol());
+        delta.put("price", quote.getPrice());
+        delta.put("changePercent", quote.getChangePercent());
+        delta.put("volume", quote.getVolume());
+        delta.put("timestamp", quote.getTimestamp());
+        try {
+            String json = objectMapper.writeValueAsString(delta);
+            return ("id: " + sequence.incrementAndGet() + "\nevent: price\ndata: " + json + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize price update for " + quote.getAssetId(), e);
+        }
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    public long deliveredCount() {
+        return delivered.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.get());
+        stats.put("maxConnections", maxConnections);
+        stats.put("subscribedAssets", subscribersByAsset.size());
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("queueCapacity", queueCapacity);
+        return stats;
+    }
+}
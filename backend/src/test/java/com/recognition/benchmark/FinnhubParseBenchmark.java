@@ -0,0 +1,124 @@
+package com.recognition.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.client.dto.FinnhubMetrics;
+import com.recognition.client.dto.FinnhubQuote;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh đọc response Finnhub kiểu cũ (ObjectMapper -> Map -> toString -> new BigDecimal)
+ * với streaming parser đọc thẳng vào record. Chạy với -prof gc để xem số byte cấp phát mỗi lần parse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FinnhubParseBenchmark {
+
+    private static final byte[] QUOTE = """
+            {"c":189.84,"d":-1.2,"dp":-0.6282,"h":191.05,"l":188.2,"o":190.01,"pc":191.04,"t":1700000000}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private byte[] metrics;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        metrics = metricsResponse().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object quoteViaMap() throws IOException {
+        Map<?, ?> body = objectMapper.readValue(QUOTE, Map.class);
+        Object t = body.get("t");
+        return new FinnhubQuote(
+                legacyDecimal(body.get("c")),
+                legacyDecimal(body.get("h")),
+                legacyDecimal(body.get("l")),
+                legacyDecimal(body.get("o")),
+                legacyDecimal(body.get("pc")),
+                legacyDecimal(body.get("v")),
+                t instanceof Number number ? number.longValue() : 0L);
+    }
+
+    @Benchmark
+    public Object quoteStreaming() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(QUOTE)) {
+            return FinnhubQuote.parse(parser);
+        }
+    }
+
+    @Benchmark
+    public Object metricsViaMap() throws IOException {
+        Map<?, ?> body = objectMapper.readValue(metrics, Map.class);
+        Map<?, ?> metric = (Map<?, ?>) body.get("metric");
+        return new FinnhubMetrics(
+                legacySwitch(metric.get("marketCapitalization")),
+                legacySwitch(metric.get("volume")),
+                legacySwitch(metric.get("shareOutstanding")),
+                legacySwitch(metric.get("peNormalizedAnnual")),
+                legacySwitch(metric.get("pbAnnual")),
+                legacySwitch(metric.get("evToEbitdaAnnual")),
+                legacySwitch(metric.get("epsAnnual")),
+                legacySwitch(metric.get("bookValuePerShareAnnual")));
+    }
+
+    @Benchmark
+    public Object metricsStreaming() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(metrics)) {
+            return FinnhubMetrics.parse(parser);
+        }
+    }
+
+    // Cách FinnhubQuote.fromMap cũ đổi giá trị Map sang BigDecimal
+    private static BigDecimal legacyDecimal(Object value) {
+        return value != null ? new BigDecimal(value.toString()) : null;
+    }
+
+    // Cách toBigDecimal cũ (AssetServiceImpl) đổi chỉ số sang BigDecimal
+    private static BigDecimal legacySwitch(Object value) {
+        if (value == null) return null;
+        return switch (value) {
+            case BigDecimal bd -> bd;
+            case Integer i -> BigDecimal.valueOf(i);
+            case Long l -> BigDecimal.valueOf(l);
+            case Double d -> BigDecimal.valueOf(d);
+            case Number n -> new BigDecimal(n.toString());
+            default -> new BigDecimal(value.toString());
+        };
+    }
+
+    // Response /stock/metric?metric=all có kích thước gần thật: ~130 chỉ số và chuỗi series theo quý
+    private static String metricsResponse() {
+        StringBuilder json = new StringBuilder("{\"metric\":{");
+        json.append("\"marketCapitalization\":2950000.123,\"volume\":55123456.5,\"shareOutstanding\":15552.752,")
+                .append("\"peNormalizedAnnual\":31.2274,\"pbAnnual\":47.1093,\"evToEbitdaAnnual\":23.8511,")
+                .append("\"epsAnnual\":6.1339,\"bookValuePerShareAnnual\":4.0278");
+        for (int i = 0; i < 120; i++) {
+            json.append(",\"metric").append(i).append("\":").append(1000 + i * 0.37);
+        }
+        json.append("},\"series\":{\"quarterly\":{");
+        for (int s = 0; s < 20; s++) {
+            if (s > 0) json.append(',');
+            json.append("\"series").append(s).append("\":[");
+            for (int q = 0; q < 40; q++) {
+                if (q > 0) json.append(',');
+                json.append("{\"period\":\"20").append(10 + q / 4).append("-0").append(q % 4 * 3 + 1)
+                        .append("-30\",\"v\":").append(s * 1.5 + q * 0.01).append('}');
+            }
+            json.append(']');
+        }
+        json.append("}},\"metricType\":\"all\",\"symbol\":\"AAPL\"}");
+        return json.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package com.recognition.benchmark;
+
+import com.recognition.dto.PriceTick;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phép tính phần trăm thay đổi giá bằng BigDecimal (cùng công thức với PriceChange: chia scale 4 HALF_UP rồi x100)
+ * trên từng cặp tick liên tiếp của chuỗi giá tổng hợp. Kết quả là thời gian cho cả chuỗi.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceChangeBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Param({"10000"})
+    public int size;
+
+    private BigDecimal[] prices;
+
+    @Setup
+    public void setUp() {
+        List<PriceTick> ticks = new PriceSeries(size, 7 * 24 * 3600, OffsetDateTime.now()).ticks();
+        prices = ticks.stream().map(PriceTick::price).toArray(BigDecimal[]::new);
+    }
+
+    @Benchmark
+    public void changePercentBigDecimal(Blackhole blackhole) {
+        for (int i = 1; i < prices.length; i++) {
+            BigDecimal previous = prices[i - 1];
+            if (previous.compareTo(BigDecimal.ZERO) == 0) continue;
+            blackhole.consume(prices[i].subtract(previous)
+                    .divide(previous, 4, RoundingMode.HALF_UP)
+                    .multiply(HUNDRED));
+        }
+    }
+}
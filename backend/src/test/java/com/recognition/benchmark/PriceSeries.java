@@ -0,0 +1,108 @@
+package com.recognition.benchmark;
+
+import com.recognition.dto.PriceTick;
+import com.recognition.entity.Asset;
+import com.recognition.entity.Price;
+import com.recognition.entity.PriceRollup;
+import com.recognition.service.rollup.RollupResolution;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Chuỗi giá tổng hợp cho benchmark: random walk với seed cố định, size tick cách đều nhau trong
+ * khoảng span giây kết thúc tại end. Cùng tham số luôn sinh cùng dữ liệu.
+ */
+final class PriceSeries {
+
+    private final Asset asset;
+    private final List<PriceTick> ticks;
+
+    PriceSeries(int size, long spanSeconds, OffsetDateTime end) {
+        this.asset = Asset.builder()
+                .id(UUID.nameUUIDFromBytes("benchmark".getBytes()))
+                .symbol("BENCH")
+                .name("Benchmark Asset")
+                .build();
+
+        Random random = new Random(42);
+        double step = (double) spanSeconds / Math.max(1, size);
+        OffsetDateTime start = end.minusSeconds(spanSeconds);
+        double price = 100.0;
+        List<PriceTick> generated = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            price = Math.max(1.0, price * (1 + random.nextGaussian() * 0.001));
+            generated.add(new PriceTick(
+                    start.plusSeconds((long) (i * step)),
+                    BigDecimal.valueOf(price).setScale(8, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(random.nextInt(10_000)).setScale(2, RoundingMode.UNNECESSARY)));
+        }
+        this.ticks = List.copyOf(generated);
+    }
+
+    Asset asset() {
+        return asset;
+    }
+
+    List<PriceTick> ticks() {
+        return ticks;
+    }
+
+    List<Price> prices() {
+        List<Price> prices = new ArrayList<>(ticks.size());
+        BigDecimal previous = null;
+        for (PriceTick tick : ticks) {
+            prices.add(Price.builder()
+                    .id(UUID.randomUUID())
+                    .asset(asset)
+                    .price(tick.price())
+                    .timestamp(tick.timestamp())
+                    .volume(tick.volume())
+                    .high24h(tick.price())
+                    .low24h(tick.price())
+                    .changePercent(previous != null ? tick.price().subtract(previous)
+                            .divide(previous, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)) : null)
+                    .source("Benchmark")
+                    .build());
+            previous = tick.price();
+        }
+        return prices;
+    }
+
+    // Gộp tick thành rollup theo độ phân giải, giống PriceRollupService nhưng trong bộ nhớ
+    List<PriceRollup> rollups(RollupResolution resolution) {
+        Map<Long, PriceRollup> buckets = new TreeMap<>();
+        for (PriceTick tick : ticks) {
+            OffsetDateTime bucketStart = resolution.getInterval().bucketStart(tick.timestamp());
+            PriceRollup rollup = buckets.get(bucketStart.toEpochSecond());
+            BigDecimal price = tick.price();
+            if (rollup == null) {
+                buckets.put(bucketStart.toEpochSecond(), PriceRollup.builder()
+                        .assetId(asset.getId())
+                        .resolution(resolution.getCode())
+                        .bucketStart(bucketStart)
+                        .openPrice(price).highPrice(price).lowPrice(price).closePrice(price)
+                        .openTime(tick.timestamp()).closeTime(tick.timestamp())
+                        .volume(tick.volume())
+                        .tickCount(1)
+                        .priceSum(price)
+                        .priceSqSum(price.multiply(price))
+                        .priceVolumeSum(price.multiply(tick.volume()))
+                        .build());
+                continue;
+            }
+            rollup.setHighPrice(rollup.getHighPrice().max(price));
+            rollup.setLowPrice(rollup.getLowPrice().min(price));
+            rollup.setClosePrice(price);
+            rollup.setCloseTime(tick.timestamp());
+            rollup.setVolume(rollup.getVolume().add(tick.volume()));
+            rollup.setTickCount(rollup.getTickCount() + 1);
+            rollup.setPriceSum(rollup.getPriceSum().add(price));
+            rollup.setPriceSqSum(rollup.getPriceSqSum().add(price.multiply(price)));
+            rollup.setPriceVolumeSum(rollup.getPriceVolumeSum().add(price.multiply(tick.volume())));
+        }
+        return List.copyOf(buckets.values());
+    }
+}
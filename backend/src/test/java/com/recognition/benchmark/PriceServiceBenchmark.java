@@ -0,0 +1,121 @@
+package com.recognition.benchmark;
+
+import com.recognition.client.FinnhubClient;
+import com.recognition.entity.PriceRollup;
+import com.recognition.repository.AssetRepository;
+import com.recognition.repository.PriceJdbcRepository;
+import com.recognition.repository.PriceRepository;
+import com.recognition.service.LatestQuoteStore;
+import com.recognition.service.PriceCacheEvictor;
+import com.recognition.service.TopMoversIndex;
+import com.recognition.service.impl.PriceServiceImpl;
+import com.recognition.service.rollup.PriceRollupService;
+import com.recognition.service.rollup.RollupResolution;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đường đọc giá của PriceServiceImpl trên chuỗi giá tổng hợp (PriceSeries) trong bộ nhớ: repository và
+ * rollup service là mock trả dữ liệu dựng sẵn, nên số đo là chi phí xử lý trong ứng dụng, không gồm database.
+ * size: số tick trong một tuần; source: "ticks" (quét tick) hoặc "rollups" (đọc rollup dựng từ chính các tick đó).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceServiceBenchmark {
+
+    private static final long WEEK_SECONDS = 7 * 24 * 3600;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"ticks", "rollups"})
+    public String source;
+
+    @Param({"500"})
+    public int pageSize;
+
+    private PriceServiceImpl priceService;
+    private UUID assetId;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        PriceSeries series = new PriceSeries(size, WEEK_SECONDS, OffsetDateTime.now());
+        assetId = series.asset().getId();
+        pageable = PageRequest.of(0, pageSize);
+
+        Map<RollupResolution, List<PriceRollup>> rollups = new EnumMap<>(RollupResolution.class);
+        if ("rollups".equals(source)) {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                rollups.put(resolution, series.rollups(resolution));
+            }
+        }
+
+        PriceRepository priceRepository = mock(PriceRepository.class);
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        PriceRollupService priceRollupService = mock(PriceRollupService.class);
+
+        when(assetRepository.existsById(assetId)).thenReturn(true);
+        when(priceRepository.findTopByAssetIdOrderByTimestampDesc(assetId))
+                .thenReturn(Optional.of(series.prices().get(size - 1)));
+        when(priceRepository.streamTicks(eq(assetId), any(), any()))
+                .thenAnswer(invocation -> series.ticks().stream());
+        if ("rollups".equals(source)) {
+            when(priceRollupService.coveredFrom(eq(assetId), any())).thenReturn(Optional.of(Instant.EPOCH.atOffset(ZoneOffset.UTC)));
+        }
+        when(priceRollupService.find(eq(assetId), any(), any(), any()))
+                .thenAnswer(invocation -> rollups.getOrDefault(invocation.<RollupResolution>getArgument(1), Collections.emptyList()));
+        when(priceRepository.findByAssetId(eq(assetId), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(series.prices().subList(0, Math.min(pageSize, size)), pageable, size));
+
+        priceService = new PriceServiceImpl(priceRepository, mock(PriceJdbcRepository.class), assetRepository,
+                mock(FinnhubClient.class), mock(LatestQuoteStore.class), mock(PriceCacheEvictor.class),
+                priceRollupService, mock(TopMoversIndex.class), mock(PlatformTransactionManager.class));
+    }
+
+    // Nến 1 giờ cho cả tuần (168 nến)
+    @Benchmark
+    public Object candlesHourly() {
+        return priceService.getCandles(assetId, "1w", "1h", 200);
+    }
+
+    // Nến 1 phút gần nhất (giới hạn 500 nến)
+    @Benchmark
+    public Object candlesMinute() {
+        return priceService.getCandles(assetId, "1d", "1m", 500);
+    }
+
+    // Thống kê theo tuần; chỉ đường rollup chạy trong bộ nhớ (đường tick tổng hợp bằng SQL nên không đo ở đây)
+    @Benchmark
+    public Object statisticsWeek() {
+        return "rollups".equals(source) ? priceService.getStatistics(assetId, "week") : null;
+    }
+
+    // Một trang lịch sử giá: chi phí mapToDto cho pageSize bản ghi
+    @Benchmark
+    public Object historyPage() {
+        return priceService.getPriceHistoryPaged(assetId, null, null, pageable);
+    }
+}
@@ -0,0 +1,86 @@
+package com.recognition.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinnhubRateLimiterTest {
+
+    @Test
+    void testAcquire_RejectsWhenBucketEmptyAndWaitTooLong() {
+        FinnhubRateLimiter limiter = new FinnhubRateLimiter(2, 100, Duration.ZERO, Duration.ofSeconds(60));
+
+        limiter.acquire("/quote");
+        limiter.acquire("/quote");
+        assertThrows(FinnhubRateLimitException.class, () -> limiter.acquire("/quote"));
+
+        Map<String, Object> stats = limiter.stats();
+        assertEquals(2L, stats.get("acquired"));
+        assertEquals(1L, stats.get("rejected"));
+    }
+
+    @Test
+    void testAcquire_WaitsForRefill() {
+        FinnhubRateLimiter limiter = new FinnhubRateLimiter(20, 1000, Duration.ofSeconds(5), Duration.ofSeconds(60));
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire("/quote");
+        }
+
+        long start = System.nanoTime();
+        limiter.acquire("/quote");
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(waitedMs >= 40, "should wait roughly 1/20 s for the next token, waited " + waitedMs + " ms");
+        assertEquals(1L, limiter.stats().get("waited"));
+    }
+
+    @Test
+    void testAcquire_BackgroundCallerWaitsPastMaxWait() {
+        FinnhubRateLimiter limiter = new FinnhubRateLimiter(20, 1000, Duration.ZERO, Duration.ofSeconds(60));
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire("/quote", FinnhubRateLimiter.Caller.BACKGROUND);
+        }
+
+        // Request interactive bị từ chối ngay, request nền chờ token kế tiếp
+        assertThrows(FinnhubRateLimitException.class, () -> limiter.acquire("/quote"));
+        limiter.acquire("/quote", FinnhubRateLimiter.Caller.BACKGROUND);
+
+        Map<String, Object> stats = limiter.stats();
+        assertEquals(21L, stats.get("acquired"));
+        assertEquals(1L, stats.get("rejected"));
+        assertEquals(1L, stats.get("waited"));
+    }
+
+    @Test
+    void testOnTooManyRequests_PausesAllRequests() {
+        FinnhubRateLimiter limiter = new FinnhubRateLimiter(30, 60, Duration.ofMillis(100), Duration.ofSeconds(60));
+
+        limiter.onTooManyRequests(5L);
+
+        assertThrows(FinnhubRateLimitException.class, () -> limiter.acquire("/quote"));
+        assertEquals(1L, limiter.stats().get("tooManyRequests"));
+    }
+
+    @Test
+    void testParseRetryAfter_SecondsAndHttpDate() {
+        Instant now = Instant.parse("2015-10-21T07:27:00Z");
+
+        assertEquals(Long.valueOf(120), FinnhubRateLimiter.parseRetryAfter(" 120 ", now));
+        assertEquals(Long.valueOf(60), FinnhubRateLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", now));
+        // Thời điểm đã qua: không cần chờ thêm
+        assertEquals(Long.valueOf(0), FinnhubRateLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:26:00 GMT", now));
+    }
+
+    @Test
+    void testParseRetryAfter_InvalidFallsBackToNull() {
+        Instant now = Instant.now();
+
+        assertNull(FinnhubRateLimiter.parseRetryAfter(null, now));
+        assertNull(FinnhubRateLimiter.parseRetryAfter("", now));
+        assertNull(FinnhubRateLimiter.parseRetryAfter("soon", now));
+    }
+}
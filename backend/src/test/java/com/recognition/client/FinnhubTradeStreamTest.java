@@ -0,0 +1,153 @@
+package com.recognition.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.client.dto.FinnhubTrade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chạy FinnhubTradeStream với một websocket server giả lập tối giản trên localhost.
+ */
+class FinnhubTradeStreamTest {
+
+    private ServerSocket server;
+    private FinnhubTradeStream stream;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> toSend = new LinkedBlockingQueue<>();
+    private volatile String requestLine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerSocket(0);
+        Thread thread = new Thread(this::serve, "fake-finnhub-ws");
+        thread.setDaemon(true);
+        thread.start();
+
+        stream = new FinnhubTradeStream(new ObjectMapper(), "ws://localhost:" + server.getLocalPort() + "/",
+                "test-token", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        stream.close();
+        server.close();
+    }
+
+    @Test
+    void testConnect_SubscribesAndReceivesTrades() throws Exception {
+        BlockingQueue<FinnhubTrade> trades = new LinkedBlockingQueue<>();
+        stream.subscribe(List.of("AAPL"));
+        stream.connect(trades::add);
+
+        String subscribe = received.poll(5, TimeUnit.SECONDS);
+        assertEquals("{\"type\":\"subscribe\",\"symbol\":\"AAPL\"}", subscribe);
+        assertTrue(requestLine.contains("token=test-token"));
+
+        toSend.add("{\"type\":\"ping\"}");
+        toSend.add("{\"type\":\"trade\",\"data\":[{\"s\":\"AAPL\",\"p\":189.25,\"v\":100,\"t\":1700000000000},"
+                + "{\"s\":\"AAPL\",\"p\":0,\"v\":5,\"t\":1700000000001}]}");
+
+        FinnhubTrade trade = trades.poll(5, TimeUnit.SECONDS);
+        assertNotNull(trade);
+        assertEquals("AAPL", trade.symbol());
+        assertEquals(0, new BigDecimal("189.25").compareTo(trade.price()));
+        assertEquals(1_700_000_000_000L, trade.timestamp());
+
+        // Trade giá 0 bị bỏ qua
+        assertNull(trades.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(1L, stream.stats().get("trades"));
+    }
+
+    @Test
+    void testSubscribe_SentImmediatelyWhenConnected() throws Exception {
+        stream.connect(trade -> {});
+        stream.subscribe(List.of("MSFT"));
+
+        assertEquals("{\"type\":\"subscribe\",\"symbol\":\"MSFT\"}", received.poll(5, TimeUnit.SECONDS));
+        assertTrue(stream.isConnected());
+    }
+
+    // Server websocket tối giản: bắt tay HTTP, đọc frame text từ client, gửi các frame trong toSend
+    private void serve() {
+        try (Socket socket = server.accept()) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            handshake(in, out);
+
+            Thread reader = new Thread(() -> {
+                try {
+                    while (true) received.add(readFrame(in));
+                } catch (IOException ignored) {
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+
+            while (!socket.isClosed()) {
+                String message = toSend.poll(100, TimeUnit.MILLISECONDS);
+                if (message != null) writeFrame(out, message);
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void handshake(InputStream in, OutputStream out) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+        requestLine = reader.readLine();
+        String key = null;
+        for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                key = line.substring(line.indexOf(':') + 1).trim();
+            }
+        }
+        byte[] digest = MessageDigest.getInstance("SHA-1")
+                .digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.ISO_8859_1));
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(digest) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    // Frame từ client luôn có mask; bỏ qua trường hợp độ dài 64-bit vì message test đều ngắn
+    private static String readFrame(InputStream in) throws IOException {
+        int first = in.read();
+        int second = in.read();
+        if (first < 0 || second < 0) throw new EOFException();
+        int length = second & 0x7F;
+        if (length == 126) length = (in.read() << 8) | in.read();
+        byte[] mask = in.readNBytes(4);
+        byte[] payload = in.readNBytes(length);
+        for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i % 4];
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFrame(OutputStream out, String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        out.write(0x81);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else {
+            out.write(126);
+            out.write(payload.length >> 8);
+            out.write(payload.length & 0xFF);
+        }
+        out.write(payload);
+        out.flush();
+    }
+}
@@ -0,0 +1,87 @@
+package com.recognition.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void testExecute_CoalescesConcurrentCalls() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(0);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> first = singleFlight.execute("AAPL", () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = singleFlight.execute("AAPL", () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+
+        upstream.complete("quote");
+
+        assertEquals("quote", first.join());
+        assertEquals("quote", second.join());
+        assertEquals(1, loads.get());
+        assertEquals(1L, singleFlight.stats().get("coalesced"));
+        assertEquals(0, singleFlight.stats().get("inFlight"));
+    }
+
+    @Test
+    void testExecute_ReusesFreshResultThenReloads() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(TimeUnit.HOURS.toNanos(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("AAPL", () -> CompletableFuture.completedFuture("v" + loads.incrementAndGet())).join();
+        String cached = singleFlight.execute("AAPL", () -> CompletableFuture.completedFuture("v" + loads.incrementAndGet())).join();
+
+        assertEquals("v1", cached);
+        assertEquals(1, loads.get());
+        assertEquals(1L, singleFlight.stats().get("freshHits"));
+    }
+
+    @Test
+    void testExecute_PrunesExpiredResultsOfOtherKeys() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(TimeUnit.MILLISECONDS.toNanos(20));
+
+        singleFlight.execute("US", () -> CompletableFuture.completedFuture("listing")).join();
+        assertEquals(1, singleFlight.stats().get("recent"));
+        Thread.sleep(50);
+
+        // Khoá "US" không được gọi lại nhưng kết quả hết hạn vẫn bị dọn khi có lời gọi khoá khác
+        singleFlight.execute("AAPL", () -> CompletableFuture.completedFuture("quote")).join();
+        assertEquals(1, singleFlight.stats().get("recent"));
+    }
+
+    @Test
+    void testExecute_DoesNotKeepFailures() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(TimeUnit.HOURS.toNanos(1));
+
+        CompletableFuture<String> failed = singleFlight.execute("AAPL",
+                () -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        assertTrue(failed.isCompletedExceptionally());
+
+        String value = singleFlight.execute("AAPL", () -> CompletableFuture.completedFuture("ok")).join();
+        assertEquals("ok", value);
+    }
+
+    @Test
+    void testExecute_CallerCancelDoesNotAffectOthers() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(0);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("AAPL", () -> upstream);
+        CompletableFuture<String> second = singleFlight.execute("AAPL", () -> upstream);
+        first.cancel(true);
+        upstream.complete("quote");
+
+        assertEquals("quote", second.join());
+    }
+}
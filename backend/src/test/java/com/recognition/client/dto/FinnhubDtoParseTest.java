@@ -0,0 +1,66 @@
+package com.recognition.client.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinnhubDtoParseTest {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Test
+    void testQuote_ReadsNumbersExactly() throws Exception {
+        FinnhubQuote quote = parseQuote("""
+                {"c":189.84,"d":-1.2,"dp":-0.6282,"h":191.05,"l":"188.2","o":190,"pc":191.04,"t":1700000000}
+                """);
+
+        assertEquals(new BigDecimal("189.84"), quote.current());
+        assertEquals(new BigDecimal("191.05"), quote.high());
+        assertEquals(new BigDecimal("188.2"), quote.low());
+        assertEquals(new BigDecimal("190"), quote.open());
+        assertEquals(new BigDecimal("191.04"), quote.previousClose());
+        assertNull(quote.volume());
+        assertEquals(1700000000L, quote.timestamp());
+        assertTrue(quote.hasPrice());
+    }
+
+    @Test
+    void testQuote_NullAndNonObjectBody() throws Exception {
+        assertNull(parseQuote("null"));
+        FinnhubQuote quote = parseQuote("{\"c\":null,\"t\":null}");
+        assertNull(quote.current());
+        assertEquals(0L, quote.timestamp());
+    }
+
+    @Test
+    void testMetrics_SkipsSeries() throws Exception {
+        String json = """
+                {"series":{"annual":{"eps":[{"period":"2023-09-30","v":6.13}]}},
+                 "metric":{"10DayAverageTradingVolume":55.1,"marketCapitalization":2950000.5,"peNormalizedAnnual":31.2,
+                           "pbAnnual":null,"epsAnnual":6.1339,"52WeekHighDate":"2023-12-14"},
+                 "metricType":"all","symbol":"AAPL"}
+                """;
+        try (JsonParser parser = factory.createParser(json)) {
+            FinnhubMetrics metrics = FinnhubMetrics.parse(parser);
+
+            assertEquals(new BigDecimal("2950000.5"), metrics.marketCapitalization());
+            assertEquals(new BigDecimal("31.2"), metrics.peNormalizedAnnual());
+            assertEquals(new BigDecimal("6.1339"), metrics.epsAnnual());
+            assertNull(metrics.pbAnnual());
+            assertFalse(metrics.isEmpty());
+        }
+        try (JsonParser parser = factory.createParser("{\"metric\":{},\"series\":{}}")) {
+            assertTrue(FinnhubMetrics.parse(parser).isEmpty());
+        }
+    }
+
+    private FinnhubQuote parseQuote(String json) throws Exception {
+        try (JsonParser parser = factory.createParser(json)) {
+            return FinnhubQuote.parse(parser);
+        }
+    }
+}
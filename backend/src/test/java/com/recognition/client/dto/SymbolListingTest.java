@@ -0,0 +1,54 @@
+package com.recognition.client.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolListingTest {
+
+    private static final String JSON = """
+            [
+              {"currency":"USD","description":"APPLE INC","displaySymbol":"AAPL","figi":"BBG000B9XRY4",
+               "mic":"XNAS","symbol":"AAPL","type":"Common Stock","extra":{"nested":[1,2]}},
+              {"description":"SPDR S&P 500","symbol":"SPY","type":"ETP"},
+              {"description":"MICROSOFT CORP","symbol":"MSFT","type":"Common Stock"},
+              {"description":"NO SYMBOL","type":"Common Stock"}
+            ]
+            """;
+
+    @Test
+    void testParse_KeepsOnlyListingFields() throws Exception {
+        SymbolListing listing = SymbolListing.parse(new JsonFactory(), JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, listing.size());
+        assertEquals("AAPL", listing.symbol(0));
+        assertEquals("APPLE INC", listing.description(0));
+        assertEquals("Common Stock", listing.type(0));
+        assertEquals("ETP", listing.type(1));
+        assertEquals("MSFT", listing.symbol(2));
+        assertSame(listing.type(0), listing.type(2));
+    }
+
+    @Test
+    void testWriteTo_RoundTrip() throws Exception {
+        SymbolListing listing = SymbolListing.parse(new JsonFactory(), JSON.getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        listing.writeTo(new DataOutputStream(bytes));
+        SymbolListing copy = SymbolListing.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(listing.size(), copy.size());
+        for (int i = 0; i < listing.size(); i++) {
+            assertEquals(listing.symbol(i), copy.symbol(i));
+            assertEquals(listing.description(i), copy.description(i));
+            assertEquals(listing.type(i), copy.type(i));
+        }
+    }
+}
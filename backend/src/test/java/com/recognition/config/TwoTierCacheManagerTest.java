@@ -0,0 +1,55 @@
+package com.recognition.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoTierCacheManagerTest {
+
+    private TwoTierCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        TieredCacheProperties properties = new TieredCacheProperties();
+        TieredCacheProperties.Spec spec = new TieredCacheProperties.Spec();
+        spec.setTtl(Duration.ofSeconds(30));
+        spec.setLocalTtl(Duration.ofSeconds(5));
+        properties.getCaches().put(CacheNames.LATEST_PRICE, spec);
+
+        manager = new TwoTierCacheManager(properties, null);
+        manager.afterPropertiesSet();
+    }
+
+    @Test
+    void testLoadCaches_CreatesDeclaredCaches() {
+        assertTrue(manager.getCacheNames().contains(CacheNames.LATEST_PRICE));
+        assertInstanceOf(TwoTierCache.class, manager.getCache(CacheNames.LATEST_PRICE));
+    }
+
+    @Test
+    void testGetCache_CreatesUndeclaredCacheWithDefaults() {
+        assertInstanceOf(TwoTierCache.class, manager.getCache("other"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> other = (Map<String, Object>) manager.stats().get("other");
+        assertEquals(Duration.ofMinutes(1).toString(), other.get("ttl"));
+        assertEquals(Duration.ofMinutes(1).toString(), other.get("localTtl"));
+    }
+
+    @Test
+    void testStats_ReportsTtlsAndLocalHits() {
+        manager.getCache(CacheNames.LATEST_PRICE).put("AAPL", "quote");
+        manager.getCache(CacheNames.LATEST_PRICE).get("AAPL");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) manager.stats().get(CacheNames.LATEST_PRICE);
+        assertEquals("PT30S", stats.get("ttl"));
+        assertEquals("PT5S", stats.get("localTtl"));
+        assertEquals(1L, stats.get("localHits"));
+        assertEquals(false, stats.get("remoteEnabled"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.recognition.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoTierCacheTest {
+
+    private CaffeineCache local;
+    private ConcurrentMapCache remote;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        local = new CaffeineCache("test", Caffeine.newBuilder().recordStats().build(), false);
+        remote = new ConcurrentMapCache("test", false);
+        cache = new TwoTierCache("test", local, remote);
+    }
+
+    @Test
+    void testGet_FallsBackToRemoteAndFillsLocal() {
+        remote.put("AAPL", "quote");
+
+        assertEquals("quote", cache.get("AAPL").get());
+        assertNotNull(local.get("AAPL"));
+        assertEquals(1L, cache.stats().get("remoteHits"));
+
+        assertNull(cache.get("MSFT"));
+        assertEquals(1L, cache.stats().get("remoteMisses"));
+    }
+
+    @Test
+    void testPutAndEvict_ApplyToBothTiers() {
+        cache.put("AAPL", "quote");
+        assertNotNull(local.get("AAPL"));
+        assertNotNull(remote.get("AAPL"));
+
+        cache.evict("AAPL");
+        assertNull(local.get("AAPL"));
+        assertNull(remote.get("AAPL"));
+    }
+
+    @Test
+    void testGetWithLoader_LoadsOnceAndWritesRemote() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("AAPL", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("AAPL", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals("v1", remote.get("AAPL").get());
+    }
+
+    @Test
+    void testRemoteErrors_AreCountedAndIgnored() {
+        TwoTierCache failing = new TwoTierCache("test", local, new FailingCache());
+
+        failing.put("AAPL", "quote");
+        assertEquals("quote", failing.get("AAPL").get());
+        assertNull(failing.get("MSFT"));
+        failing.evict("AAPL");
+        failing.clear();
+
+        assertEquals(4L, failing.stats().get("remoteErrors"));
+        assertNull(local.get("AAPL"));
+    }
+
+    @Test
+    void testWithoutRemote_UsesLocalOnly() {
+        TwoTierCache localOnly = new TwoTierCache("test", local, null);
+
+        localOnly.put("AAPL", "quote");
+        assertEquals("quote", localOnly.get("AAPL").get());
+        assertNull(localOnly.get("MSFT"));
+        assertEquals(false, localOnly.stats().get("remoteEnabled"));
+    }
+
+    // Giả lập Redis không kết nối được
+    private static class FailingCache extends ConcurrentMapCache {
+
+        FailingCache() {
+            super("test", false);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public void evict(Object key) {
+            throw new IllegalStateException("redis down");
+        }
+
+        @Override
+        public void clear() {
+            throw new IllegalStateException("redis down");
+        }
+    }
+}
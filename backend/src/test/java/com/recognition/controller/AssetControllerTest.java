@@ -5,6 +5,7 @@ import com.recognition.entity.Asset;
 import com.recognition.entity.Price;
 import com.recognition.exception.ResourceNotFoundException;
 import com.recognition.service.AssetService;
+import com.recognition.service.discovery.AssetDiscoveryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -34,6 +35,9 @@ class AssetControllerTest {
     @MockBean
     private AssetService assetService;
 
+    @MockBean
+    private AssetDiscoveryService assetDiscoveryService;
+
     private Asset mockAsset;
 
     @BeforeEach
@@ -3,8 +3,11 @@ package com.recognition.controller;
 import com.recognition.dto.PriceDto;
 import com.recognition.dto.response.StatisticsDTO;
 import com.recognition.entity.Price;
+import com.recognition.exception.InvalidCursorException;
 import com.recognition.service.AsyncPriceService;
 import com.recognition.service.PriceService;
+import com.recognition.service.export.PriceExportService;
+import com.recognition.service.stream.PriceFeedHub;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -39,6 +42,12 @@ class PriceControllerTest {
     @MockBean
     private AsyncPriceService asyncPriceService;
 
+    @MockBean
+    private PriceExportService priceExportService;
+
+    @MockBean
+    private PriceFeedHub priceFeedHub;
+
     private UUID assetId;
     private PriceDto mockPrice;
 
@@ -113,9 +122,19 @@ class PriceControllerTest {
                 .andExpect(jsonPath("$.content[0].price").value(120.5));
     }
 
+    @Test
+    void testGetPriceHistoryByCursor_InvalidCursorReturns400() throws Exception {
+        Mockito.when(priceService.getPriceHistoryByCursor(eq(assetId), any(), any(), eq("garbage"), anyInt()))
+                .thenThrow(new InvalidCursorException("garbage"));
+
+        mockMvc.perform(get("/api/prices/{id}/history", assetId).param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: garbage"));
+    }
+
     @Test
     void testGetChart() throws Exception {
-        Mockito.when(priceService.getCandles(any(), anyString(), anyInt()))
+        Mockito.when(priceService.getCandles(any(), anyString(), any(), anyInt()))
                 .thenReturn(List.of());
 
         mockMvc.perform(get("/api/prices/{id}/chart", assetId))
@@ -0,0 +1,56 @@
+package com.recognition.dto;
+
+import com.recognition.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceCursorTest {
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        PriceCursor cursor = new PriceCursor(
+                OffsetDateTime.of(2025, 10, 20, 14, 30, 15, 123_456_000, ZoneOffset.UTC), UUID.randomUUID());
+
+        PriceCursor decoded = PriceCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void testEncodeDecode_NormalizesToUtcMicros() {
+        // Postgres lưu tới micro giây: phần nano dư bị bỏ, offset quy về UTC
+        OffsetDateTime timestamp = OffsetDateTime.of(2025, 10, 20, 21, 30, 15, 123_456_789, ZoneOffset.ofHours(7));
+        UUID id = UUID.randomUUID();
+
+        PriceCursor decoded = PriceCursor.decode(new PriceCursor(timestamp, id).encode());
+
+        assertEquals(OffsetDateTime.of(2025, 10, 20, 14, 30, 15, 123_456_000, ZoneOffset.UTC), decoded.timestamp());
+        assertEquals(id, decoded.id());
+    }
+
+    @Test
+    void testEncode_IsUrlSafe() {
+        String encoded = PriceCursor.first(OffsetDateTime.now(ZoneOffset.UTC)).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void testDecode_InvalidCursorThrows() {
+        assertThrows(InvalidCursorException.class, () -> PriceCursor.decode("not base64!"));
+        assertThrows(InvalidCursorException.class, () -> PriceCursor.decode(encode("1700000000000000")));
+        assertThrows(InvalidCursorException.class, () -> PriceCursor.decode(encode("abc:" + UUID.randomUUID())));
+        assertThrows(InvalidCursorException.class, () -> PriceCursor.decode(encode("1700000000000000:not-a-uuid")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,178 @@
+package com.recognition.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finnhub giả chạy trong tiến trình test (HttpServer của JDK, mỗi request một virtual thread) để chạy tải
+ * mà không tốn quota thật. Hỗ trợ /quote, /stock/symbol và /stock/metric với độ trễ, tỉ lệ lỗi 5xx
+ * và giới hạn request/giây (vượt thì trả 429 kèm Retry-After) cấu hình được qua Behavior.
+ */
+class FakeFinnhubServer implements AutoCloseable {
+
+    /**
+     * latencyMs + ngẫu nhiên [0, jitterMs) cho mỗi request; errorRate: xác suất trả 500;
+     * ratePerSecond: số request mỗi giây trước khi trả 429 (0 = không giới hạn).
+     */
+    record Behavior(long latencyMs, long jitterMs, double errorRate, int ratePerSecond) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int symbolCount;
+    private final Map<String, Double> prices = new ConcurrentHashMap<>();
+    private volatile Behavior behavior;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong windowSecond = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    FakeFinnhubServer(Behavior behavior, int symbolCount) throws IOException {
+        this.behavior = behavior;
+        this.symbolCount = symbolCount;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void setBehavior(Behavior behavior) {
+        this.behavior = behavior;
+    }
+
+    // Mã dùng cho cả /stock/symbol và dữ liệu seed của test: SYM0000, SYM0001...
+    static String symbol(int index) {
+        return "SYM%04d".formatted(index);
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("throttled", throttled.get());
+        stats.put("errors", errors.get());
+        stats.put("behavior", behavior);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            Behavior current = behavior;
+
+            if (!admit(current)) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "{\"error\":\"API limit reached\"}");
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = current.latencyMs() + (current.jitterMs() > 0 ? random.nextLong(current.jitterMs()) : 0);
+            if (delay > 0) Thread.sleep(delay);
+
+            if (random.nextDouble() < current.errorRate()) {
+                errors.incrementAndGet();
+                respond(exchange, 500, "{\"error\":\"internal\"}");
+                return;
+            }
+
+            URI uri = exchange.getRequestURI();
+            Map<String, String> params = query(uri);
+            switch (uri.getPath()) {
+                case "/quote" -> respond(exchange, 200, quote(params.get("symbol")));
+                case "/stock/symbol" -> respond(exchange, 200, symbols());
+                case "/stock/metric" -> respond(exchange, 200, metric(params.get("symbol")));
+                default -> respond(exchange, 404, "{}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Cửa sổ cố định 1 giây, đủ để tái hiện hành vi 429 của Finnhub
+    private boolean admit(Behavior current) {
+        if (current.ratePerSecond() <= 0) return true;
+        long second = System.currentTimeMillis() / 1000;
+        long window = windowSecond.get();
+        if (window != second && windowSecond.compareAndSet(window, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= current.ratePerSecond();
+    }
+
+    // Giá đi theo random walk riêng cho từng mã
+    private String quote(String symbol) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double previous = prices.getOrDefault(symbol, 50 + random.nextDouble(450));
+        double price = Math.max(1.0, previous * (1 + random.nextGaussian() * 0.002));
+        prices.put(symbol, price);
+        return String.format(Locale.ROOT, "{\"c\":%.4f,\"d\":%.4f,\"dp\":%.4f,\"h\":%.4f,\"l\":%.4f,\"o\":%.4f,\"pc\":%.4f,\"t\":%d}",
+                price, price - previous, (price - previous) / previous * 100, Math.max(price, previous) * 1.01,
+                Math.min(price, previous) * 0.99, previous, previous, System.currentTimeMillis() / 1000);
+    }
+
+    private String symbols() {
+        StringBuilder json = new StringBuilder(symbolCount * 120).append('[');
+        for (int i = 0; i < symbolCount; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"currency\":\"USD\",\"description\":\"LOAD TEST ").append(i)
+                    .append("\",\"displaySymbol\":\"").append(symbol(i))
+                    .append("\",\"mic\":\"XNAS\",\"symbol\":\"").append(symbol(i))
+                    .append("\",\"type\":\"Common Stock\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private String metric(String symbol) {
+        return "{\"metric\":{\"marketCapitalization\":1250.5,\"peNormalizedAnnual\":21.3,\"pbAnnual\":3.2,"
+                + "\"epsAnnual\":2.15,\"bookValuePerShareAnnual\":11.8},\"metricType\":\"all\",\"symbol\":\"" + symbol + "\"}";
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.recognition.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sinh tải kiểu mở (open model): request thứ i được lên lịch tại start + i / rps, không chờ request trước trả về,
+ * mỗi request một virtual thread. Độ trễ tính từ thời điểm đã lên lịch nên khi server chậm, thời gian xếp hàng
+ * cũng được tính (tránh coordinated omission).
+ */
+final class LoadGenerator {
+
+    // Trả về HTTP status; 5xx hoặc exception (timeout, mất kết nối) được tính là lỗi
+    @FunctionalInterface
+    interface Request {
+        int send() throws Exception;
+    }
+
+    record Result(String scenario, int targetRps, long requests, long errors, double durationSeconds,
+                  double throughput, double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("scenario", scenario);
+            map.put("targetRps", targetRps);
+            map.put("requests", requests);
+            map.put("errors", errors);
+            map.put("durationSeconds", round(durationSeconds));
+            map.put("throughput", round(throughput));
+            map.put("p50Ms", round(p50Ms));
+            map.put("p99Ms", round(p99Ms));
+            map.put("p999Ms", round(p999Ms));
+            map.put("maxMs", round(maxMs));
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return "%-28s rps=%4d req=%6d err=%5d thr=%8.1f/s p50=%8.2fms p99=%8.2fms p999=%8.2fms max=%8.2fms"
+                    .formatted(scenario, targetRps, requests, errors, throughput, p50Ms, p99Ms, p999Ms, maxMs);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+
+    private LoadGenerator() {
+    }
+
+    static Result run(String scenario, int rps, Duration duration, Request request) throws InterruptedException {
+        int total = (int) Math.max(1, rps * duration.toMillis() / 1000);
+        long periodNanos = 1_000_000_000L / Math.max(1, rps);
+        long[] latencies = new long[total];
+        AtomicInteger errors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        // close() chờ mọi request đã gửi hoàn tất
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                long scheduled = start + i * periodNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                int slot = i;
+                executor.execute(() -> {
+                    try {
+                        if (request.send() >= 500) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[slot] = System.nanoTime() - scheduled;
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        return new Result(scenario, rps, total, errors.get(), seconds, total / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
@@ -0,0 +1,241 @@
+package com.recognition.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.entity.Asset;
+import com.recognition.repository.AssetJdbcRepository;
+import com.recognition.repository.AssetRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test đầu-cuối: ứng dụng thật (cổng ngẫu nhiên), Postgres qua Testcontainers và FakeFinnhubServer thay cho Finnhub.
+ * Chỉ chạy với profile loadtest (cần Docker):
+ * <pre>
+ * ./mvnw -Ploadtest test -Dloadtest.rps=200 -Dloadtest.duration=60s -Dfake.latency-ms=80 -Dfake.rate-limit=30
+ * </pre>
+ * Mỗi kịch bản in throughput và p50/p99/p999; báo cáo đầy đủ ghi ra target/loadtest/report.json.
+ */
+@Testcontainers
+@ActiveProfiles("dev")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PriceApiLoadTest {
+
+    private static final int RPS = Integer.getInteger("loadtest.rps", 50);
+    private static final int FETCH_ALL_RPS = Integer.getInteger("loadtest.fetch-all-rps", 2);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+    private static final int ASSETS = Integer.getInteger("loadtest.assets", 200);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static final FakeFinnhubServer FINNHUB = startFinnhub();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl()
+                + (POSTGRES.getJdbcUrl().contains("?") ? "&" : "?") + "reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("finnhub.api.key", () -> "loadtest");
+        registry.add("finnhub.api.base-url", FINNHUB::baseUrl);
+        // Rate limiter của ứng dụng theo quota giả; giới hạn thật do FakeFinnhubServer áp (429)
+        registry.add("finnhub.rate-limit.per-second", () -> System.getProperty("fake.rate-limit", "30"));
+        registry.add("finnhub.rate-limit.per-minute", () -> Integer.getInteger("fake.rate-limit", 30) * 60);
+        registry.add("jwt.secret", () -> "loadtest-secret-loadtest-secret-loadtest-secret-loadtest-secret-0123");
+        registry.add("jwt.expiration", () -> "86400000");
+        registry.add("jwt.refresh-expiration", () -> "604800000");
+        registry.add("crypto.api.key", () -> "loadtest");
+        registry.add("metals.api.key", () -> "loadtest");
+        registry.add("spring.security.oauth2.client.registration.google.client-id", () -> "loadtest");
+        registry.add("spring.security.oauth2.client.registration.google.client-secret", () -> "loadtest");
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AssetJdbcRepository assetJdbcRepository;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @AfterAll
+    static void stopFinnhub() {
+        FINNHUB.close();
+    }
+
+    @Test
+    void priceApiUnderLoad() throws Exception {
+        List<UUID> assetIds = seedAssets();
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        Map<String, Object> ingest = new LinkedHashMap<>();
+
+        // 1. fetch-all/start liên tục: phần lớn lời gọi trả lại job đang chạy (dedup), job nền ghi giá vào DB
+        Set<String> jobIds = Collections.synchronizedSet(new LinkedHashSet<>());
+        results.add(LoadGenerator.run("POST fetch-all/start", FETCH_ALL_RPS, DURATION, () -> {
+            HttpResponse<String> response = post("/api/prices/fetch-all/start");
+            if (response.statusCode() == 200) jobIds.add(json(response.body()).path("jobId").asText());
+            return response.statusCode();
+        }));
+        for (String jobId : jobIds) {
+            ingest.put(jobId, awaitJob(jobId));
+        }
+
+        // 2. Từng endpoint đọc ở RPS mục tiêu, sau khi đã có lịch sử giá
+        results.add(LoadGenerator.run("GET {id}/latest", RPS, DURATION,
+                () -> get("/api/prices/" + pick(assetIds) + "/latest")));
+        results.add(LoadGenerator.run("GET {id}/chart", RPS, DURATION,
+                () -> get("/api/prices/" + pick(assetIds) + "/chart?interval=1d&bucket=1m&limit=100")));
+        results.add(LoadGenerator.run("GET top", RPS, DURATION,
+                () -> get("/api/prices/top?limit=10&type=" + (ThreadLocalRandom.current().nextBoolean() ? "gainers" : "losers"))));
+
+        // 3. Đọc hỗn hợp trong khi một job fetch-all đang ghi
+        String mixedJob = json(post("/api/prices/fetch-all/start").body()).path("jobId").asText();
+        results.add(LoadGenerator.run("mixed read during ingest", RPS, DURATION, () -> switch (ThreadLocalRandom.current().nextInt(3)) {
+            case 0 -> get("/api/prices/" + pick(assetIds) + "/latest");
+            case 1 -> get("/api/prices/" + pick(assetIds) + "/chart?interval=1d&bucket=1m&limit=100");
+            default -> get("/api/prices/top?limit=10");
+        }));
+        ingest.put(mixedJob, awaitJob(mixedJob));
+
+        report(results, ingest);
+
+        for (LoadGenerator.Result result : results) {
+            assertTrue(result.requests() > 0, result.scenario());
+            assertTrue(result.errors() <= result.requests() * MAX_ERROR_RATE,
+                    result.scenario() + ": " + result.errors() + " errors in " + result.requests() + " requests");
+        }
+    }
+
+    private List<UUID> seedAssets() {
+        List<Asset> assets = new ArrayList<>(ASSETS);
+        for (int i = 0; i < ASSETS; i++) {
+            assets.add(Asset.builder()
+                    .symbol(FakeFinnhubServer.symbol(i))
+                    .name("Load Test " + i)
+                    .description("Common Stock")
+                    .isActive(true)
+                    .build());
+        }
+        assetJdbcRepository.batchUpsert(assets);
+        return assetRepository.findBySymbolIn(assets.stream().map(Asset::getSymbol).toList())
+                .stream().map(Asset::getId).toList();
+    }
+
+    private Map<String, Object> awaitJob(String jobId) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofMinutes(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            JsonNode status = json(send("/api/prices/fetch-all/status/" + jobId).body());
+            String state = status.path("status").asText();
+            if (!state.equals("QUEUED") && !state.equals("RUNNING")) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                for (String field : List.of("status", "total", "processed", "succeeded", "failed", "durationMs", "symbolsPerSecond")) {
+                    summary.put(field, status.path(field).asText());
+                }
+                return summary;
+            }
+            Thread.sleep(500);
+        }
+        fail("fetch-all job " + jobId + " did not finish");
+        return Map.of();
+    }
+
+    private void report(List<LoadGenerator.Result> results, Map<String, Object> ingest) throws IOException {
+        System.out.println("==== Load test: " + ASSETS + " assets, " + DURATION.toSeconds() + "s per scenario ====");
+        results.forEach(System.out::println);
+        ingest.forEach((jobId, summary) -> System.out.println("fetch-all " + jobId + " -> " + summary));
+        System.out.println("fake finnhub -> " + FINNHUB.stats());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("assets", ASSETS);
+        report.put("durationSeconds", DURATION.toSeconds());
+        report.put("scenarios", results.stream().map(LoadGenerator.Result::toMap).toList());
+        report.put("fetchAllJobs", ingest);
+        report.put("finnhub", FINNHUB.stats());
+
+        Path file = Path.of("target", "loadtest", "report.json");
+        Files.createDirectories(file.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private int get(String path) throws Exception {
+        return send(path).statusCode();
+    }
+
+    private HttpResponse<String> send(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(30)).GET().build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private JsonNode json(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UUID pick(List<UUID> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static FakeFinnhubServer startFinnhub() {
+        try {
+            return new FakeFinnhubServer(new FakeFinnhubServer.Behavior(
+                    Long.getLong("fake.latency-ms", 50),
+                    Long.getLong("fake.jitter-ms", 50),
+                    Double.parseDouble(System.getProperty("fake.error-rate", "0.01")),
+                    Integer.getInteger("fake.rate-limit", 30)),
+                    ASSETS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
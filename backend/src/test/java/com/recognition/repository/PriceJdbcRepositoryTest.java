@@ -0,0 +1,84 @@
+package com.recognition.repository;
+
+import com.recognition.entity.Asset;
+import com.recognition.entity.Price;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(PriceJdbcRepository.class)
+class PriceJdbcRepositoryTest extends PostgresRepositoryTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2024, 5, 1, 14, 30, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private PriceJdbcRepository priceJdbcRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Test
+    void testBatchInsert_ReturnsOnlyInsertedRows() {
+        Asset asset = saveAsset("AAPL");
+        List<Price> first = List.of(price(asset, "189.84", T0), price(asset, "190.01", T0.plusMinutes(1)));
+        assertEquals(2, priceJdbcRepository.batchInsert(first).size());
+
+        // Lặp lại cùng asset/timestamp/source (retry) cộng một bản ghi mới
+        List<Price> retry = List.of(price(asset, "189.84", T0), price(asset, "190.01", T0.plusMinutes(1)),
+                price(asset, "190.50", T0.plusMinutes(2)));
+        List<Price> inserted = priceJdbcRepository.batchInsert(retry);
+
+        assertEquals(1, inserted.size());
+        assertSame(retry.get(2), inserted.get(0));
+        assertEquals(3, priceRepository.count());
+    }
+
+    @Test
+    void testBatchInsert_KeepsValuesAcrossBatches() {
+        Asset asset = saveAsset("MSFT");
+        List<Price> prices = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            Price price = price(asset, "400.12345678", T0.plusSeconds(i));
+            price.setVolume(i % 2 == 0 ? new BigDecimal("1E+3") : null);
+            prices.add(price);
+        }
+
+        assertEquals(1_200, priceJdbcRepository.batchInsert(prices).size());
+
+        Price stored = priceRepository.findFirstByAssetIdOrderByTimestampDesc(asset.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("400.12345678").compareTo(stored.getPrice()));
+        assertEquals(T0.plusSeconds(1_199).toInstant(), stored.getTimestamp().toInstant());
+        assertNull(stored.getVolume());
+        assertEquals("Finnhub", stored.getSource());
+    }
+
+    @Test
+    void testBatchInsert_StoresDayVolumeApartFromVolume() {
+        Asset asset = saveAsset("NVDA");
+        Price price = price(asset, "120.50", T0);
+        price.setDayVolume(new BigDecimal("35000000"));
+        priceJdbcRepository.batchInsert(List.of(price));
+
+        Price stored = priceRepository.findFirstByAssetIdOrderByTimestampDesc(asset.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("35000000").compareTo(stored.getDayVolume()));
+        assertNull(stored.getVolume());
+        assertEquals(0, new BigDecimal("35000000").compareTo(stored.displayVolume()));
+    }
+
+    private static Price price(Asset asset, String value, OffsetDateTime timestamp) {
+        return Price.builder()
+                .asset(asset)
+                .price(new BigDecimal(value))
+                .timestamp(timestamp)
+                .source("Finnhub")
+                .build();
+    }
+}
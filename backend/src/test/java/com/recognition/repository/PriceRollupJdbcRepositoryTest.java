@@ -0,0 +1,147 @@
+package com.recognition.repository;
+
+import com.recognition.entity.Asset;
+import com.recognition.entity.Price;
+import com.recognition.entity.PriceRollup;
+import com.recognition.entity.PriceRollupWatermark;
+import com.recognition.service.rollup.PriceRollupService;
+import com.recognition.service.rollup.RollupResolution;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import({PriceJdbcRepository.class, PriceRollupJdbcRepository.class, PriceRollupService.class})
+class PriceRollupJdbcRepositoryTest extends PostgresRepositoryTest {
+
+    private static final OffsetDateTime MINUTE = OffsetDateTime.of(2024, 5, 1, 14, 30, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private PriceJdbcRepository priceJdbcRepository;
+
+    @Autowired
+    private PriceRollupJdbcRepository priceRollupJdbcRepository;
+
+    @Autowired
+    private PriceRollupRepository priceRollupRepository;
+
+    @Autowired
+    private PriceRollupWatermarkRepository priceRollupWatermarkRepository;
+
+    @Autowired
+    private PriceRollupService priceRollupService;
+
+    @Test
+    void testUpsert_OpenAndCloseFollowTickTime() {
+        Asset asset = saveAsset("AAPL");
+
+        // Lần ghi sau chứa cả tick sớm hơn (tới trễ) lẫn tick muộn hơn lần ghi trước
+        priceRollupService.record(List.of(price(asset, "101", MINUTE.plusSeconds(30), "2")));
+        priceRollupService.record(List.of(
+                price(asset, "99", MINUTE.plusSeconds(10), "1"),
+                price(asset, "103", MINUTE.plusSeconds(50), "3")));
+
+        PriceRollup rollup = find(asset, RollupResolution.MINUTE).get(0);
+        assertEquals(0, new BigDecimal("99").compareTo(rollup.getOpenPrice()));
+        assertEquals(0, new BigDecimal("103").compareTo(rollup.getClosePrice()));
+        assertEquals(0, new BigDecimal("103").compareTo(rollup.getHighPrice()));
+        assertEquals(0, new BigDecimal("99").compareTo(rollup.getLowPrice()));
+        assertEquals(MINUTE.plusSeconds(10).toInstant(), rollup.getOpenTime().toInstant());
+        assertEquals(MINUTE.plusSeconds(50).toInstant(), rollup.getCloseTime().toInstant());
+        assertEquals(3, rollup.getTickCount());
+        assertEquals(0, new BigDecimal("6").compareTo(rollup.getVolume()));
+        assertEquals(0, new BigDecimal("303").compareTo(rollup.getPriceSum()));
+    }
+
+    @Test
+    void testRecord_SetsWatermarkAfterFirstBucket() {
+        Asset asset = saveAsset("MSFT");
+
+        priceRollupService.record(List.of(price(asset, "400", MINUTE.plusSeconds(30), null)));
+        priceRollupService.record(List.of(price(asset, "401", MINUTE.plusMinutes(5), null)));
+
+        // Bucket đầu tiên có thể thiếu tick cũ: chỉ tin rollup từ bucket kế tiếp, lần ghi sau không dời mốc
+        assertEquals(MINUTE.plusMinutes(1).toInstant(), coveredFrom(asset, RollupResolution.MINUTE));
+        assertEquals(MINUTE.withMinute(0).plusHours(1).toInstant(), coveredFrom(asset, RollupResolution.HOUR));
+    }
+
+    @Test
+    void testBackfill_OverwritesBucketsAndResetsWatermark() {
+        Asset asset = saveAsset("NVDA");
+        List<Price> prices = List.of(
+                price(asset, "120", MINUTE.plusSeconds(5), "10"),
+                price(asset, "125", MINUTE.plusSeconds(35), "20"));
+        priceJdbcRepository.batchInsert(prices);
+        // Rollup bị cộng hai lần (ví dụ batch ghi lại trước khi có RETURNING)
+        priceRollupService.record(prices);
+        priceRollupService.record(prices);
+
+        priceRollupJdbcRepository.backfill(RollupResolution.MINUTE.getCode(),
+                RollupResolution.MINUTE.getInterval().getSeconds(), asset.getId());
+
+        PriceRollup rollup = find(asset, RollupResolution.MINUTE).get(0);
+        assertEquals(2, rollup.getTickCount());
+        assertEquals(0, new BigDecimal("30").compareTo(rollup.getVolume()));
+        assertEquals(0, new BigDecimal("245").compareTo(rollup.getPriceSum()));
+        assertEquals(0, new BigDecimal("120").compareTo(rollup.getOpenPrice()));
+        assertEquals(0, new BigDecimal("125").compareTo(rollup.getClosePrice()));
+        assertEquals(Instant.EPOCH, coveredFrom(asset, RollupResolution.MINUTE));
+    }
+
+    @Test
+    void testUpsert_KeepsNullSquareSum() {
+        Asset asset = saveAsset("TSLA");
+        PriceRollup legacy = rollup(asset, "200", null);
+        priceRollupJdbcRepository.upsert(List.of(legacy));
+
+        priceRollupJdbcRepository.upsert(List.of(rollup(asset, "210", new BigDecimal("44100"))));
+
+        // Dòng cũ không có tổng bình phương: không được cộng dồn thành giá trị sai
+        PriceRollup rollup = find(asset, RollupResolution.MINUTE).get(0);
+        assertNull(rollup.getPriceSqSum());
+        assertEquals(2, rollup.getTickCount());
+    }
+
+    private List<PriceRollup> find(Asset asset, RollupResolution resolution) {
+        return priceRollupRepository.findByAssetIdAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+                asset.getId(), resolution.getCode(), MINUTE.minusDays(1), MINUTE.plusDays(1));
+    }
+
+    private Instant coveredFrom(Asset asset, RollupResolution resolution) {
+        return priceRollupWatermarkRepository.findByAssetIdAndResolution(asset.getId(), resolution.getCode())
+                .map(PriceRollupWatermark::getCoveredFrom)
+                .orElseThrow()
+                .toInstant();
+    }
+
+    private static Price price(Asset asset, String value, OffsetDateTime timestamp, String volume) {
+        return Price.builder()
+                .asset(asset)
+                .price(new BigDecimal(value))
+                .timestamp(timestamp)
+                .source("Finnhub")
+                .volume(volume != null ? new BigDecimal(volume) : null)
+                .build();
+    }
+
+    private static PriceRollup rollup(Asset asset, String value, BigDecimal priceSqSum) {
+        BigDecimal price = new BigDecimal(value);
+        return PriceRollup.builder()
+                .assetId(asset.getId())
+                .resolution(RollupResolution.MINUTE.getCode())
+                .bucketStart(MINUTE)
+                .openPrice(price).highPrice(price).lowPrice(price).closePrice(price)
+                .openTime(MINUTE).closeTime(MINUTE)
+                .tickCount(1)
+                .priceSum(price)
+                .priceSqSum(priceSqSum)
+                .build();
+    }
+}
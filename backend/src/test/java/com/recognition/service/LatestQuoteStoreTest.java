@@ -0,0 +1,77 @@
+package com.recognition.service;
+
+import com.recognition.dto.PriceDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatestQuoteStoreTest {
+
+    private LatestQuoteStore store;
+    private UUID assetId;
+
+    @BeforeEach
+    void setUp() {
+        store = new LatestQuoteStore();
+        assetId = UUID.randomUUID();
+    }
+
+    @Test
+    void testGet_CountsHitsAndMisses() {
+        assertTrue(store.get(assetId).isEmpty());
+
+        store.put(quote(BigDecimal.valueOf(100), OffsetDateTime.now()));
+        assertEquals(BigDecimal.valueOf(100), store.get(assetId).orElseThrow().getPrice());
+
+        Map<String, Object> stats = store.stats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(1, stats.get("size"));
+    }
+
+    @Test
+    void testPut_IgnoresOlderQuote() {
+        OffsetDateTime now = OffsetDateTime.now();
+        store.put(quote(BigDecimal.valueOf(101), now));
+        store.put(quote(BigDecimal.valueOf(99), now.minusMinutes(1)));
+
+        assertEquals(BigDecimal.valueOf(101), store.get(assetId).orElseThrow().getPrice());
+    }
+
+    @Test
+    void testFill_StoresWithoutNotifyingListeners() {
+        List<PriceDto> notified = new ArrayList<>();
+        store.addListener(notified::add);
+
+        assertTrue(store.fill(quote(BigDecimal.TEN, OffsetDateTime.now())));
+        assertTrue(notified.isEmpty());
+        assertEquals(BigDecimal.TEN, store.get(assetId).orElseThrow().getPrice());
+
+        store.put(quote(BigDecimal.ONE, OffsetDateTime.now().plusSeconds(1)));
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    void testEvict() {
+        store.put(quote(BigDecimal.TEN, OffsetDateTime.now()));
+        store.evict(assetId);
+
+        assertTrue(store.get(assetId).isEmpty());
+    }
+
+    private PriceDto quote(BigDecimal price, OffsetDateTime timestamp) {
+        PriceDto dto = new PriceDto();
+        dto.setAssetId(assetId);
+        dto.setPrice(price);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}
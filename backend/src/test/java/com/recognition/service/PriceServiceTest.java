@@ -0,0 +1,187 @@
+package com.recognition.service;
+
+import com.recognition.dto.CandleDTO;
+import com.recognition.dto.PriceTick;
+import com.recognition.dto.response.StatisticsDTO;
+import com.recognition.entity.Price;
+import com.recognition.entity.PriceRollup;
+import com.recognition.repository.AssetRepository;
+import com.recognition.repository.PriceRepository;
+import com.recognition.service.impl.PriceServiceImpl;
+import com.recognition.service.rollup.PriceRollupService;
+import com.recognition.service.rollup.RollupResolution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PriceServiceTest {
+
+    @Mock
+    private PriceRepository priceRepository;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @InjectMocks
+    private PriceServiceImpl priceService;
+
+    private final UUID assetId = UUID.randomUUID();
+    private final List<PriceTick> ticks = new ArrayList<>();
+    private final List<PriceRollup> rollups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(assetRepository.existsById(assetId)).thenReturn(true);
+        // Trả về đúng các tick/rollup trong khoảng được hỏi, giống truy vấn BETWEEN
+        when(priceRepository.streamTicks(eq(assetId), any(), any())).thenAnswer(invocation -> {
+            OffsetDateTime from = invocation.getArgument(1);
+            OffsetDateTime to = invocation.getArgument(2);
+            return ticks.stream().filter(tick -> !tick.timestamp().isBefore(from) && !tick.timestamp().isAfter(to));
+        });
+        when(priceRollupService.find(eq(assetId), any(), any(), any())).thenAnswer(invocation -> {
+            OffsetDateTime from = invocation.getArgument(2);
+            OffsetDateTime to = invocation.getArgument(3);
+            return rollups.stream()
+                    .filter(rollup -> !rollup.getBucketStart().isBefore(from) && !rollup.getBucketStart().isAfter(to))
+                    .toList();
+        });
+    }
+
+    @Test
+    void testGetCandles_UsesTicksWithoutWatermark() {
+        OffsetDateTime firstHour = hourlyTicks(10);
+        hourlyRollups(firstHour, 10);
+        when(priceRollupService.coveredFrom(eq(assetId), any())).thenReturn(Optional.empty());
+
+        List<CandleDTO> candles = priceService.getCandles(assetId, "1w", "1h", 10);
+
+        assertEquals(10, candles.size());
+        verify(priceRollupService, never()).find(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetCandles_ReadsTicksBeforeWatermarkAndRollupsAfter() {
+        OffsetDateTime firstHour = hourlyTicks(10);
+        OffsetDateTime watermark = firstHour.plusHours(5);
+        hourlyRollups(watermark, 5);
+        when(priceRollupService.coveredFrom(assetId, RollupResolution.HOUR)).thenReturn(Optional.of(watermark));
+
+        List<CandleDTO> candles = priceService.getCandles(assetId, "1w", "1h", 10);
+
+        assertEquals(10, candles.size());
+        assertEquals(firstHour, candles.get(0).timestamp());
+        assertEquals(BigDecimal.valueOf(109), candles.get(9).close());
+        verify(priceRepository).streamTicks(assetId, firstHour, watermark.minusNanos(1_000));
+        verify(priceRollupService).find(eq(assetId), eq(RollupResolution.HOUR), eq(watermark), any());
+    }
+
+    @Test
+    void testGetCandles_AnchorsWindowAtLatestTick() {
+        // Tick cuối cùng từ 3 ngày trước (cuối tuần / ngoài giờ): vẫn trả về `limit` nến gần nhất
+        OffsetDateTime firstHour = OffsetDateTime.now(ZoneOffset.UTC).minusDays(3).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < 6; i++) {
+            ticks.add(new PriceTick(firstHour.plusHours(i).plusMinutes(30), BigDecimal.valueOf(100 + i), BigDecimal.ONE));
+        }
+        latestTick();
+        when(priceRollupService.coveredFrom(eq(assetId), any())).thenReturn(Optional.empty());
+
+        List<CandleDTO> candles = priceService.getCandles(assetId, "1w", "1h", 4);
+
+        assertEquals(4, candles.size());
+        assertEquals(firstHour.plusHours(2), candles.get(0).timestamp());
+        assertEquals(BigDecimal.valueOf(105), candles.get(3).close());
+    }
+
+    @Test
+    void testGetStatistics_UsesRollupsWhenWatermarkCoversRange() {
+        OffsetDateTime epoch = Instant.EPOCH.atOffset(ZoneOffset.UTC);
+        OffsetDateTime firstHour = OffsetDateTime.now(ZoneOffset.UTC).minusHours(5).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < 4; i++) {
+            rollups.add(rollup(RollupResolution.HOUR, firstHour.plusHours(i), BigDecimal.valueOf(100 + i)));
+        }
+        when(priceRollupService.coveredFrom(eq(assetId), any())).thenReturn(Optional.of(epoch));
+
+        StatisticsDTO stats = priceService.getStatistics(assetId, "week");
+
+        assertEquals(4, stats.count());
+        assertEquals(BigDecimal.valueOf(100), stats.firstPrice());
+        assertEquals(BigDecimal.valueOf(103), stats.lastPrice());
+        verify(priceRepository, never()).aggregateStatistics(any(), any(), any());
+    }
+
+    @Test
+    void testGetStatistics_UsesSqlWhenWatermarkInsideRange() {
+        OffsetDateTime watermark = OffsetDateTime.now(ZoneOffset.UTC).minusHours(3).truncatedTo(ChronoUnit.HOURS);
+        rollups.add(rollup(RollupResolution.HOUR, watermark, BigDecimal.TEN));
+        when(priceRollupService.coveredFrom(eq(assetId), any())).thenReturn(Optional.of(watermark));
+
+        StatisticsDTO stats = priceService.getStatistics(assetId, "week");
+
+        assertEquals(0, stats.count());
+        verify(priceRepository).aggregateStatistics(eq(assetId), any(), any());
+        verify(priceRollupService, never()).find(any(), any(), any(), any());
+    }
+
+    // Một tick mỗi giờ (phút 30) trong `hours` giờ vừa qua; trả về giờ đầu tiên
+    private OffsetDateTime hourlyTicks(int hours) {
+        OffsetDateTime firstHour = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS).minusHours(hours);
+        for (int i = 0; i < hours; i++) {
+            ticks.add(new PriceTick(firstHour.plusHours(i).plusMinutes(30), BigDecimal.valueOf(100 + i), BigDecimal.ONE));
+        }
+        latestTick();
+        return firstHour;
+    }
+
+    // Rollup giờ khớp với hourlyTicks cho `hours` giờ bắt đầu từ `from`
+    private void hourlyRollups(OffsetDateTime from, int hours) {
+        for (PriceTick tick : ticks) {
+            OffsetDateTime bucket = tick.timestamp().truncatedTo(ChronoUnit.HOURS);
+            if (!bucket.isBefore(from) && bucket.isBefore(from.plusHours(hours))) {
+                rollups.add(rollup(RollupResolution.HOUR, bucket, tick.price()));
+            }
+        }
+    }
+
+    private void latestTick() {
+        PriceTick last = ticks.get(ticks.size() - 1);
+        when(priceRepository.findTopByAssetIdOrderByTimestampDesc(assetId))
+                .thenReturn(Optional.of(Price.builder().price(last.price()).timestamp(last.timestamp()).build()));
+        when(priceRepository.findFirstByAssetIdOrderByTimestampAsc(assetId))
+                .thenReturn(Optional.of(Price.builder().price(ticks.get(0).price()).timestamp(ticks.get(0).timestamp()).build()));
+    }
+
+    private static PriceRollup rollup(RollupResolution resolution, OffsetDateTime bucketStart, BigDecimal price) {
+        return PriceRollup.builder()
+                .resolution(resolution.getCode())
+                .bucketStart(bucketStart)
+                .openPrice(price).highPrice(price).lowPrice(price).closePrice(price)
+                .openTime(bucketStart).closeTime(bucketStart)
+                .volume(BigDecimal.ONE)
+                .tickCount(1)
+                .priceSum(price)
+                .priceSqSum(price.multiply(price))
+                .priceVolumeSum(price)
+                .build();
+    }
+}
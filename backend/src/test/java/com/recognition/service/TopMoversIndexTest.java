@@ -0,0 +1,96 @@
+package com.recognition.service;
+
+import com.recognition.dto.PriceDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopMoversIndexTest {
+
+    private LatestQuoteStore store;
+    private TopMoversIndex index;
+    private final OffsetDateTime now = OffsetDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        store = new LatestQuoteStore();
+        index = new TopMoversIndex(store);
+        index.register();
+    }
+
+    @Test
+    void testGainersAndLosers_OrderedByChangePercent() {
+        UUID up = UUID.randomUUID();
+        UUID flat = UUID.randomUUID();
+        UUID down = UUID.randomUUID();
+        store.put(quote(flat, "0.5", now));
+        store.put(quote(down, "-3", now));
+        store.put(quote(up, "4.2", now));
+
+        assertEquals(List.of(up, flat), assetIds(index.gainers(2)));
+        assertEquals(List.of(down, flat, up), assetIds(index.losers(10)));
+    }
+
+    @Test
+    void testOnQuote_ReplacesPreviousEntry() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        store.put(quote(first, "5", now));
+        store.put(quote(second, "2", now));
+
+        store.put(quote(first, "-1", now.plusSeconds(1)));
+
+        assertEquals(List.of(second, first), assetIds(index.gainers(10)));
+        assertEquals(2, index.stats().get("size"));
+    }
+
+    @Test
+    void testOnQuote_IgnoresOlderQuote() {
+        UUID assetId = UUID.randomUUID();
+        index.onQuote(quote(assetId, "3", now));
+        index.onQuote(quote(assetId, "-8", now.minusMinutes(1)));
+
+        assertEquals(new BigDecimal("3"), index.gainers(1).get(0).getChangePercent());
+    }
+
+    @Test
+    void testOnQuote_DropsEntryWithoutChangePercent() {
+        UUID assetId = UUID.randomUUID();
+        store.put(quote(assetId, "3", now));
+        store.put(quote(assetId, null, now.plusSeconds(1)));
+
+        assertTrue(index.gainers(10).isEmpty());
+    }
+
+    @Test
+    void testOnEvict_RemovesAsset() {
+        UUID kept = UUID.randomUUID();
+        UUID evicted = UUID.randomUUID();
+        store.put(quote(kept, "1", now));
+        store.put(quote(evicted, "9", now));
+
+        store.evict(evicted);
+
+        assertEquals(List.of(kept), assetIds(index.gainers(10)));
+        assertEquals(1, index.stats().get("size"));
+    }
+
+    private static List<UUID> assetIds(List<PriceDto> quotes) {
+        return quotes.stream().map(PriceDto::getAssetId).toList();
+    }
+
+    private static PriceDto quote(UUID assetId, String changePercent, OffsetDateTime timestamp) {
+        PriceDto dto = new PriceDto();
+        dto.setAssetId(assetId);
+        dto.setPrice(BigDecimal.TEN);
+        dto.setTimestamp(timestamp);
+        dto.setChangePercent(changePercent != null ? new BigDecimal(changePercent) : null);
+        return dto;
+    }
+}
@@ -0,0 +1,81 @@
+package com.recognition.service.candle;
+
+import com.recognition.dto.CandleDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleAggregatorTest {
+
+    private static final OffsetDateTime BASE = OffsetDateTime.of(2025, 10, 20, 14, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void testAccept_BuildsOhlcvPerBucket() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.FIVE_MINUTES, 10);
+
+        aggregator.accept(BASE.plusSeconds(10), BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        aggregator.accept(BASE.plusMinutes(1), BigDecimal.valueOf(105), BigDecimal.valueOf(3));
+        aggregator.accept(BASE.plusMinutes(2), BigDecimal.valueOf(98), null);
+        aggregator.accept(BASE.plusMinutes(4), BigDecimal.valueOf(101), BigDecimal.valueOf(2));
+        aggregator.accept(BASE.plusMinutes(6), BigDecimal.valueOf(102), null);
+
+        List<CandleDTO> candles = aggregator.finish();
+
+        assertEquals(2, candles.size());
+        CandleDTO first = candles.get(0);
+        assertEquals(BASE, first.timestamp());
+        assertEquals(BigDecimal.valueOf(100), first.open());
+        assertEquals(BigDecimal.valueOf(105), first.high());
+        assertEquals(BigDecimal.valueOf(98), first.low());
+        assertEquals(BigDecimal.valueOf(101), first.close());
+        assertEquals(BigDecimal.valueOf(10), first.volume());
+
+        CandleDTO second = candles.get(1);
+        assertEquals(BASE.plusMinutes(5), second.timestamp());
+        assertEquals(BigDecimal.valueOf(102), second.open());
+        assertNull(second.volume());
+    }
+
+    @Test
+    void testAccept_KeepsFractionalVolume() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.ONE_MINUTE, 10);
+
+        aggregator.accept(BASE, BigDecimal.valueOf(100), new BigDecimal("0.25"));
+        aggregator.accept(BASE.plusSeconds(5), BigDecimal.valueOf(101), new BigDecimal("1.5"));
+
+        assertEquals(new BigDecimal("1.75"), aggregator.finish().get(0).volume());
+    }
+
+    @Test
+    void testFinish_KeepsOnlyLastLimitCandles() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.ONE_MINUTE, 3);
+        for (int i = 0; i < 10; i++) {
+            aggregator.accept(BASE.plusMinutes(i), BigDecimal.valueOf(i), null);
+        }
+
+        List<CandleDTO> candles = aggregator.finish();
+
+        assertEquals(3, candles.size());
+        assertEquals(BASE.plusMinutes(7), candles.get(0).timestamp());
+        assertEquals(BigDecimal.valueOf(9), candles.get(2).close());
+    }
+
+    @Test
+    void testWindowStart() {
+        OffsetDateTime now = BASE.plusMinutes(62).plusSeconds(30);
+
+        assertEquals(BASE.minusHours(1), CandleInterval.ONE_HOUR.windowStart(now, 3));
+        assertEquals(BASE.plusMinutes(60), CandleInterval.FIVE_MINUTES.windowStart(now, 1));
+    }
+
+    @Test
+    void testFromCode_RejectsUnknownBucket() {
+        assertEquals(CandleInterval.ONE_HOUR, CandleInterval.fromCode("1H"));
+        assertThrows(IllegalArgumentException.class, () -> CandleInterval.fromCode("2m"));
+    }
+}
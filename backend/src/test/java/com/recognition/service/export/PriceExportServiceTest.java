@@ -0,0 +1,115 @@
+package com.recognition.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.repository.AssetRepository;
+import com.recognition.repository.PriceJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PriceExportServiceTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2025, 10, 20, 14, 0, 0, 0, ZoneOffset.UTC);
+
+    @Mock
+    private PriceJdbcRepository priceJdbcRepository;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    private PriceExportService exportService;
+    private final UUID assetId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        exportService = new PriceExportService(priceJdbcRepository, assetRepository, new ObjectMapper(), 100, 1);
+
+        List<ResultSet> rows = List.of(
+                row(T0, "101.50", "1200", "0.25", "Finnhub"),
+                row(T0.plusMinutes(1), "102", null, null, "Manual, \"edited\""));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(4);
+            for (ResultSet rs : rows) handler.processRow(rs);
+            return null;
+        }).when(priceJdbcRepository).streamByAssetAndRange(eq(assetId), any(), any(), eq(100), any());
+    }
+
+    @Test
+    void testExport_Csv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(assetId, T0, T0.plusDays(1), PriceExportFormat.CSV, false, out);
+
+        assertEquals(2, rows);
+        assertEquals("""
+                timestamp,price,volume,change_percent,high_24h,low_24h,market_cap,source
+                2025-10-20T14:00Z,101.50,1200,0.25,,,,Finnhub
+                2025-10-20T14:01Z,102,,,,,,"Manual, ""edited\"""
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExport_Ndjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(assetId, T0, T0.plusDays(1), PriceExportFormat.NDJSON, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"timestamp\":\"2025-10-20T14:00Z\",\"price\":101.50,\"volume\":1200,\"changePercent\":0.25,"
+                + "\"high24h\":null,\"low24h\":null,\"marketCap\":null,\"source\":\"Finnhub\"}", lines[0]);
+        assertTrue(lines[1].contains("\"volume\":null"));
+    }
+
+    @Test
+    void testExport_GzipRoundTrip() throws Exception {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        exportService.export(assetId, T0, T0.plusDays(1), PriceExportFormat.CSV, false, plain);
+        exportService.export(assetId, T0, T0.plusDays(1), PriceExportFormat.CSV, true, compressed);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(plain.toString(StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testTryAcquireSlot_LimitsConcurrentExports() {
+        assertTrue(exportService.tryAcquireSlot());
+        assertFalse(exportService.tryAcquireSlot());
+
+        exportService.releaseSlot();
+        assertTrue(exportService.tryAcquireSlot());
+    }
+
+    private static ResultSet row(OffsetDateTime timestamp, String price, String volume,
+                                 String changePercent, String source) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, OffsetDateTime.class)).thenReturn(timestamp);
+        when(rs.getBigDecimal(2)).thenReturn(new BigDecimal(price));
+        when(rs.getBigDecimal(3)).thenReturn(volume != null ? new BigDecimal(volume) : null);
+        when(rs.getBigDecimal(4)).thenReturn(changePercent != null ? new BigDecimal(changePercent) : null);
+        when(rs.getString(8)).thenReturn(source);
+        return rs;
+    }
+}
@@ -0,0 +1,111 @@
+package com.recognition.service.ingest;
+
+import com.recognition.client.dto.FinnhubQuote;
+import com.recognition.entity.Asset;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceFetchPipelineTest {
+
+    @Test
+    void testRun_WritesEachChunkAndCollectsFailures() {
+        List<Asset> assets = assets("AAPL", "MSFT", "NVDA", "BAD", "TSLA");
+        List<List<String>> written = new CopyOnWriteArrayList<>();
+
+        PriceFetchPipeline pipeline = new PriceFetchPipeline(
+                symbols -> CompletableFuture.supplyAsync(() -> quotes(symbols)),
+                (chunk, quotes, failed) -> {
+                    written.add(chunk.stream().map(Asset::getSymbol).toList());
+                    chunk.stream().map(Asset::getSymbol).filter(s -> !quotes.containsKey(s)).forEach(failed::add);
+                    return quotes.size();
+                },
+                2, 2);
+
+        PriceFetchPipeline.Result result = pipeline.run(assets, null);
+
+        assertEquals(3, result.chunks());
+        assertEquals(3, written.size());
+        assertEquals(4, result.updated());
+        assertEquals(List.of("BAD"), result.failed());
+    }
+
+    @Test
+    void testRun_FailedFetchMarksWholeChunkFailed() {
+        PriceFetchPipeline pipeline = new PriceFetchPipeline(
+                symbols -> symbols.contains("AAPL")
+                        ? CompletableFuture.failedFuture(new RuntimeException("timeout"))
+                        : CompletableFuture.completedFuture(quotes(symbols)),
+                (chunk, quotes, failed) -> quotes.size(),
+                2, 4);
+
+        PriceFetchPipeline.Result result = pipeline.run(assets("AAPL", "MSFT", "NVDA"), null);
+
+        assertEquals(1, result.updated());
+        assertEquals(Set.of("AAPL", "MSFT"), new HashSet<>(result.failed()));
+    }
+
+    @Test
+    void testRun_ListenerCanCancel() {
+        List<Integer> chunksWritten = new ArrayList<>();
+        PriceFetchPipeline pipeline = new PriceFetchPipeline(
+                symbols -> CompletableFuture.completedFuture(quotes(symbols)),
+                (chunk, quotes, failed) -> {
+                    chunksWritten.add(chunk.size());
+                    return quotes.size();
+                },
+                1, 1);
+
+        assertThrows(CancellationException.class, () -> pipeline.run(assets("AAPL", "MSFT", "NVDA"), (chunk, failed) -> {
+            throw new CancellationException("stop");
+        }));
+        assertEquals(1, chunksWritten.size());
+    }
+
+    @Test
+    void testRun_CancelsOutstandingFetchesWhenListenerThrows() {
+        List<CompletableFuture<Map<String, FinnhubQuote>>> pending = new CopyOnWriteArrayList<>();
+        PriceFetchPipeline pipeline = new PriceFetchPipeline(
+                symbols -> {
+                    // Nhóm đầu xong ngay, các nhóm sau treo như request còn chờ rate limiter
+                    if (symbols.contains("AAPL")) return CompletableFuture.completedFuture(quotes(symbols));
+                    CompletableFuture<Map<String, FinnhubQuote>> future = new CompletableFuture<>();
+                    pending.add(future);
+                    return future;
+                },
+                (chunk, quotes, failed) -> quotes.size(),
+                1, 3);
+
+        assertThrows(CancellationException.class, () -> pipeline.run(assets("AAPL", "MSFT", "NVDA"), (chunk, failed) -> {
+            throw new CancellationException("stop");
+        }));
+        assertEquals(2, pending.size());
+        assertTrue(pending.stream().allMatch(CompletableFuture::isCancelled));
+    }
+
+    private static List<Asset> assets(String... symbols) {
+        List<Asset> assets = new ArrayList<>();
+        for (String symbol : symbols) {
+            Asset asset = new Asset();
+            asset.setId(UUID.randomUUID());
+            asset.setSymbol(symbol);
+            assets.add(asset);
+        }
+        return assets;
+    }
+
+    private static Map<String, FinnhubQuote> quotes(List<String> symbols) {
+        Map<String, FinnhubQuote> quotes = new HashMap<>();
+        for (String symbol : symbols) {
+            if (symbol.equals("BAD")) continue;
+            quotes.put(symbol, new FinnhubQuote(BigDecimal.TEN, null, null, null, null, null, 0));
+        }
+        return quotes;
+    }
+}
@@ -0,0 +1,116 @@
+package com.recognition.service.ingest;
+
+import com.recognition.entity.Asset;
+import com.recognition.repository.AssetRepository;
+import com.recognition.repository.WatchlistRepository;
+import com.recognition.service.PriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PriceIngestSchedulerTest {
+
+    private static final long HOT_INTERVAL_MS = 15_000;
+    private static final long NORMAL_INTERVAL_MS = 60_000;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private WatchlistRepository watchlistRepository;
+
+    @Mock
+    private PriceService priceService;
+
+    @Mock
+    private StreamingPriceIngest streamingIngest;
+
+    // Danh sách symbol của từng lần gọi fetchAndSavePrices
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(priceService.fetchAndSavePrices(anyList())).thenAnswer(invocation -> {
+            List<Asset> assets = invocation.getArgument(0);
+            batches.add(assets.stream().map(Asset::getSymbol).toList());
+            return Map.of("failed", List.of());
+        });
+    }
+
+    @Test
+    void testRunCycle_SpendsOnlyAccumulatedBudget() {
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) assets.add(asset("SYM" + i));
+        when(assetRepository.findByIsActiveTrue()).thenReturn(assets);
+        when(watchlistRepository.countWatchersBySymbol()).thenReturn(List.of());
+        // 60 request/phút = 1 request/giây, tích luỹ tối đa 10
+        PriceIngestScheduler scheduler = scheduler(60);
+
+        long now = System.currentTimeMillis();
+        scheduler.refreshAssets(now);
+        long allDue = now + NORMAL_INTERVAL_MS;
+        scheduler.runCycle(allDue);
+        scheduler.runCycle(allDue + 5_000);
+        scheduler.runCycle(allDue + 60_000);
+
+        assertEquals(3, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(5, batches.get(1).size());
+        assertEquals(10, batches.get(2).size());
+        assertEquals(16L, scheduler.stats().get("fetched"));
+    }
+
+    @Test
+    void testRunCycle_PollsHotSymbolsMoreOften() {
+        when(assetRepository.findByIsActiveTrue()).thenReturn(List.of(asset("HOT"), asset("COLD")));
+        when(watchlistRepository.countWatchersBySymbol()).thenReturn(List.<Object[]>of(new Object[]{"HOT", 3L}));
+        PriceIngestScheduler scheduler = scheduler(6_000);
+
+        long now = System.currentTimeMillis();
+        scheduler.refreshAssets(now);
+        // COLD được rải sang giữa nhịp thường (offset 30s), HOT đến hạn ngay
+        scheduler.runCycle(now);
+        scheduler.runCycle(now + HOT_INTERVAL_MS + 1_000);
+        scheduler.runCycle(now + NORMAL_INTERVAL_MS / 2 + 1_000);
+
+        assertEquals(List.of("HOT"), batches.get(0));
+        assertEquals(List.of("HOT"), batches.get(1));
+        assertTrue(batches.get(2).contains("COLD"));
+        assertEquals(1, scheduler.stats().get("hotSymbols"));
+    }
+
+    @Test
+    void testRunCycle_SkipsSymbolsLiveOnStream() {
+        when(assetRepository.findByIsActiveTrue()).thenReturn(List.of(asset("LIVE")));
+        when(watchlistRepository.countWatchersBySymbol()).thenReturn(List.of());
+        when(streamingIngest.isLive(eq("LIVE"), anyLong())).thenReturn(true);
+        PriceIngestScheduler scheduler = scheduler(6_000);
+
+        long now = System.currentTimeMillis();
+        scheduler.refreshAssets(now);
+        scheduler.runCycle(now);
+
+        assertTrue(batches.isEmpty());
+        assertEquals(1L, scheduler.stats().get("skippedLive"));
+    }
+
+    private PriceIngestScheduler scheduler(double budgetPerMinute) {
+        return new PriceIngestScheduler(assetRepository, watchlistRepository, priceService, streamingIngest,
+                true, false, HOT_INTERVAL_MS, NORMAL_INTERVAL_MS, 1_800_000, 3, budgetPerMinute, 300_000);
+    }
+
+    private static Asset asset(String symbol) {
+        return Asset.builder().id(UUID.randomUUID()).symbol(symbol).name(symbol).isActive(true).build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.recognition.service.ingest;
+
+import com.recognition.client.FinnhubTradeStream;
+import com.recognition.dto.PriceDto;
+import com.recognition.entity.Asset;
+import com.recognition.entity.Price;
+import com.recognition.repository.AssetRepository;
+import com.recognition.service.LatestQuoteStore;
+import com.recognition.service.PriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingPriceIngestTest {
+
+    @Mock
+    private FinnhubTradeStream tradeStream;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private PriceService priceService;
+
+    private final LatestQuoteStore latestQuoteStore = new LatestQuoteStore();
+    private final Asset asset = Asset.builder().id(UUID.randomUUID()).symbol("AAPL").name("AAPL").isActive(true).build();
+    private StreamingPriceIngest ingest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ingest = new StreamingPriceIngest(tradeStream, assetRepository, priceService, latestQuoteStore,
+                true, 120_000, 60_000);
+    }
+
+    @Test
+    void testToPrice_KeepsDayFieldsOfLatestQuote() {
+        // Báo giá poll: 110, +10% so với mốc 100
+        latestQuoteStore.put(quote("110", "10.0000", "Finnhub", OffsetDateTime.now().minusSeconds(5)));
+
+        Price row = ingest.toPrice(asset, bar("105", "106", "104"));
+
+        assertEquals(new BigDecimal("5.0000"), row.getChangePercent());
+        assertEquals(0, new BigDecimal("112").compareTo(row.getHigh24h()));
+        assertEquals(0, new BigDecimal("104").compareTo(row.getLow24h()));
+        assertEquals(0, new BigDecimal("35000000").compareTo(row.getDayVolume()));
+        assertEquals(0, new BigDecimal("300").compareTo(row.getVolume()));
+    }
+
+    @Test
+    void testToPrice_ComparesWithReferenceNotPreviousBar() {
+        latestQuoteStore.put(quote("110", "10.0000", "Finnhub", OffsetDateTime.now().minusSeconds(5)));
+        ingest.toPrice(asset, bar("105", "106", "104"));
+
+        // Dòng bar trước đó là giá mới nhất: % thay đổi vẫn tính theo mốc 100, không theo bar 105
+        latestQuoteStore.put(quote("105", "5.0000", "FinnhubStream", OffsetDateTime.now()));
+        Price row = ingest.toPrice(asset, bar("120", "120", "120"));
+
+        assertEquals(new BigDecimal("20.0000"), row.getChangePercent());
+        assertEquals(0, new BigDecimal("120").compareTo(row.getHigh24h()));
+    }
+
+    private PriceDto quote(String price, String changePercent, String source, OffsetDateTime timestamp) {
+        PriceDto dto = new PriceDto();
+        dto.setAssetId(asset.getId());
+        dto.setPrice(new BigDecimal(price));
+        dto.setChangePercent(new BigDecimal(changePercent));
+        dto.setHigh24h(new BigDecimal("112"));
+        dto.setLow24h(new BigDecimal("108"));
+        dto.setVolume(new BigDecimal("35000000"));
+        dto.setSource(source);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+
+    private static TickBarAggregator.TickBar bar(String close, String high, String low) {
+        long now = System.currentTimeMillis();
+        return new TickBarAggregator.TickBar("AAPL", new BigDecimal(close), new BigDecimal(high), new BigDecimal(low),
+                new BigDecimal(close), new BigDecimal("300"), 3, now - 500, now);
+    }
+}
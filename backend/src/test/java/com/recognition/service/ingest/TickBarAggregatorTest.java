@@ -0,0 +1,48 @@
+package com.recognition.service.ingest;
+
+import com.recognition.client.dto.FinnhubTrade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickBarAggregatorTest {
+
+    @Test
+    void testAdd_BuildsBarByTradeTime() {
+        TickBarAggregator aggregator = new TickBarAggregator();
+        aggregator.add(trade("AAPL", "101", "10", 2_000));
+        aggregator.add(trade("AAPL", "99", "5", 1_000));   // tới trễ nhưng khớp sớm nhất -> open
+        aggregator.add(trade("AAPL", "103", "1", 3_000));
+        aggregator.add(trade("MSFT", "400", "2", 1_500));
+
+        List<TickBarAggregator.TickBar> bars = aggregator.drain();
+        assertEquals(2, bars.size());
+
+        TickBarAggregator.TickBar aapl = bars.stream().filter(b -> b.symbol().equals("AAPL")).findFirst().orElseThrow();
+        assertEquals(new BigDecimal("99"), aapl.open());
+        assertEquals(new BigDecimal("103"), aapl.high());
+        assertEquals(new BigDecimal("99"), aapl.low());
+        assertEquals(new BigDecimal("103"), aapl.close());
+        assertEquals(new BigDecimal("16"), aapl.volume());
+        assertEquals(3, aapl.trades());
+        assertEquals(1_000, aapl.firstTradeAt());
+        assertEquals(3_000, aapl.lastTradeAt());
+    }
+
+    @Test
+    void testDrain_ClearsBars() {
+        TickBarAggregator aggregator = new TickBarAggregator();
+        aggregator.add(trade("AAPL", "100", "1", 1_000));
+
+        assertEquals(1, aggregator.drain().size());
+        assertEquals(0, aggregator.openBars());
+        assertTrue(aggregator.drain().isEmpty());
+    }
+
+    private static FinnhubTrade trade(String symbol, String price, String volume, long timestamp) {
+        return new FinnhubTrade(symbol, new BigDecimal(price), new BigDecimal(volume), timestamp);
+    }
+}
@@ -0,0 +1,96 @@
+package com.recognition.service.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobEngineTest {
+
+    private JobEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new JobEngine(1, 4, Duration.ZERO, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void testSubmit_ReportsProgressAndResult() throws Exception {
+        Job job = engine.submit("TEST", null, j -> {
+            j.setTotal(2);
+            j.recordSymbol("AAPL", true);
+            j.recordSymbol("MSFT", false);
+            return Map.of("updated", 1);
+        });
+
+        awaitFinished(job);
+        Map<String, Object> status = job.toStatus();
+        assertEquals("DONE", status.get("status"));
+        assertEquals(100, status.get("progress"));
+        assertEquals(1, status.get("failed"));
+        assertEquals(Map.of("updated", 1), status.get("result"));
+    }
+
+    @Test
+    void testSubmit_DeduplicatesActiveJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Job first = engine.submit("TEST", "key", j -> {
+            release.await();
+            return Map.of();
+        });
+        Job second = engine.submit("TEST", "key", j -> Map.of());
+
+        assertSame(first, second);
+        release.countDown();
+        awaitFinished(first);
+
+        Job third = engine.submit("TEST", "key", j -> Map.of());
+        assertNotSame(first, third);
+        assertEquals(1L, engine.stats().get("deduplicated"));
+    }
+
+    @Test
+    void testCancel_StopsRunningJobAtCheckpoint() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Job job = engine.submit("TEST", null, j -> {
+            started.countDown();
+            while (true) {
+                j.checkCancelled();
+                Thread.sleep(5);
+            }
+        });
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(engine.cancel(job.getId()));
+        awaitFinished(job);
+        assertEquals(JobState.CANCELLED, job.getState());
+    }
+
+    @Test
+    void testEvictFinished_RemovesExpiredJobs() throws Exception {
+        Job job = engine.submit("TEST", null, j -> Map.of());
+        awaitFinished(job);
+
+        engine.evictFinished();
+        assertTrue(engine.find(job.getId()).isEmpty());
+    }
+
+    private static void awaitFinished(Job job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!job.getState().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(job.getState().isFinished());
+    }
+}
@@ -0,0 +1,43 @@
+package com.recognition.service.price;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceChangeTest {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Test
+    void testPercent_MatchesBigDecimalFormula() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal previous = BigDecimal.valueOf(1 + random.nextLong(1_000_000_000_000L), 8);
+            BigDecimal price = BigDecimal.valueOf(1 + random.nextLong(1_000_000_000_000L), 8);
+
+            assertEquals(legacy(price, previous), PriceChange.percent(price, previous), price + " vs " + previous);
+        }
+    }
+
+    @Test
+    void testPercent_RoundsHalfAwayFromZero() {
+        // 1.00005 / 1 và 0.99995 / 1: đúng nửa đơn vị ở chữ số thứ 4
+        assertEquals(new BigDecimal("0.0100"), PriceChange.percent(new BigDecimal("1.00005"), BigDecimal.ONE));
+        assertEquals(new BigDecimal("-0.0100"), PriceChange.percent(new BigDecimal("0.99995"), BigDecimal.ONE));
+    }
+
+    @Test
+    void testPercent_NullWithoutPreviousPrice() {
+        assertNull(PriceChange.percent(BigDecimal.TEN, null));
+        assertNull(PriceChange.percent(BigDecimal.TEN, BigDecimal.ZERO));
+        assertNull(PriceChange.percent(null, BigDecimal.TEN));
+    }
+
+    private static BigDecimal legacy(BigDecimal price, BigDecimal previous) {
+        return price.subtract(previous).divide(previous, 4, RoundingMode.HALF_UP).multiply(HUNDRED);
+    }
+}
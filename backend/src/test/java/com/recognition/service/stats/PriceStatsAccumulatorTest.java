@@ -0,0 +1,102 @@
+package com.recognition.service.stats;
+
+import com.recognition.dto.response.StatisticsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStatsAccumulatorTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2025, 10, 20, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime TO = FROM.plusDays(1);
+
+    @Test
+    void testAccept_ComputesStatistics() {
+        PriceStatsAccumulator accumulator = new PriceStatsAccumulator();
+        accumulator.accept(new BigDecimal("10"), new BigDecimal("1"));
+        accumulator.accept(new BigDecimal("14"), new BigDecimal("3"));
+        accumulator.accept(new BigDecimal("12"), null);
+
+        StatisticsDTO stats = accumulator.toStatistics(FROM, TO);
+
+        assertEquals(3, stats.count());
+        assertEquals(new BigDecimal("10"), stats.minPrice());
+        assertEquals(new BigDecimal("14"), stats.maxPrice());
+        assertEquals(new BigDecimal("12.00000000"), stats.avgPrice());
+        // Độ lệch chuẩn tổng thể của 10, 14, 12 = sqrt(8/3)
+        assertEquals(Math.sqrt(8.0 / 3), stats.stdDevPrice().doubleValue(), 1e-8);
+        // VWAP chỉ tính trên tick có volume: (10*1 + 14*3) / 4
+        assertEquals(new BigDecimal("13.00000000"), stats.vwap());
+        assertEquals(new BigDecimal("10"), stats.firstPrice());
+        assertEquals(new BigDecimal("12"), stats.lastPrice());
+    }
+
+    @Test
+    void testMerge_MatchesTickByTick() {
+        PriceStatsAccumulator ticks = new PriceStatsAccumulator();
+        ticks.accept(new BigDecimal("10"), new BigDecimal("2"));
+        ticks.accept(new BigDecimal("11"), new BigDecimal("2"));
+        ticks.accept(new BigDecimal("9"), new BigDecimal("1"));
+        ticks.accept(new BigDecimal("13"), new BigDecimal("5"));
+
+        // Cùng dữ liệu chia thành một tick lẻ và hai nhóm đã tổng hợp sẵn như dòng rollup
+        PriceStatsAccumulator merged = new PriceStatsAccumulator();
+        merged.accept(new BigDecimal("10"), new BigDecimal("2"));
+        merged.merge(2, new BigDecimal("20"), new BigDecimal("202"), new BigDecimal("9"), new BigDecimal("11"),
+                new BigDecimal("11"), new BigDecimal("9"), 31, 3);
+        merged.merge(1, new BigDecimal("13"), new BigDecimal("169"), new BigDecimal("13"), new BigDecimal("13"),
+                new BigDecimal("13"), new BigDecimal("13"), 65, 5);
+
+        assertEquals(ticks.toStatistics(FROM, TO), merged.toStatistics(FROM, TO));
+    }
+
+    @Test
+    void testAccept_LargePriceSmallSpreadKeepsStdDev() {
+        // Σx²/n và mean² ~ 1e16: công thức trừ trực tiếp trên double cho 0 hoặc số rác
+        PriceStatsAccumulator accumulator = new PriceStatsAccumulator();
+        accumulator.accept(new BigDecimal("100000000.01"), null);
+        accumulator.accept(new BigDecimal("100000000.02"), null);
+        accumulator.accept(new BigDecimal("100000000.03"), null);
+
+        assertEquals(Math.sqrt(2.0 / 3) * 0.01, accumulator.toStatistics(FROM, TO).stdDevPrice().doubleValue(), 1e-7);
+    }
+
+    @Test
+    void testMerge_LargePriceSmallSpreadMatchesTicks() {
+        PriceStatsAccumulator merged = new PriceStatsAccumulator();
+        merged.accept(new BigDecimal("100000000.01"), null);
+        // Nhóm 100000000.02 và 100000000.03 với tổng chính xác như cột NUMERIC của rollup
+        BigDecimal a = new BigDecimal("100000000.02");
+        BigDecimal b = new BigDecimal("100000000.03");
+        merged.merge(2, a.add(b), a.multiply(a).add(b.multiply(b)), a, b, a, b, 0, 0);
+
+        StatisticsDTO stats = merged.toStatistics(FROM, TO);
+        assertEquals(Math.sqrt(2.0 / 3) * 0.01, stats.stdDevPrice().doubleValue(), 1e-7);
+        assertEquals(100000000.02, stats.avgPrice().doubleValue(), 1e-6);
+    }
+
+    @Test
+    void testMerge_IgnoresEmptyGroup() {
+        PriceStatsAccumulator accumulator = new PriceStatsAccumulator();
+        accumulator.accept(new BigDecimal("5"), null);
+        accumulator.merge(0, BigDecimal.ZERO, BigDecimal.ZERO, null, null, null, null, 0, 0);
+
+        assertEquals(1, accumulator.getCount());
+        assertEquals(new BigDecimal("5"), accumulator.toStatistics(FROM, TO).lastPrice());
+    }
+
+    @Test
+    void testToStatistics_EmptyReturnsZeros() {
+        StatisticsDTO stats = new PriceStatsAccumulator().toStatistics(FROM, TO);
+
+        assertEquals(0, stats.count());
+        assertEquals(BigDecimal.ZERO, stats.minPrice());
+        assertEquals(BigDecimal.ZERO, stats.avgPrice());
+        assertNull(stats.vwap());
+        assertNull(stats.stdDevPrice());
+    }
+}
@@ -0,0 +1,89 @@
+package com.recognition.service.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recognition.dto.PriceDto;
+import com.recognition.service.LatestQuoteStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceFeedHubTest {
+
+    private LatestQuoteStore store;
+    private PriceFeedHub hub;
+    private UUID assetId;
+
+    @BeforeEach
+    void setUp() {
+        store = new LatestQuoteStore();
+        hub = new PriceFeedHub(store, new ObjectMapper().findAndRegisterModules(), 2, 1, 20);
+        hub.register();
+        assetId = UUID.randomUUID();
+    }
+
+    @Test
+    void testClose_ReleasesConnectionWithoutWriter() {
+        // Request kết thúc trước khi body chạy: chỉ callback hoàn tất gọi close, có thể nhiều lần
+        PriceFeedHub.Subscription subscription = hub.subscribe(Set.of(assetId));
+        assertNull(hub.subscribe(Set.of(assetId)));
+
+        subscription.close();
+        subscription.close();
+
+        assertEquals(0, hub.stats().get("connections"));
+        assertNotNull(hub.subscribe(Set.of(assetId)));
+    }
+
+    @Test
+    void testOnQuote_DropsOldestWhenQueueFull() throws Exception {
+        PriceFeedHub.Subscription subscription = hub.subscribe(Set.of(assetId));
+        OffsetDateTime now = OffsetDateTime.now();
+        store.put(quote("100", now));
+        store.put(quote("101", now.plusSeconds(1)));
+        store.put(quote("102", now.plusSeconds(2)));
+
+        assertEquals(3L, hub.stats().get("published"));
+        assertEquals(1L, hub.stats().get("dropped"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Thread writer = new Thread(() -> {
+            try {
+                subscription.writeTo(out);
+            } catch (Exception ignored) {
+            }
+        });
+        writer.start();
+        Thread.sleep(100);
+        subscription.close();
+        writer.join(1_000);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertFalse(body.contains("\"price\":100"));
+        assertTrue(body.contains("\"price\":101"));
+        assertTrue(body.contains("event: price"));
+        assertEquals(0, hub.stats().get("connections"));
+    }
+
+    @Test
+    void testSubscribe_RejectsOverMaxConnections() {
+        assertNotNull(hub.subscribe(Set.of(assetId)));
+        assertNull(hub.subscribe(Set.of(assetId)));
+        assertEquals(1L, hub.stats().get("rejected"));
+    }
+
+    private PriceDto quote(String price, OffsetDateTime timestamp) {
+        PriceDto dto = new PriceDto();
+        dto.setAssetId(assetId);
+        dto.setPrice(new BigDecimal(price));
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}